@@ -0,0 +1,81 @@
+/*
+ *  Package: Benchmarks
+ *  File:    Fixtures.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import Model.InventoryGenerator;
+import Model.Part;
+import Model.Product;
+
+/**
+ * Builds seeded synthetic parts and products for the benchmarks with InventoryGenerator.
+ * <p>
+ * The same seed always gives the same data, so runs can be compared.
+ * Lists are returned shuffled, as a TableView holds them after being
+ * sorted by some other column.
+ *
+ * @author Justin Langley
+ */
+final class Fixtures
+{
+    static final long SEED = 20190808L;
+
+    private Fixtures ()
+    {
+    }
+
+    /**
+     * Returns parts with IDs 1 to count, in a shuffled order.
+     *
+     * @param count the number of parts
+     * @param seed the random seed
+     * @return a modifiable list of parts
+     */
+    static List<Part> parts (int count, long seed)
+    {
+        InventoryGenerator generator = new InventoryGenerator(seed);
+
+        generator.setPartCount(count);
+
+        List<Part> parts = generator.generateParts();
+
+        Collections.shuffle(parts, new Random(seed));
+
+        return parts;
+    }
+
+    /**
+     * Returns products with IDs 1 to count, each associated with fanOut parts.
+     *
+     * @param count the number of products
+     * @param parts the parts to associate, in any order
+     * @param fanOut the number of parts per product
+     * @param seed the random seed
+     * @return a modifiable list of products, in a shuffled order
+     */
+    static List<Product> products (int count, List<Part> parts, int fanOut, long seed)
+    {
+        InventoryGenerator generator = new InventoryGenerator(seed);
+        List<Part>         byId      = new ArrayList<>(parts);
+
+        byId.sort(Comparator.comparingInt(Part::getId));
+        generator.setProductCount(count);
+        generator.setFanOut(fanOut, fanOut);
+
+        List<Product> products = generator.generateProducts(byId);
+
+        Collections.shuffle(products, new Random(seed));
+
+        return products;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  Package: Benchmarks
+ *  File:    InventoryBenchmark.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Model.Inventory;
+import Model.Part;
+import Model.Product;
+import Model.StockReason;
+import Model.UpdateResult;
+
+/**
+ * Measures the edits and lookups of Inventory on inventories of 1k to 10M parts.
+ * <p>
+ * Every edit goes through the command log, reorder monitor and stock ledger,
+ * as it does in the application. Edits which add are paired with a delete,
+ * so the inventory keeps its size across iterations.
+ *
+ * @author Justin Langley
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class InventoryBenchmark
+{
+    // number of distinct IDs cycled through
+    private static final int IDS = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Inventory inventory;
+    private Part      extraPart;
+    private Product   extraProduct;
+    private int[]     ids;
+    private int       next;
+    private int       delta = 1;
+
+    @Setup(Level.Trial)
+    public void setUp ()
+    {
+        Random        random   = new Random(Fixtures.SEED);
+        List<Part>    parts    = Fixtures.parts(size + 1, Fixtures.SEED);
+        List<Product> products = Fixtures.products(Math.max(1, size / 10), parts, 5,
+                                                   Fixtures.SEED);
+
+        inventory = new Inventory();
+        for (Part part : parts)
+            {
+            if (part.getId() > size)
+                {
+                // held back for the add benchmark
+                extraPart = part;
+                }
+            else
+                {
+                inventory.addPart(part);
+                }
+            }
+        for (Product product : products)
+            {
+            inventory.addProduct(product);
+            }
+        inventory.getHistory().clear();
+
+        extraProduct = Fixtures.products(1, parts, 5, Fixtures.SEED + 1).get(0);
+        extraProduct.setId(Integer.MAX_VALUE);
+        ids = new int[IDS];
+        for (int i = 0; i < IDS; i++)
+            {
+            ids[i] = 1 + random.nextInt(size);
+            }
+    }
+
+    @Benchmark
+    public Part lookupPart ()
+    {
+        return inventory.lookupPart(nextId());
+    }
+
+    @Benchmark
+    public Product lookupProduct ()
+    {
+        return inventory.lookupProduct(1 + (nextId() % Math.max(1, size / 10)));
+    }
+
+    @Benchmark
+    public void addDeletePart ()
+    {
+        inventory.addPart(extraPart);
+        inventory.deletePart(extraPart);
+    }
+
+    @Benchmark
+    public void addDeleteProduct ()
+    {
+        inventory.addProduct(extraProduct);
+        inventory.deleteProduct(extraProduct);
+    }
+
+    @Benchmark
+    public UpdateResult<Part> updatePart ()
+    {
+        Part part = inventory.lookupPart(nextId());
+
+        return inventory.updatePart(part.getId(), part.getVersion(), part.copy());
+    }
+
+    @Benchmark
+    public Part adjustStock ()
+    {
+        Part moved = inventory.adjustStock(inventory.lookupPart(nextId()), delta,
+                                           StockReason.PICK);
+
+        // up on one pass over the IDs and back down on the next, so stock never goes below zero
+        if (next == 0)
+            {
+            delta = -delta;
+            }
+
+        return moved;
+    }
+
+    private int nextId ()
+    {
+        next = (next + 1) & (IDS - 1);
+
+        return ids[next];
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Package: Benchmarks
+ *  File:    ProductCostBenchmark.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Model.Product;
+
+/**
+ * Measures the cost roll-up of a product's associated parts, which the
+ * product editors run on every save to check the price is not set too low.
+ *
+ * @author Justin Langley
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCostBenchmark
+{
+    // number of parts associated with the product
+    @Param({"5", "50", "500", "5000"})
+    public int fanOut;
+
+    private Product product;
+
+    @Setup(Level.Trial)
+    public void setUp ()
+    {
+        product = Fixtures.products(1, Fixtures.parts(10000, Fixtures.SEED), fanOut,
+                                    Fixtures.SEED).get(0);
+    }
+
+    @Benchmark
+    public double associatedPartsCost ()
+    {
+        return product.getAssociatedPartsCost();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *  Package: Benchmarks
+ *  File:    SearchBenchmark.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Helpers.InventorySearch;
+import Model.Part;
+import Model.Product;
+
+/**
+ * Measures every search path of SearchHelper: id, inv, name and price,
+ * for parts and products.
+ * <p>
+ * Each search sorts the list by the searched field before its binary search,
+ * as SearchHelper does on every call. Two cases are measured:
+ * <ul>
+ * <li>repeat: the list is still sorted from the previous search of the same field,
+ * e.g. a user searching one column again and again</li>
+ * <li>fresh: the search runs on a copy of the list in a shuffled order,
+ * e.g. after the user sorted the TableView by another column.
+ * This includes copying the list, as a headless caller of InventorySearch does</li>
+ * </ul>
+ *
+ * @author Justin Langley
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class SearchBenchmark
+{
+    // number of distinct queries cycled through, so no single path gets cached
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"id", "inv", "name", "price"})
+    public String field;
+
+    private final InventorySearch search = new InventorySearch();
+    private List<Part>            shuffledParts;
+    private List<Product>         shuffledProducts;
+    private List<Part>            parts;
+    private List<Product>         products;
+    private String[]              partQueries;
+    private String[]              productQueries;
+    private int                   next;
+
+    @Setup(Level.Trial)
+    public void setUp ()
+    {
+        Random random = new Random(Fixtures.SEED);
+
+        shuffledParts    = Fixtures.parts(size, Fixtures.SEED);
+        shuffledProducts = Fixtures.products(Math.max(1, size / 10), shuffledParts, 5,
+                                             Fixtures.SEED);
+        parts            = new ArrayList<>(shuffledParts);
+        products         = new ArrayList<>(shuffledProducts);
+        partQueries      = new String[QUERIES];
+        productQueries   = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++)
+            {
+            Part    part = shuffledParts.get(random.nextInt(shuffledParts.size()));
+            Product prod = shuffledProducts.get(random.nextInt(shuffledProducts.size()));
+
+            partQueries[i]    = query(part.getId(), part.getStock(), part.getName(),
+                                      part.getPrice());
+            productQueries[i] = query(prod.getId(), prod.getStock(), prod.getName(),
+                                      prod.getPrice());
+            }
+    }
+
+    @Benchmark
+    public Part partRepeat ()
+    {
+        return search.findPart(parts, partQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public Part partFresh ()
+    {
+        return search.findPart(new ArrayList<>(shuffledParts), partQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public Product productRepeat ()
+    {
+        return search.findProduct(products, productQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public Product productFresh ()
+    {
+        return search.findProduct(new ArrayList<>(shuffledProducts),
+                                  productQueries[nextQuery()]);
+    }
+
+    private int nextQuery ()
+    {
+        next = (next + 1) & (QUERIES - 1);
+
+        return next;
+    }
+
+    // builds a query for the benchmarked field, with its search prefix
+    private String query (int id, int stock, String name, double price)
+    {
+        switch (field)
+            {
+            case "id":
+                return "id:" + id;
+            case "inv":
+                return "inv:" + stock;
+            case "name":
+                return "name:" + name;
+            default:
+                return "price:" + String.format(Locale.US, "%.2f", price);
+            }
+    }
+}
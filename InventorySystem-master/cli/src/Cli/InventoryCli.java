@@ -0,0 +1,453 @@
+/*
+ *  Package: Cli
+ *  File:    InventoryCli.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import Helpers.FormRules.Rule;
+import Helpers.InventoryJson;
+import Helpers.InventoryRules;
+import Helpers.JsonReader;
+import Helpers.JsonWriter;
+
+import Model.Inventory;
+import Model.InventoryGenerator;
+import Model.InventorySnapshot;
+import Model.LowStockMonitor;
+import Model.Part;
+import Model.Product;
+import Model.StockReason;
+
+/**
+ * A command line tool over the headless core, for cron jobs and scripts:
+ * <pre>
+ * inventory [--data FILE] import FILE           adds the parts and products of an export,
+ *                                               replacing those with the same IDs
+ * inventory [--data FILE] export [FILE]         writes the inventory as JSON, to stdout without FILE
+ * inventory [--data FILE] adjust ID DELTA [REASON]
+ *                                               moves the stock of a part, REASON is
+ *                                               receipt, pick or adjustment (the default)
+ * inventory [--data FILE] apply FILE [REJECTS]  applies a file of stock movements, see StockBatch,
+ *                                               writing the lines rejected to REJECTS,
+ *                                               FILE.rejects by default
+ * inventory [--data FILE] low-stock [LIMIT]     lists the parts at or below min, most urgent first
+ * inventory [--data FILE] generate              replaces the inventory with a generated one,
+ *                                               sized by the inventory.* properties
+ * </pre>
+ * The inventory is kept between runs in the data file, inventory.json unless
+ * --data or -Dinventory.data says otherwise, in the format of InventoryJson.
+ * A missing data file is an empty inventory. Changes are written to a temporary
+ * file which then replaces the data file, so a run which fails part way,
+ * or a second job reading at the same time, never sees half a file.
+ * <p>
+ * Built as a native image (see build.xml) the tool starts in milliseconds, so a
+ * job running every minute does not pay for a JVM to start and warm up each time.
+ * <p>
+ * Exits with 0 on success, 1 if the command failed, and 2 if it was not understood.
+ * Low-stock output is tab separated: id, name, stock, min, max, quantity to reorder.
+ *
+ * @author Justin Langley
+ */
+public final class InventoryCli
+{
+    // system property naming the data file
+    public static final String DATA = "inventory.data";
+
+    // system property giving the threads of apply, the number of cores by default
+    public static final String THREADS = "inventory.threads";
+
+    private static final String USAGE =
+        "usage: inventory [--data FILE] import FILE | export [FILE] | adjust ID DELTA [REASON]"
+        + " | apply FILE [REJECTS] | low-stock [LIMIT] | generate";
+
+    private final Path        data;
+    private final PrintStream out;
+
+    /**
+     * Creates a tool over a data file.
+     *
+     * @param data the data file, which need not exist yet
+     * @param out where reports and exports without a file are written
+     */
+    public InventoryCli (Path data, PrintStream out)
+    {
+        this.data = data;
+        this.out  = out;
+    }
+
+    public static void main (String[] args)
+    {
+        String data  = System.getProperty(DATA, "inventory.json");
+        int    first = 0;
+
+        if ((args.length >= 2) && "--data".equals(args[0]))
+            {
+            data  = args[1];
+            first = 2;
+            }
+        if (first >= args.length)
+            {
+            System.err.println(USAGE);
+            System.exit(2);
+            }
+
+        String[] rest = new String[args.length - first - 1];
+
+        System.arraycopy(args, first + 1, rest, 0, rest.length);
+        System.exit(new InventoryCli(Paths.get(data), System.out).run(args[first], rest));
+    }
+
+    /**
+     * Moves the stock of a part. The stock may not go below zero, going above
+     * max is allowed, e.g. for a large delivery, but reported.
+     *
+     * @param partId the ID of the part
+     * @param delta the change in stock
+     * @param reason why the stock moved
+     * @throws IOException if the data file cannot be read or written, or the move is refused
+     */
+    public void adjust (int partId, int delta, StockReason reason) throws IOException
+    {
+        Inventory inventory = load();
+        Part      part      = inventory.lookupPart(partId);
+
+        if (part == null)
+            {
+            throw new IOException("No part with ID " + partId);
+            }
+
+        Part moved;
+
+        try
+            {
+            moved = inventory.adjustStock(part, delta, reason);
+            }
+        catch (IllegalArgumentException e)
+            {
+            // below zero, or past the largest stock a part can hold
+            throw new IOException(e.getMessage());
+            }
+
+        if (moved.getStock() > moved.getMax())
+            {
+            System.err.println("warning: stock of part " + partId + " is " + moved.getStock()
+                               + ", above its max of " + moved.getMax());
+            }
+        save(inventory.snapshot());
+    }
+
+    /**
+     * Applies a file of stock movements, as described by StockBatch.
+     *
+     * @param file the movements
+     * @param rejects where the lines rejected are written
+     * @throws IOException if a file cannot be read or written
+     */
+    public void apply (Path file, Path rejects) throws IOException
+    {
+        Inventory         inventory = load();
+        int               threads   = Integer.getInteger(THREADS,
+                                                         Runtime.getRuntime().availableProcessors());
+        StockBatch.Result result;
+
+        try (InputStream in = Files.newInputStream(file);
+             Writer writer = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8))
+            {
+            result = new StockBatch(inventory, threads).apply(in, writer);
+            }
+        save(inventory.snapshot());
+        System.err.println(file + ": " + result);
+    }
+
+    /**
+     * Writes the inventory as JSON.
+     *
+     * @param file the file to write, null for the output stream
+     * @throws IOException if the data file cannot be read or the export written
+     */
+    public void export (Path file) throws IOException
+    {
+        InventorySnapshot snapshot = load().snapshot();
+
+        if (file == null)
+            {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+            InventoryJson.writeInventory(new JsonWriter(writer), snapshot);
+            writer.write(System.lineSeparator());
+            writer.flush();
+            }
+        else
+            {
+            write(snapshot, file);
+            }
+    }
+
+    // replaces the inventory with one generated from the inventory.* properties
+    public void generate () throws IOException
+    {
+        Inventory inventory = new Inventory();
+
+        InventoryGenerator.fromProperties(System.getProperties()).populate(inventory);
+        save(inventory.snapshot());
+    }
+
+    /**
+     * Adds the parts and products of an export to the inventory. Those with the
+     * ID of one already held replace it. If any breaks the rules of InventoryRules,
+     * e.g. a min above its max, each is reported and nothing is imported.
+     *
+     * @param file the export to read
+     * @throws IOException if a file cannot be read or written, or the export is not valid
+     */
+    public void importFrom (Path file) throws IOException
+    {
+        InventorySnapshot     current  = load().snapshot();
+        InventorySnapshot     imported = read(file);
+        Map<Integer, Part>    parts    = new TreeMap<>();
+        Map<Integer, Product> products = new TreeMap<>();
+        List<String>          invalid  = new ArrayList<>();
+
+        for (Part part : imported.getParts())
+            {
+            for (Rule rule : InventoryRules.check(part))
+                {
+                invalid.add("part " + part.getId() + ": " + rule);
+                }
+            }
+        for (Product product : imported.getProducts())
+            {
+            for (Rule rule : InventoryRules.check(product))
+                {
+                invalid.add("product " + product.getId() + ": " + rule);
+                }
+            }
+        if (!invalid.isEmpty())
+            {
+            for (String line : invalid)
+                {
+                System.err.println(line);
+                }
+            throw new IOException(file + ": " + invalid.size() + " rules broken, nothing imported");
+            }
+
+        for (Part part : current.getParts())
+            {
+            parts.put(part.getId(), part);
+            }
+        for (Part part : imported.getParts())
+            {
+            parts.put(part.getId(), part);
+            }
+        for (Product product : current.getProducts())
+            {
+            products.put(product.getId(), product);
+            }
+        for (Product product : imported.getProducts())
+            {
+            products.put(product.getId(), product);
+            }
+
+        // products keep their parts by ID in the file, so they pick up replaced parts on load
+        save(InventorySnapshot.of(parts.values(), products.values()));
+        System.err.println("imported " + imported.getParts().size() + " parts and "
+                           + imported.getProducts().size() + " products");
+    }
+
+    /**
+     * Lists the parts at or below their min, most urgent first.
+     *
+     * @param limit the most parts to list
+     * @throws IOException if the data file cannot be read
+     */
+    public void lowStock (int limit) throws IOException
+    {
+        int listed = 0;
+
+        for (Part part : load().getLowStock().getReorderParts())
+            {
+            if (listed++ == limit)
+                {
+                break;
+                }
+            out.println(part.getId() + "\t" + part.getName() + "\t" + part.getStock() + "\t"
+                        + part.getMin() + "\t" + part.getMax() + "\t"
+                        + LowStockMonitor.suggestedReorderQty(part));
+            }
+        out.flush();
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param command the command, e.g. export
+     * @param args its arguments
+     * @return the exit code, 0 on success
+     */
+    public int run (String command, String[] args)
+    {
+        try
+            {
+            switch (command)
+                {
+                case "import":
+                    if (args.length != 1)
+                        {
+                        break;
+                        }
+                    importFrom(Paths.get(args[0]));
+
+                    return 0;
+                case "export":
+                    if (args.length > 1)
+                        {
+                        break;
+                        }
+                    export((args.length == 0) ? null : Paths.get(args[0]));
+
+                    return 0;
+                case "adjust":
+                    if ((args.length < 2) || (args.length > 3))
+                        {
+                        break;
+                        }
+                    adjust(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                           (args.length == 3) ? reason(args[2]) : StockReason.ADJUSTMENT);
+
+                    return 0;
+                case "apply":
+                    if ((args.length < 1) || (args.length > 2))
+                        {
+                        break;
+                        }
+                    apply(Paths.get(args[0]), Paths.get((args.length == 2) ? args[1]
+                                                                           : args[0] + ".rejects"));
+
+                    return 0;
+                case "low-stock":
+                    if (args.length > 1)
+                        {
+                        break;
+                        }
+                    lowStock((args.length == 0) ? Integer.MAX_VALUE : Integer.parseInt(args[0]));
+
+                    return 0;
+                case "generate":
+                    if (args.length != 0)
+                        {
+                        break;
+                        }
+                    generate();
+
+                    return 0;
+                default:
+                    break;
+                }
+            }
+        catch (IllegalArgumentException e)
+            {
+            // a malformed number or reason
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+
+            return 2;
+            }
+        catch (IOException e)
+            {
+            System.err.println(command + ": " + e.getMessage());
+
+            return 1;
+            }
+        System.err.println(USAGE);
+
+        return 2;
+    }
+
+    // the inventory in the data file, empty if there is no data file yet
+    private Inventory load () throws IOException
+    {
+        Inventory inventory = new Inventory();
+
+        if (Files.exists(data))
+            {
+            inventory.load(read(data));
+            }
+
+        return inventory;
+    }
+
+    private static InventorySnapshot read (Path file) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+            {
+            return InventoryJson.readInventory(new JsonReader(reader));
+            }
+        catch (IOException e)
+            {
+            throw new IOException(file + ": " + e.getMessage(), e);
+            }
+    }
+
+    // the stock reasons a command line move may give
+    private static StockReason reason (String name)
+    {
+        StockReason reason = StockReason.valueOf(name.toUpperCase(Locale.ROOT));
+
+        if ((reason == StockReason.INITIAL) || (reason == StockReason.REMOVED))
+            {
+            throw new IllegalArgumentException("Not a reason for a stock move: " + name);
+            }
+
+        return reason;
+    }
+
+    // writes the data file, replacing the old one only once the new one is complete
+    private void save (InventorySnapshot snapshot) throws IOException
+    {
+        Path absolute  = data.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+        write(snapshot, temporary);
+        try
+            {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            }
+        catch (IOException e)
+            {
+            Files.deleteIfExists(temporary);
+            throw e;
+            }
+    }
+
+    private static void write (InventorySnapshot snapshot, Path file) throws IOException
+    {
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)))
+            {
+            InventoryJson.writeInventory(json, snapshot);
+            }
+    }
+}
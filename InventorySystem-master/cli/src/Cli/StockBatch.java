@@ -0,0 +1,701 @@
+/*
+ *  Package: Cli
+ *  File:    StockBatch.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Model.Inventory;
+import Model.Part;
+import Model.PersistentList;
+import Model.StockReason;
+
+/**
+ * Applies a file of stock movements to an inventory, e.g. a night's receipts and picks.
+ * <p>
+ * The file has one movement per line, a part ID, a signed quantity and a reason:
+ * <pre>
+ * # part, quantity, reason
+ * 1042,250,receipt
+ * 1042,-12,pick
+ * 77,-3,adjustment
+ * </pre>
+ * Receipts may not be negative, nor picks positive. Blank lines and lines starting
+ * with # are skipped. A movement is rejected if it is malformed, its part is unknown,
+ * it would take the stock of its part below zero, or it would raise the stock above
+ * the part's max. Going below min is allowed, the part is then reported low on stock.
+ * Each part's movements are checked in file order, against its stock as moved by
+ * the movements before it.
+ * <p>
+ * The file is streamed in blocks, and the work is split by part ID: each block is
+ * parsed on a pool thread into one slice per partition, and each partition has
+ * one thread at a time checking its slices, in block order. So the parsing and the
+ * checking both run on every core, and no two threads ever touch the same part.
+ * Only a few blocks are in memory at once, whatever the size of the file.
+ * <p>
+ * Nothing touches the inventory until the whole file is checked. Then the net
+ * delta of each part, per reason, is applied through Inventory in one pass over
+ * the parts, so the ledger and the low-stock monitor see one movement per part
+ * and reason rather than every line.
+ * <p>
+ * Rejected lines are written, in file order, as the line number, the reason for
+ * the rejection and the line itself, separated by tabs.
+ *
+ * @author Justin Langley
+ */
+public final class StockBatch
+{
+    // the reasons a file may give, in the order their net deltas are applied
+    private static final StockReason[] REASONS =
+        {StockReason.RECEIPT, StockReason.ADJUSTMENT, StockReason.PICK};
+
+    // the indexes of REASONS to apply net deltas in, tried in turn, see Moves.applyTo()
+    private static final int[][] ORDERS = {{0, 1, 2}, {2, 1, 0}};
+
+    private static final int BLOCK_SIZE = 1 << 22;
+
+    private final Inventory inventory;
+    private final int       threads;
+
+    /**
+     * Creates a batch over an inventory.
+     *
+     * @param inventory the inventory to move the stock of
+     * @param threads the number of threads, and of partitions
+     */
+    public StockBatch (Inventory inventory, int threads)
+    {
+        if (threads < 1)
+            {
+            throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+            }
+        this.inventory = inventory;
+        this.threads   = threads;
+    }
+
+    /**
+     * Checks every movement in a file and applies the net change of each part.
+     * The inventory should not be edited by anyone else while the file is read.
+     *
+     * @param in the file of movements, in UTF-8
+     * @param rejects where rejected lines are written
+     * @return what was applied and rejected
+     * @throws IOException if the file cannot be read or the rejects written
+     */
+    public Result apply (InputStream in, Writer rejects) throws IOException
+    {
+        PersistentList<Part> parts = inventory.snapshot().getParts();
+        Moves                moves = new Moves(parts);
+        ExecutorService      pool  = Executors.newFixedThreadPool(threads, runnable ->
+            {
+            Thread thread = new Thread(runnable, "stock-batch");
+
+            thread.setDaemon(true);
+
+            return thread;
+            });
+
+        // one chain of slices per partition, and the rejects each partition found
+        List<CompletableFuture<Void>> tails    = new ArrayList<>();
+        List<List<Reject>>            found    = new ArrayList<>();
+        List<Block>                   blocks   = new ArrayList<>();
+        Semaphore                     inFlight = new Semaphore(threads * 2);
+
+        for (int p = 0; p < threads; p++)
+            {
+            tails.add(CompletableFuture.completedFuture(null));
+            found.add(new ArrayList<>());
+            }
+        try
+            {
+            byte[] carry = new byte[0];
+            Block  block;
+
+            while ((block = read(in, carry, blocks.size())) != null)
+                {
+                Block                    next   = block;
+                CompletableFuture<Block> parsed;
+
+                inFlight.acquireUninterruptibly();
+                next.pending.set(threads);
+                blocks.add(next);
+                carry  = next.rest;
+                parsed = CompletableFuture.supplyAsync(() -> next.parse(parts, threads), pool);
+                for (int p = 0; p < threads; p++)
+                    {
+                    int          partition = p;
+                    List<Reject> rejected  = found.get(p);
+
+                    tails.set(p, tails.get(p).thenCombineAsync(parsed, (none, done) ->
+                        {
+                        moves.check(done.slices[partition], done.number, rejected);
+
+                        return (Void) null;
+                        }, pool).whenComplete((none, e) ->
+                        {
+                        next.checked(inFlight);
+                        }));
+                    }
+                }
+            CompletableFuture.allOf(tails.toArray(new CompletableFuture<?>[0])).join();
+            }
+        catch (CompletionException e)
+            {
+            throw new IOException("Stock batch failed: " + e.getCause(), e.getCause());
+            }
+        finally
+            {
+            pool.shutdownNow();
+            }
+
+        Result result = moves.applyTo(inventory, parts);
+
+        // the rejects of every block and partition, in file order
+        List<Reject> all  = new ArrayList<>();
+        long[]       base = new long[blocks.size() + 1];
+
+        for (Block block : blocks)
+            {
+            base[block.number + 1] = base[block.number] + block.lines;
+            all.addAll(block.rejects);
+            result.lines += block.lines;
+            }
+        for (List<Reject> rejected : found)
+            {
+            all.addAll(rejected);
+            }
+        Collections.sort(all, Comparator.comparingInt((Reject reject) -> reject.block)
+                                        .thenComparingInt(reject -> reject.line));
+        for (Reject reject : all)
+            {
+            rejects.write(Long.toString(base[reject.block] + reject.line + 1));
+            rejects.write('\t');
+            rejects.write(reject.message);
+            rejects.write('\t');
+            rejects.write(reject.text);
+            rejects.write(System.lineSeparator());
+            }
+        rejects.flush();
+        result.rejected = all.size();
+
+        return result;
+    }
+
+    // which partition checks the movements of a part
+    static int partition (int partId, int partitions)
+    {
+        return Math.floorMod(partId, partitions);
+    }
+
+    // reads the next block of whole lines, null at the end of the input
+    private static Block read (InputStream in, byte[] carry, int number) throws IOException
+    {
+        byte[] bytes  = Arrays.copyOf(carry, Math.max(BLOCK_SIZE, carry.length * 2));
+        int    length = carry.length;
+        int    read   = 0;
+
+        while (true)
+            {
+            while ((length < bytes.length) && ((read = in.read(bytes, length,
+                                                               bytes.length - length)) > 0))
+                {
+                length += read;
+                }
+
+            int end = length;
+
+            while ((end > carry.length) && (bytes[end - 1] != '\n'))
+                {
+                end--;
+                }
+            if (read < 0)
+                {
+                // the end of the input, the last line need not end with a newline
+                return (length == 0) ? null : new Block(number, bytes, length, new byte[0]);
+                }
+            if ((end > 0) && (bytes[end - 1] == '\n'))
+                {
+                return new Block(number, bytes, end, Arrays.copyOfRange(bytes, end, length));
+                }
+
+            // a line longer than the block, read on until it ends
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+    }
+
+    // what a batch did
+    public static final class Result
+    {
+        private long lines;
+        private long applied;
+        private long rejected;
+        private int  parts;
+        private int  lowStock;
+
+        // the movements applied, i.e. not rejected
+        public long getApplied ()
+        {
+            return this.applied;
+        }
+
+        // the lines in the file, including blank lines and comments
+        public long getLines ()
+        {
+            return this.lines;
+        }
+
+        // the parts at or below their min once the batch was applied
+        public int getLowStock ()
+        {
+            return this.lowStock;
+        }
+
+        // the parts whose stock changed
+        public int getParts ()
+        {
+            return this.parts;
+        }
+
+        // the lines written to the rejects
+        public long getRejected ()
+        {
+            return this.rejected;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return lines + " lines, " + applied + " movements applied to " + parts + " parts, "
+                   + rejected + " rejected, " + lowStock + " parts low on stock";
+        }
+    }
+
+    // a block of whole lines of the file, and its movements once parsed
+    private static final class Block
+    {
+        private final int          number;
+        private final List<Reject> rejects = new ArrayList<>();
+
+        // the partitions still to check the block, its bytes are dropped after the last
+        private final AtomicInteger pending = new AtomicInteger();
+        private byte[]              bytes;
+        private final int           length;
+        private final byte[]        rest;
+        private int                 lines;
+        private Slice[]             slices;
+
+        Block (int number, byte[] bytes, int length, byte[] rest)
+        {
+            this.number = number;
+            this.bytes  = bytes;
+            this.length = length;
+            this.rest   = rest;
+        }
+
+        // called as each partition finishes, lets another block be read after the last
+        void checked (Semaphore inFlight)
+        {
+            if (pending.decrementAndGet() == 0)
+                {
+                bytes  = null;
+                slices = null;
+                inFlight.release();
+                }
+        }
+
+        // splits the lines into a slice per partition, rejecting those which are not movements
+        Block parse (PersistentList<Part> parts, int partitions)
+        {
+            byte[] b   = this.bytes;
+            int    pos = 0;
+
+            slices = new Slice[partitions];
+            for (int p = 0; p < partitions; p++)
+                {
+                slices[p] = new Slice(b);
+                }
+            while (pos < length)
+                {
+                int start = pos;
+                int end;
+
+                while ((pos < length) && (b[pos] != '\n'))
+                    {
+                    pos++;
+                    }
+                end = ((pos > start) && (b[pos - 1] == '\r')) ? pos - 1 : pos;
+                pos++;
+                parseLine(parts, start, end);
+                lines++;
+                }
+
+            return this;
+        }
+
+        private void parseLine (PersistentList<Part> parts, int start, int end)
+        {
+            byte[] b   = this.bytes;
+            int    pos = skipBlanks(b, start, end);
+
+            if ((pos == end) || (b[pos] == '#'))
+                {
+                return;
+                }
+
+            long id = number(b, pos, end);
+
+            if (id == Long.MIN_VALUE)
+                {
+                reject(start, end, "malformed part ID");
+
+                return;
+                }
+            pos = field(b, pos, end);
+
+            long delta = (pos < 0) ? Long.MIN_VALUE : number(b, pos, end);
+
+            if (delta == Long.MIN_VALUE)
+                {
+                reject(start, end, "malformed quantity");
+
+                return;
+                }
+            pos = field(b, pos, end);
+
+            int reason = (pos < 0) ? -1 : reason(b, pos, end);
+
+            if (reason < 0)
+                {
+                reject(start, end, "reason is not receipt, pick or adjustment");
+
+                return;
+                }
+            if ((REASONS[reason] == StockReason.RECEIPT) && (delta < 0))
+                {
+                reject(start, end, "receipt of a negative quantity");
+
+                return;
+                }
+            if ((REASONS[reason] == StockReason.PICK) && (delta > 0))
+                {
+                reject(start, end, "pick of a positive quantity");
+
+                return;
+                }
+
+            int index = parts.indexOfKey(Part::getId, (int) id);
+
+            if (index < 0)
+                {
+                reject(start, end, "no part with ID " + id);
+
+                return;
+                }
+            slices[partition((int) id, slices.length)].add(index, (int) delta, reason, lines,
+                                                           start, end);
+        }
+
+        private void reject (int start, int end, String message)
+        {
+            rejects.add(new Reject(number, lines, text(bytes, start, end), message));
+        }
+    }
+
+    // the running stock, and net delta per reason, of every part in the inventory
+    private static final class Moves
+    {
+        private final long[]   stock;
+        private final int[]    max;
+        private final long[][] nets;
+        private final int[]    counts;
+
+        Moves (PersistentList<Part> parts)
+        {
+            int index = 0;
+
+            stock  = new long[parts.size()];
+            max    = new int[parts.size()];
+            nets   = new long[REASONS.length][parts.size()];
+            counts = new int[parts.size()];
+            for (Part part : parts)
+                {
+                stock[index] = part.getStock();
+                max[index++] = part.getMax();
+                }
+        }
+
+        // applies the net deltas through the inventory, one change per part and reason
+        Result applyTo (Inventory inventory, PersistentList<Part> parts)
+        {
+            Result result = new Result();
+            int    index  = 0;
+
+            for (Part part : parts)
+                {
+                int   i     = index++;
+                long  total = 0;
+                int[] order = null;
+
+                if (counts[i] == 0)
+                    {
+                    continue;
+                    }
+                result.applied += counts[i];
+                for (int r = 0; r < REASONS.length; r++)
+                    {
+                    total += nets[r][i];
+                    }
+                if (total != 0)
+                    {
+                    result.parts++;
+                    }
+
+                // Inventory refuses a move leaving the stock below zero, or above max
+                // on the way up, so the nets go in an order keeping every step in range
+                for (int o = 0; (o < ORDERS.length) && (order == null); o++)
+                    {
+                    order = fits(i, part.getStock(), ORDERS[o]) ? ORDERS[o] : null;
+                    }
+                if (order == null)
+                    {
+                    // e.g. a receipt and a pick each larger than the part holds, only
+                    // the total can be applied, which the checks kept in range
+                    if (total != 0)
+                        {
+                        inventory.adjustStock(part.getId(), (int) total, StockReason.ADJUSTMENT);
+                        }
+                    continue;
+                    }
+                for (int r : order)
+                    {
+                    if (nets[r][i] != 0)
+                        {
+                        inventory.adjustStock(part.getId(), (int) nets[r][i], REASONS[r]);
+                        }
+                    }
+                }
+            result.lowStock = inventory.getLowStock().size();
+
+            return result;
+        }
+
+        // whether applying a part's nets in an order keeps every step in range
+        private boolean fits (int i, long start, int[] order)
+        {
+            long running = start;
+
+            for (int r : order)
+                {
+                long net = nets[r][i];
+
+                running += net;
+                if ((net < Integer.MIN_VALUE) || (net > Integer.MAX_VALUE) || (running < 0)
+                    || ((net > 0) && (running > max[i])))
+                    {
+                    return false;
+                    }
+                }
+
+            return true;
+        }
+
+        // checks a partition's slice of a block against the stock of its parts
+        void check (Slice slice, int block, List<Reject> rejects)
+        {
+            for (int m = 0; m < slice.size; m++)
+                {
+                int  i     = slice.parts[m];
+                int  delta = slice.deltas[m];
+                long moved = stock[i] + delta;
+
+                if ((delta < 0) && (moved < 0))
+                    {
+                    rejects.add(new Reject(block, slice.lines[m],
+                                           text(slice.bytes, slice.starts[m], slice.ends[m]),
+                                           "stock would fall below zero, it is " + stock[i]));
+                    }
+                else if ((delta > 0) && (moved > max[i]))
+                    {
+                    rejects.add(new Reject(block, slice.lines[m],
+                                           text(slice.bytes, slice.starts[m], slice.ends[m]),
+                                           "stock would rise above max of " + max[i] + ", it is "
+                                           + stock[i]));
+                    }
+                else
+                    {
+                    stock[i]                   = moved;
+                    nets[slice.reasons[m]][i] += delta;
+                    counts[i]++;
+                    }
+                }
+        }
+    }
+
+    // a rejected line, by block and line within the block
+    private static final class Reject
+    {
+        private final int    block;
+        private final int    line;
+        private final String text;
+        private final String message;
+
+        Reject (int block, int line, String text, String message)
+        {
+            this.block   = block;
+            this.line    = line;
+            this.text    = text;
+            this.message = message;
+        }
+    }
+
+    // the movements of one partition in one block, column by column
+    private static final class Slice
+    {
+        private final byte[] bytes;
+        private int[]        parts   = new int[64];
+        private int[]        deltas  = new int[64];
+        private byte[]       reasons = new byte[64];
+        private int[]        lines   = new int[64];
+        private int[]        starts  = new int[64];
+        private int[]        ends    = new int[64];
+        private int          size    = 0;
+
+        Slice (byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        void add (int part, int delta, int reason, int line, int start, int end)
+        {
+            if (size == parts.length)
+                {
+                parts   = Arrays.copyOf(parts, size * 2);
+                deltas  = Arrays.copyOf(deltas, size * 2);
+                reasons = Arrays.copyOf(reasons, size * 2);
+                lines   = Arrays.copyOf(lines, size * 2);
+                starts  = Arrays.copyOf(starts, size * 2);
+                ends    = Arrays.copyOf(ends, size * 2);
+                }
+            parts[size]   = part;
+            deltas[size]  = delta;
+            reasons[size] = (byte) reason;
+            lines[size]   = line;
+            starts[size]  = start;
+            ends[size++]  = end;
+        }
+    }
+
+    /*
+     * Parsing of the fields of a line, straight from its bytes.
+     */
+
+    // moves past the comma ending a field, returns -1 if there is none
+    private static int field (byte[] b, int pos, int end)
+    {
+        while ((pos < end) && (b[pos] != ','))
+            {
+            pos++;
+            }
+
+        return (pos == end) ? -1 : skipBlanks(b, pos + 1, end);
+    }
+
+    // parses a signed int at pos, up to blanks or a comma, Long.MIN_VALUE if there is none
+    private static long number (byte[] b, int pos, int end)
+    {
+        boolean negative = false;
+        long    value    = 0;
+        int     digits   = 0;
+
+        if ((pos < end) && ((b[pos] == '-') || (b[pos] == '+')))
+            {
+            negative = b[pos++] == '-';
+            }
+        while ((pos < end) && (b[pos] >= '0') && (b[pos] <= '9'))
+            {
+            value = value * 10 + (b[pos++] - '0');
+            if (value > 1L + Integer.MAX_VALUE)
+                {
+                return Long.MIN_VALUE;
+                }
+            digits++;
+            }
+        pos = skipBlanks(b, pos, end);
+        if ((digits == 0) || ((pos < end) && (b[pos] != ',')))
+            {
+            return Long.MIN_VALUE;
+            }
+        value = negative ? -value : value;
+
+        return (value > Integer.MAX_VALUE) ? Long.MIN_VALUE : value;
+    }
+
+    // parses the reason at pos, the last field, as an index into REASONS, -1 if it is none
+    private static int reason (byte[] b, int pos, int end)
+    {
+        int last = end;
+
+        while ((last > pos) && ((b[last - 1] == ' ') || (b[last - 1] == '\t')))
+            {
+            last--;
+            }
+        for (int r = 0; r < REASONS.length; r++)
+            {
+            String name = REASONS[r].name();
+
+            if (last - pos != name.length())
+                {
+                continue;
+                }
+
+            int i = 0;
+
+            while ((i < name.length()) && (Character.toUpperCase((char) b[pos + i])
+                                           == name.charAt(i)))
+                {
+                i++;
+                }
+            if (i == name.length())
+                {
+                return r;
+                }
+            }
+
+        return -1;
+    }
+
+    private static int skipBlanks (byte[] b, int pos, int end)
+    {
+        while ((pos < end) && ((b[pos] == ' ') || (b[pos] == '\t')))
+            {
+            pos++;
+            }
+
+        return pos;
+    }
+
+    private static String text (byte[] b, int start, int end)
+    {
+        return new String(b, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *  Package: Helpers
+ *  File:    CurrencyParser.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+/**
+ * Parses amounts of money, e.g. $1,234.56, into whole cents.
+ * <p>
+ * Each parse reads the text once, left to right, and allocates nothing, so it
+ * can be called on every keystroke of a price field or every record of an import.
+ * There are two modes:
+ * <pre>
+ * strict     0  12  12.3  12.34  $12.34  1,234  $1,234.56
+ *            an optional $ first, commas grouping thousands, 1 or 2 decimals
+ * lenient    also  $1234.  .5  12,34  1,2,3,4  12.345  12$
+ *            $ and commas anywhere are skipped, any number of decimals are
+ *            rounded to the nearest cent
+ * </pre>
+ * Strict is for text from elsewhere, e.g. an import, where a stray comma more
+ * likely means a broken file than a price. Lenient is for fields a person types
+ * into, which the currency key filter already limits to 0-9 , . and $.
+ * Both ignore whitespace around the amount, and both fail on anything else,
+ * e.g. a second decimal point or no digits at all.
+ *
+ * @author Justin Langley
+ */
+public final class CurrencyParser
+{
+    // returned for text which is not an amount of money
+    public static final long INVALID   = -1;
+
+    // the largest amount parsed, just under 10 trillion dollars, still exact as a double
+    public static final long MAX_CENTS = 999_999_999_999_999L;
+
+    private CurrencyParser ()
+    {
+    }
+
+    /**
+     * Parses an amount of money typed by a person, see the class comment.
+     *
+     * @param text the amount
+     * @return the amount in cents, or INVALID
+     */
+    public static long parseLenient (CharSequence text)
+    {
+        return parse(text, false);
+    }
+
+    /**
+     * Parses an amount of money from a file or another program, see the class comment.
+     *
+     * @param text the amount
+     * @return the amount in cents, or INVALID
+     */
+    public static long parseStrict (CharSequence text)
+    {
+        return parse(text, true);
+    }
+
+    // an amount in cents as a price, e.g. 123456 as 1234.56
+    public static double toPrice (long cents)
+    {
+        return cents / 100.0;
+    }
+
+    private static long parse (CharSequence text, boolean strict)
+    {
+        int     start   = 0;
+        int     end     = text.length();
+        long    cents   = 0;
+        int     digits  = 0;        // digits before the point
+        int     group   = -1;       // digits since the last comma, -1 before any comma
+        int     places  = -1;       // digits after the point, -1 before the point
+        boolean roundUp = false;
+
+        while ((start < end) && Character.isWhitespace(text.charAt(start)))
+            {
+            start++;
+            }
+        while ((end > start) && Character.isWhitespace(text.charAt(end - 1)))
+            {
+            end--;
+            }
+        for (int i = start; i < end; i++)
+            {
+            char c = text.charAt(i);
+
+            if ((c >= '0') && (c <= '9'))
+                {
+                if (places < 0)
+                    {
+                    cents = cents * 10 + (c - '0');
+                    if (cents > MAX_CENTS / 100)
+                        {
+                        return INVALID;
+                        }
+                    digits++;
+                    if (group >= 0)
+                        {
+                        group++;
+                        }
+                    }
+                else if (places < 2)
+                    {
+                    cents = cents * 10 + (c - '0');
+                    places++;
+                    }
+                else if (strict)
+                    {
+                    return INVALID;
+                    }
+                else if (places == 2)
+                    {
+                    // the first digit past the cents rounds them, the rest are dropped
+                    roundUp = c >= '5';
+                    places++;
+                    }
+                }
+            else if (c == '.')
+                {
+                if (places >= 0)
+                    {
+                    return INVALID;
+                    }
+                if (strict && ((digits == 0) || ((group >= 0) && (group != 3))))
+                    {
+                    return INVALID;
+                    }
+                places = 0;
+                }
+            else if (c == ',')
+                {
+                // the first group has 1 to 3 digits, every later one exactly 3
+                if (strict && ((places >= 0) || (digits == 0)
+                               || ((group < 0) ? (digits > 3) : (group != 3))))
+                    {
+                    return INVALID;
+                    }
+                group = 0;
+                }
+            else if (c == '$')
+                {
+                if (strict && (i != start))
+                    {
+                    return INVALID;
+                    }
+                }
+            else
+                {
+                return INVALID;
+                }
+            }
+        if (strict && ((digits == 0) || (places == 0) || ((group >= 0) && (group != 3))))
+            {
+            return INVALID;
+            }
+        if ((digits == 0) && (places <= 0))
+            {
+            return INVALID;
+            }
+
+        // scale what was read to cents, e.g. 12 or 12.3 to 1200 or 1230
+        for (int p = Math.max(places, 0); p < 2; p++)
+            {
+            cents *= 10;
+            }
+
+        if (roundUp)
+            {
+            cents++;
+            }
+
+        return (cents <= MAX_CENTS) ? cents : INVALID;
+    }
+}
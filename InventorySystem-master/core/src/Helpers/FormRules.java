@@ -0,0 +1,340 @@
+/*
+ *  Package: Helpers
+ *  File:    FormRules.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The fields of a form and the rules their values must follow, declared once
+ * and shared by every FormValidation of the form.
+ * <p>
+ * Each field is parsed as text, a whole number or an amount of money, and gets two
+ * rules of its own: that it parses, and, if it is required, that it is filled in.
+ * Rules across fields are declared with the fields they read:
+ * <pre>
+ * FormRules rules = new FormRules();
+ * Field     min   = rules.integer("min", "Min", true);
+ * Field     max   = rules.integer("max", "Max", true);
+ *
+ * rules.rule("minMax", "Invalid values:", "Min > Max",
+ *            form -&gt; form.getInt(min) &lt;= form.getInt(max), min, max);
+ * </pre>
+ * From these the rules know which rules read each field, so a FormValidation
+ * re-checks only those when a field changes. A rule is only checked once all the
+ * fields it reads hold a value, so its check never sees a missing one.
+ * <p>
+ * Entry rules are checked while a person fills in a form, but not by callers
+ * checking records which come from elsewhere, e.g. an import, where the data may
+ * rightly have drifted from them, as stock does from min and max.
+ * <p>
+ * Nothing here depends on JavaFX: the same rules check forms, imports and API calls.
+ * The rules are declared on one thread, then frozen by the first newValidation().
+ *
+ * @author Justin Langley
+ */
+public final class FormRules
+{
+    // how the text of a field is read
+    public enum Kind
+    {
+        TEXT,        // kept as it is
+        INTEGER,     // a whole number, 0 or more
+        CURRENCY     // an amount of money, e.g. $1,234.56, held in cents, see CurrencyParser
+    }
+
+    private final List<Field> fields = new ArrayList<>();
+    private final List<Rule>  rules  = new ArrayList<>();
+
+    // for each field, the indexes of the rules reading it, once frozen
+    private int[][] dependents;
+
+    // declares a field holding an amount of money, in cents
+    public Field currency (String name, String label, boolean required)
+    {
+        return field(name, label, Kind.CURRENCY, required);
+    }
+
+    // declares a field holding a whole number
+    public Field integer (String name, String label, boolean required)
+    {
+        return field(name, label, Kind.INTEGER, required);
+    }
+
+    // declares a field holding text
+    public Field text (String name, String label, boolean required)
+    {
+        return field(name, label, Kind.TEXT, required);
+    }
+
+    /**
+     * Declares a rule between fields.
+     *
+     * @param name a name for the rule, by which callers can tell rules apart
+     * @param title a short message for when the rule is broken
+     * @param description what is wrong, or what is expected
+     * @param check true if the values are valid, only called once every field has a value
+     * @param inputs the fields the check reads, all of which are shown as invalid
+     * @return the rule
+     */
+    public Rule rule (String name, String title, String description,
+                      Predicate<FormValidation> check, Field... inputs)
+    {
+        return add(new Rule(name, title, description, "", check, inputs, false, false));
+    }
+
+    // declares a rule, as rule(), which is only checked while a person fills in the form
+    public Rule entryRule (String name, String title, String description,
+                           Predicate<FormValidation> check, Field... inputs)
+    {
+        return add(new Rule(name, title, description, "", check, inputs, false, true));
+    }
+
+    // starts validating a form, with every field empty
+    public FormValidation newValidation ()
+    {
+        return new FormValidation(this);
+    }
+
+    // the fields, in the order they were declared
+    public List<Field> getFields ()
+    {
+        return Collections.unmodifiableList(fields);
+    }
+
+    // the rules, in the order they were declared, each field's own rules with it
+    public List<Rule> getRules ()
+    {
+        return Collections.unmodifiableList(rules);
+    }
+
+    // the indexes of the rules reading a field, freezing the rules on first use
+    synchronized int[] dependents (Field field)
+    {
+        if (dependents == null)
+            {
+            int[][] built = new int[fields.size()][0];
+
+            for (Rule rule : rules)
+                {
+                for (Field input : rule.inputs)
+                    {
+                    int[] old = built[input.index];
+
+                    built[input.index]             = Arrays.copyOf(old, old.length + 1);
+                    built[input.index][old.length] = rule.index;
+                    }
+                }
+            dependents = built;
+            }
+
+        return dependents[field.index];
+    }
+
+    private Rule add (Rule rule)
+    {
+        checkOpen();
+        for (Field input : rule.inputs)
+            {
+            if (fields.get(input.index) != input)
+                {
+                throw new IllegalArgumentException("Field " + input + " is not in these rules");
+                }
+            }
+        rule.index = rules.size();
+        rules.add(rule);
+
+        return rule;
+    }
+
+    private synchronized void checkOpen ()
+    {
+        if (dependents != null)
+            {
+            throw new IllegalStateException("Rules cannot change once in use");
+            }
+    }
+
+    private Field field (String name, String label, Kind kind, boolean required)
+    {
+        checkOpen();
+
+        Field field = new Field(fields.size(), name, label, kind);
+
+        fields.add(field);
+        if (kind == Kind.INTEGER)
+            {
+            add(new Rule(name + ".format", "Enter only numbers:", "e.g. 12 or 345", "",
+                         form -> form.has(field) || form.getText(field).trim().isEmpty(),
+                         new Field[] {field}, true, false));
+            }
+        else if (kind == Kind.CURRENCY)
+            {
+            add(new Rule(name + ".format", "Enter Dollar Amount", "e.g. 12.34  1234",
+                         "$1234  $1,234.56",
+                         form -> form.has(field) || form.getText(field).trim().isEmpty(),
+                         new Field[] {field}, true, false));
+            }
+        if (required)
+            {
+            add(new Rule(name + ".required", label + " cannot be empty",
+                         (kind == Kind.TEXT) ? "You must enter a value" : "You must enter a number",
+                         "", form -> !form.getText(field).trim().isEmpty() || form.has(field),
+                         new Field[] {field}, true, false));
+            }
+
+        return field;
+    }
+
+    // a field of a form
+    public static final class Field
+    {
+        private final int    index;
+        private final String name;
+        private final String label;
+        private final Kind   kind;
+
+        private Field (int index, String name, String label, Kind kind)
+        {
+            this.index = index;
+            this.name  = name;
+            this.label = label;
+            this.kind  = kind;
+        }
+
+        // the position of the field in its rules
+        public int getIndex ()
+        {
+            return this.index;
+        }
+
+        public Kind getKind ()
+        {
+            return this.kind;
+        }
+
+        // the name shown to a person, e.g. Max
+        public String getLabel ()
+        {
+            return this.label;
+        }
+
+        public String getName ()
+        {
+            return this.name;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return this.name;
+        }
+    }
+
+    // a rule the values of some fields must follow
+    public static final class Rule
+    {
+        private final String                    name;
+        private final String                    title;
+        private final String                    description;
+        private final String                    example;
+        private final Predicate<FormValidation> check;
+        private final Field[]                   inputs;
+        private final boolean                   always;       // checked on missing values too
+        private final boolean                   entryOnly;
+        private int                             index;
+
+        private Rule (String name, String title, String description, String example,
+                      Predicate<FormValidation> check, Field[] inputs, boolean always,
+                      boolean entryOnly)
+        {
+            if (inputs.length == 0)
+                {
+                throw new IllegalArgumentException("Rule " + name + " reads no fields");
+                }
+            this.name        = name;
+            this.title       = title;
+            this.description = description;
+            this.example     = example;
+            this.check       = check;
+            this.inputs      = inputs.clone();
+            this.always      = always;
+            this.entryOnly   = entryOnly;
+        }
+
+        public String getDescription ()
+        {
+            return this.description;
+        }
+
+        // an example of valid input, or ""
+        public String getExample ()
+        {
+            return this.example;
+        }
+
+        // the fields the rule reads
+        public List<Field> getInputs ()
+        {
+            return Collections.unmodifiableList(Arrays.asList(inputs));
+        }
+
+        public String getName ()
+        {
+            return this.name;
+        }
+
+        public String getTitle ()
+        {
+            return this.title;
+        }
+
+        // true if the rule is only checked while a person fills in the form
+        public boolean isEntryOnly ()
+        {
+            return this.entryOnly;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return title + " " + description;
+        }
+
+        // the position of the rule in its rules
+        int index ()
+        {
+            return this.index;
+        }
+
+        // true if the values break the rule
+        boolean fails (FormValidation form)
+        {
+            if (!always)
+                {
+                for (Field input : inputs)
+                    {
+                    if (!form.has(input))
+                        {
+                        return false;
+                        }
+                    }
+                }
+
+            return !check.test(form);
+        }
+
+        Field[] inputs ()
+        {
+            return this.inputs;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *  Package: Helpers
+ *  File:    FormValidation.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+
+/**
+ * The values of one form, e.g. an open Add Part window, and which of its rules they break.
+ * <p>
+ * Setting a field parses only that field, then re-checks only the rules which read
+ * it, so a keystroke in Min costs the Min rules and nothing else. Which rules are
+ * broken is kept up to date as fields change, so isValid() costs nothing.
+ * Setting a field to the text it already holds does nothing at all.
+ * <p>
+ * Not thread safe, each form is used on one thread, e.g. the FX thread.
+ *
+ * @author Justin Langley
+ */
+public final class FormValidation
+{
+    private final FormRules rules;
+    private final Rule[]    all;
+
+    // the text and parsed value of each field, and whether it parsed
+    private final String[]  texts;
+    private final long[]    values;
+    private final boolean[] present;
+
+    // the rules broken, and for each field the broken rules reading it
+    private final boolean[] failed;
+    private final int[]     fieldErrors;
+    private int             errors;
+
+    FormValidation (FormRules rules)
+    {
+        List<Field> fields = rules.getFields();
+
+        this.rules       = rules;
+        this.all         = rules.getRules().toArray(new Rule[0]);
+        this.texts       = new String[fields.size()];
+        this.values      = new long[fields.size()];
+        this.present     = new boolean[fields.size()];
+        this.failed      = new boolean[all.length];
+        this.fieldErrors = new int[fields.size()];
+        for (Field field : fields)
+            {
+            texts[field.getIndex()] = "";
+            }
+
+        // every field is empty, so the required ones are broken from the start
+        for (Rule rule : all)
+            {
+            check(rule);
+            }
+    }
+
+    // the value of an amount of money field, in cents
+    public long getCents (Field field)
+    {
+        return value(field);
+    }
+
+    /**
+     * Returns the rules the values break, in the order they were declared.
+     *
+     * @return the broken rules, empty if the form is valid
+     */
+    public List<Rule> getErrors ()
+    {
+        List<Rule> broken = new ArrayList<>(errors);
+
+        for (int r = 0; (r < all.length) && (broken.size() < errors); r++)
+            {
+            if (failed[r])
+                {
+                broken.add(all[r]);
+                }
+            }
+
+        return broken;
+    }
+
+    /**
+     * Returns the first broken rule, in the order they were declared.
+     *
+     * @return the first broken rule, or null if the form is valid
+     */
+    public Rule firstError ()
+    {
+        for (int r = 0; (errors > 0) && (r < all.length); r++)
+            {
+            if (failed[r])
+                {
+                return all[r];
+                }
+            }
+
+        return null;
+    }
+
+    // the value of a whole number field
+    public int getInt (Field field)
+    {
+        return (int) value(field);
+    }
+
+    public FormRules getRules ()
+    {
+        return this.rules;
+    }
+
+    // the text of a field as last set, "" if it was set to a number or never set
+    public String getText (Field field)
+    {
+        return texts[field.getIndex()];
+    }
+
+    // true if a field holds a value, i.e. it is not empty and it parsed
+    public boolean has (Field field)
+    {
+        return present[field.getIndex()];
+    }
+
+    // true if no rule is broken
+    public boolean isValid ()
+    {
+        return errors == 0;
+    }
+
+    // true if no broken rule reads the field
+    public boolean isValid (Field field)
+    {
+        return fieldErrors[field.getIndex()] == 0;
+    }
+
+    // true if the rule is broken
+    public boolean isBroken (Rule rule)
+    {
+        return failed[rule.index()];
+    }
+
+    /**
+     * Sets a field to the text typed into it, and re-checks the rules reading it.
+     *
+     * @param field the field
+     * @param text the whole text of the field
+     * @return true if a rule became broken or stopped being broken
+     */
+    public boolean set (Field field, CharSequence text)
+    {
+        int index = field.getIndex();
+
+        if (texts[index].contentEquals(text))
+            {
+            return false;
+            }
+        texts[index] = text.toString();
+        switch (field.getKind())
+            {
+            case INTEGER:
+                values[index] = parseInteger(text);
+                break;
+            case CURRENCY:
+                values[index] = CurrencyParser.parseLenient(text);
+                break;
+            default:
+                values[index] = 0;
+                break;
+            }
+        present[index] = (field.getKind() == FormRules.Kind.TEXT)
+                         ? (texts[index].trim().length() > 0)
+                         : (values[index] >= 0);
+
+        return changed(field);
+    }
+
+    /**
+     * Sets a field to a value, e.g. one not typed by the user such as the cost of
+     * a product's parts, and re-checks the rules reading it.
+     *
+     * @param field a whole number or money field, money in cents
+     * @param value the value, 0 or more
+     * @return true if a rule became broken or stopped being broken
+     */
+    public boolean setValue (Field field, long value)
+    {
+        int index = field.getIndex();
+
+        if (field.getKind() == FormRules.Kind.TEXT)
+            {
+            throw new IllegalArgumentException("Field " + field + " holds text");
+            }
+        if (present[index] && (values[index] == value) && texts[index].isEmpty())
+            {
+            return false;
+            }
+        texts[index]   = "";
+        values[index]  = value;
+        present[index] = true;
+
+        return changed(field);
+    }
+
+    // re-checks the rules reading a field, returns true if any changed
+    private boolean changed (Field field)
+    {
+        boolean changed = false;
+
+        for (int r : rules.dependents(field))
+            {
+            changed |= check(all[r]);
+            }
+
+        return changed;
+    }
+
+    // checks one rule, returns true if it became broken or stopped being broken
+    private boolean check (Rule rule)
+    {
+        int     r     = rule.index();
+        boolean fails = rule.fails(this);
+
+        if (fails == failed[r])
+            {
+            return false;
+            }
+        failed[r] = fails;
+        errors   += fails ? 1 : -1;
+        for (Field input : rule.inputs())
+            {
+            fieldErrors[input.getIndex()] += fails ? 1 : -1;
+            }
+
+        return true;
+    }
+
+    private long value (Field field)
+    {
+        int index = field.getIndex();
+
+        if (!present[index])
+            {
+            throw new IllegalStateException("Field " + field + " holds no value");
+            }
+
+        return values[index];
+    }
+
+    // parses a whole number, 0 or more, -1 if the text is not one
+    static long parseInteger (CharSequence text)
+    {
+        int  start  = 0;
+        int  end    = text.length();
+        long number = 0;
+
+        while ((start < end) && Character.isWhitespace(text.charAt(start)))
+            {
+            start++;
+            }
+        while ((end > start) && Character.isWhitespace(text.charAt(end - 1)))
+            {
+            end--;
+            }
+        if (start == end)
+            {
+            return -1;
+            }
+        for (int i = start; i < end; i++)
+            {
+            char c = text.charAt(i);
+
+            if ((c < '0') || (c > '9'))
+                {
+                return -1;
+                }
+            number = number * 10 + (c - '0');
+            if (number > Integer.MAX_VALUE)
+                {
+                return -1;
+                }
+            }
+
+        return number;
+    }
+}
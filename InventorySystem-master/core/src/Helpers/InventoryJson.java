@@ -0,0 +1,313 @@
+/*
+ *  Package: Helpers
+ *  File:    InventoryJson.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Model.InventorySnapshot;
+import Model.Part;
+import Model.PartInHouse;
+import Model.PartOutsourced;
+import Model.PersistentList;
+import Model.Product;
+
+/**
+ * Writes parts and products as JSON objects, for the HTTP API and exports.
+ * <p>
+ * A part is written as:
+ * <pre>
+ * {"id":1,"type":"outsourced","name":"nut","price":0.1,"stock":380,"min":100,"max":500,
+ *  "companyName":"Metal Machining Co.","version":0}
+ * </pre>
+ * In-house parts have "type":"inHouse" and a "machineId" instead of a "companyName".
+ * A product has the same fields without "type", and lists the IDs of its
+ * associated parts in "parts".
+ * <p>
+ * A whole inventory is written as {"parts":[...],"products":[...]}, and can be
+ * read back with readInventory(), e.g. by a command line tool keeping its
+ * inventory in a file between runs. A part's version is not read back, it only
+ * means something within the Inventory which gave it. A price may be read as a
+ * number or as text such as "$1,234.56", which must be strictly formatted, see
+ * CurrencyParser.
+ *
+ * @author Justin Langley
+ */
+public final class InventoryJson
+{
+    private InventoryJson ()
+    {
+    }
+
+    /**
+     * Reads an inventory written by writeInventory(). Unknown fields are skipped.
+     *
+     * @param json the reader, before the inventory object
+     * @return the parts and products, see InventorySnapshot.of()
+     * @throws IOException if the input fails, is not an inventory, or a product
+     *         lists a part which is not in it
+     */
+    public static InventorySnapshot readInventory (JsonReader json) throws IOException
+    {
+        List<Part>         parts    = new ArrayList<>();
+        List<Product>      products = new ArrayList<>();
+        Map<Integer, Part> byId     = new HashMap<>();
+
+        json.beginObject();
+        while (json.hasNext())
+            {
+            String name = json.nextName();
+
+            if ("parts".equals(name))
+                {
+                json.beginArray();
+                while (json.hasNext())
+                    {
+                    Part part = readPart(json);
+
+                    parts.add(part);
+                    byId.put(part.getId(), part);
+                    }
+                json.endArray();
+                }
+            else if ("products".equals(name))
+                {
+                // parts come first in writeInventory(), so products can look theirs up
+                json.beginArray();
+                while (json.hasNext())
+                    {
+                    products.add(readProduct(json, byId));
+                    }
+                json.endArray();
+                }
+            else
+                {
+                json.skipValue();
+                }
+            }
+        json.endObject();
+
+        try
+            {
+            return InventorySnapshot.of(parts, products);
+            }
+        catch (IllegalArgumentException e)
+            {
+            throw new IOException(e.getMessage(), e);
+            }
+    }
+
+    /**
+     * Reads a part written by writePart(). Unknown fields are skipped.
+     *
+     * @param json the reader, before the part object
+     * @return the part, with the ID it was written with
+     * @throws IOException if the input fails or is not a part
+     */
+    public static Part readPart (JsonReader json) throws IOException
+    {
+        int     id        = 0;
+        boolean inHouse   = true;
+        String  name      = null;
+        double  price     = 0;
+        int     stock     = 0;
+        int     min       = 0;
+        int     max       = 0;
+        int     machineId = 0;
+        String  company   = null;
+
+        json.beginObject();
+        while (json.hasNext())
+            {
+            switch (json.nextName())
+                {
+                case "id":
+                    id = json.nextInt();
+                    break;
+                case "type":
+                    inHouse = !"outsourced".equals(json.nextString());
+                    break;
+                case "name":
+                    name = json.nextString();
+                    break;
+                case "price":
+                    price = readPrice(json);
+                    break;
+                case "stock":
+                    stock = json.nextInt();
+                    break;
+                case "min":
+                    min = json.nextInt();
+                    break;
+                case "max":
+                    max = json.nextInt();
+                    break;
+                case "machineId":
+                    machineId = json.nextInt();
+                    break;
+                case "companyName":
+                    company = json.nextString();
+                    break;
+                default:
+                    json.skipValue();
+                }
+            }
+        json.endObject();
+
+        return inHouse ? new PartInHouse(id, name, price, stock, min, max, machineId)
+                       : new PartOutsourced(id, name, price, stock, min, max, company);
+    }
+
+    /**
+     * Writes a whole inventory, parts before products.
+     *
+     * @param json the writer
+     * @param snapshot the inventory to write
+     * @throws IOException if the underlying writer fails
+     */
+    public static void writeInventory (JsonWriter json, InventorySnapshot snapshot)
+        throws IOException
+    {
+        json.beginObject().name("parts").beginArray();
+        for (Part part : snapshot.getParts())
+            {
+            writePart(json, part);
+            }
+        json.endArray().name("products").beginArray();
+        for (Product product : snapshot.getProducts())
+            {
+            writeProduct(json, product);
+            }
+        json.endArray().endObject();
+    }
+
+    public static void writePart (JsonWriter json, Part part) throws IOException
+    {
+        json.beginObject()
+            .name("id").value(part.getId())
+            .name("type").value((part instanceof PartInHouse) ? "inHouse" : "outsourced")
+            .name("name").value(part.getName())
+            .name("price").value(part.getPrice())
+            .name("stock").value(part.getStock())
+            .name("min").value(part.getMin())
+            .name("max").value(part.getMax());
+        if (part instanceof PartInHouse)
+            {
+            json.name("machineId").value(((PartInHouse) part).getMachine());
+            }
+        else if (part instanceof PartOutsourced)
+            {
+            json.name("companyName").value(((PartOutsourced) part).getCompanyName());
+            }
+        json.name("version").value(part.getVersion()).endObject();
+    }
+
+    public static void writeProduct (JsonWriter json, Product product) throws IOException
+    {
+        json.beginObject()
+            .name("id").value(product.getId())
+            .name("name").value(product.getName())
+            .name("price").value(product.getPrice())
+            .name("stock").value(product.getStock())
+            .name("min").value(product.getMin())
+            .name("max").value(product.getMax())
+            .name("version").value(product.getVersion())
+            .name("parts").beginArray();
+        for (Part part : product.getAssociatedPartsSnapshot())
+            {
+            json.value(part.getId());
+            }
+        json.endArray().endObject();
+    }
+
+    // reads a price, either a number or text such as "$1,234.56"
+    private static double readPrice (JsonReader json) throws IOException
+    {
+        if (json.peek() != JsonReader.Token.STRING)
+            {
+            return json.nextDouble();
+            }
+
+        String text  = json.nextString();
+        long   cents = CurrencyParser.parseStrict(text);
+
+        if (cents == CurrencyParser.INVALID)
+            {
+            throw new IOException("Malformed price \"" + text + "\"");
+            }
+
+        return CurrencyParser.toPrice(cents);
+    }
+
+    // reads a product, looking up its associated parts by ID
+    private static Product readProduct (JsonReader json, Map<Integer, Part> parts)
+        throws IOException
+    {
+        int        id         = 0;
+        String     name       = null;
+        double     price      = 0;
+        int        stock      = 0;
+        int        min        = 0;
+        int        max        = 0;
+        List<Part> associated = new ArrayList<>();
+
+        json.beginObject();
+        while (json.hasNext())
+            {
+            switch (json.nextName())
+                {
+                case "id":
+                    id = json.nextInt();
+                    break;
+                case "name":
+                    name = json.nextString();
+                    break;
+                case "price":
+                    price = readPrice(json);
+                    break;
+                case "stock":
+                    stock = json.nextInt();
+                    break;
+                case "min":
+                    min = json.nextInt();
+                    break;
+                case "max":
+                    max = json.nextInt();
+                    break;
+                case "parts":
+                    json.beginArray();
+                    while (json.hasNext())
+                        {
+                        int  partId = json.nextInt();
+                        Part part   = parts.get(partId);
+
+                        if (part == null)
+                            {
+                            throw new IOException("Product " + id + " lists unknown part " + partId);
+                            }
+                        associated.add(part);
+                        }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+                }
+            }
+        json.endObject();
+
+        Product product = new Product(id, name, price, stock, min, max);
+
+        product.setAssociatedParts(PersistentList.of(associated));
+
+        return product;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *  Package: Helpers
+ *  File:    InventoryRules.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+
+import Model.Part;
+import Model.Product;
+
+/**
+ * The rules for parts and products, shared by the editor windows, imports and the API.
+ * <p>
+ * The windows validate as the user types, with a FormValidation of PartForm.RULES
+ * or ProductForm.RULES. Headless code checks whole records with check(), which
+ * leaves out the entry rules, e.g. stock within min and max, since stored
+ * records drift from those as stock moves.
+ *
+ * @author Justin Langley
+ */
+public final class InventoryRules
+{
+    private InventoryRules ()
+    {
+    }
+
+    /**
+     * Checks a part, e.g. one read from an import, against the part rules.
+     *
+     * @param part the part
+     * @return the rules it breaks, other than entry rules, empty if it is valid
+     */
+    public static List<Rule> check (Part part)
+    {
+        FormValidation form = PartForm.RULES.newValidation();
+
+        form.set(PartForm.NAME, (part.getName() == null) ? "" : part.getName());
+        setNumber(form, PartForm.STOCK, part.getStock());
+        setNumber(form, PartForm.PRICE, cents(part.getPrice()));
+        setNumber(form, PartForm.MIN, part.getMin());
+        setNumber(form, PartForm.MAX, part.getMax());
+
+        return stored(form);
+    }
+
+    /**
+     * Checks a product, e.g. one read from an import, against the product rules.
+     *
+     * @param product the product
+     * @return the rules it breaks, other than entry rules, empty if it is valid
+     */
+    public static List<Rule> check (Product product)
+    {
+        FormValidation form = ProductForm.RULES.newValidation();
+
+        form.set(ProductForm.NAME, (product.getName() == null) ? "" : product.getName());
+        setNumber(form, ProductForm.STOCK, product.getStock());
+        setNumber(form, ProductForm.PRICE, cents(product.getPrice()));
+        setNumber(form, ProductForm.MIN, product.getMin());
+        setNumber(form, ProductForm.MAX, product.getMax());
+        form.setValue(ProductForm.PARTS_COST, cents(product.getAssociatedPartsCost()));
+        form.setValue(ProductForm.PART_COUNT, product.getAssociatedPartsSnapshot().size());
+
+        return stored(form);
+    }
+
+    // a price in cents, as the forms hold it
+    public static long cents (double price)
+    {
+        return Math.round(price * 100);
+    }
+
+    // sets a number field, leaving it empty if the number is negative, which breaks its rules
+    private static void setNumber (FormValidation form, Field field, long value)
+    {
+        if (value >= 0)
+            {
+            form.setValue(field, value);
+            }
+        else
+            {
+            form.set(field, Long.toString(value));
+            }
+    }
+
+    // the broken rules which apply to stored records
+    private static List<Rule> stored (FormValidation form)
+    {
+        List<Rule> broken = new ArrayList<>();
+
+        for (Rule rule : form.getErrors())
+            {
+            if (!rule.isEntryOnly())
+                {
+                broken.add(rule);
+                }
+            }
+
+        return broken;
+    }
+
+    // the fields and rules of a part, in the order a failed save reports them
+    public static final class PartForm
+    {
+        public static final FormRules RULES = new FormRules();
+
+        public static final Field NAME  = RULES.text("name", "Name", true);
+        public static final Field STOCK = RULES.integer("stock", "Inv", true);
+        public static final Field PRICE = RULES.currency("price", "Price", true);
+        public static final Field MIN   = RULES.integer("min", "Min", true);
+        public static final Field MAX   = RULES.integer("max", "Max", true);
+
+        public static final Rule MIN_MAX     = RULES.rule(
+            "minMax", "Invalid values:", "Min > Max",
+            form -> form.getInt(MIN) <= form.getInt(MAX), MIN, MAX);
+        public static final Rule STOCK_RANGE = RULES.entryRule(
+            "stockRange", "Invalid values:", "Inv not within Min and Max",
+            form -> (form.getInt(STOCK) >= form.getInt(MIN))
+                    && (form.getInt(STOCK) <= form.getInt(MAX)), STOCK, MIN, MAX);
+
+        private PartForm ()
+        {
+        }
+    }
+
+    // the fields and rules of a product, in the order a failed save reports them
+    public static final class ProductForm
+    {
+        public static final FormRules RULES = new FormRules();
+
+        public static final Field NAME       = RULES.text("name", "Name", true);
+        public static final Field STOCK      = RULES.integer("stock", "Inv", true);
+        public static final Field PRICE      = RULES.currency("price", "Price", true);
+        public static final Field MIN        = RULES.integer("min", "Min", true);
+        public static final Field MAX        = RULES.integer("max", "Max", true);
+
+        // set by the window from the associated parts, not typed
+        public static final Field PARTS_COST = RULES.currency("partsCost", "Parts cost", false);
+        public static final Field PART_COUNT = RULES.integer("partCount", "Parts", false);
+
+        public static final Rule HAS_PARTS          = RULES.entryRule(
+            "hasParts", "No parts:", "Add at least one part",
+            form -> form.getInt(PART_COUNT) > 0, PART_COUNT);
+        public static final Rule PRICE_COVERS_PARTS = RULES.entryRule(
+            "priceCoversParts", "Price too low:", "Price < cost of parts",
+            form -> form.getCents(PRICE) >= form.getCents(PARTS_COST), PRICE, PARTS_COST);
+        public static final Rule MIN_MAX            = RULES.rule(
+            "minMax", "Invalid values:", "Min > Max",
+            form -> form.getInt(MIN) <= form.getInt(MAX), MIN, MAX);
+        public static final Rule STOCK_RANGE        = RULES.entryRule(
+            "stockRange", "Invalid values:", "Inv not within Min and Max",
+            form -> (form.getInt(STOCK) >= form.getInt(MIN))
+                    && (form.getInt(STOCK) <= form.getInt(MAX)), STOCK, MIN, MAX);
+
+        private ProductForm ()
+        {
+        }
+    }
+}
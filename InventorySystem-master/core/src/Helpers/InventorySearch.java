@@ -0,0 +1,1251 @@
+/*
+ *  Package: Helpers
+ *  File:    InventorySearch.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import Model.Inventory;
+import Model.InventorySnapshot;
+import Model.Part;
+import Model.PartBitmap;
+import Model.PartIndex.Filter;
+import Model.PersistentList;
+import Model.Product;
+import Model.SupplierDictionary;
+
+/**
+ * The InventorySearch class searches lists of Part or Product objects
+ * for a user-entered search token, without any user interface.
+ * <p>
+ * Each search of a list sorts the list it is given by the field being searched,
+ * then runs a binary search on it. The list must therefore be modifiable,
+ * and is left sorted by that field. To search an Inventory, pass its snapshot
+ * instead, which is read in place without a copy or a sort, see findPart().
+ * <p>
+ * Its functions return the first match, or null if nothing matched.
+ * SearchHelper uses them to search the TableViews of the user interface.
+ * <p>
+ * Parts can also be filtered by their attributes, e.g.
+ * "type:outsourced stock:low supplier:acme price&lt;5", see filterParts().
+ * Those filters are answered from the bitmaps of the inventory's PartIndex,
+ * and return every match.
+ *
+ * @author Justin Langley
+ * @version 1.0
+ */
+public class InventorySearch
+{
+    // a query which looks like a currency value is a price search
+    private static final String CURRENCY =
+        "\\$?([0-9]{1,3},([0-9]{3},)*[0-9]{3}|[0-9]+).?([0-9]?[0-9]?){0,1}";
+
+    // a condition of a filter query, e.g. "supplier:acme" or "price<5"
+    private static final Pattern CONDITION =
+        Pattern.compile("(type|stock|supplier|machine):(.+)|(price|inv|min|max)(<=|>=|<|>|=)(.+)");
+
+    /*
+     * Underlying Binary Search functions
+     *
+     * The first parameter for each of these functions is a sorted List
+     * NOTE: It is highly important that the list is first sorted
+     *       Binary Search does not work on unsorted lists, arrays, etc.
+     *       See the intermediary functions above that prepare calls to these functions
+     *
+     * Example calls:
+     * binarySearchPartId(list, token)      :where token is an integer
+     * binarySearchPartName(list, token)    :where token is a string
+     * binarySearchPartInv(list, token)     :where token is an integer
+     * binarySearchPartPrice(list,token)    :where token is a double
+     *
+     * binarySearchProdId(list, token)      :where token is an integer
+     * binarySearchProdName(list, token)    :where token is a string
+     * binarySearchProdInv(list, token)     :where token is an integer
+     * binarySearchProdPrice(list,token)    :where token is a double
+     */
+
+    /**
+     * Performs binary search on the ID elements of Part Objects in a
+     * given List of parts
+     *
+     * @param sorted a sorted List of Part objects
+     * @param token an integer of the Part ID being searched
+     * @return a matching Part or null
+     */
+    private Part binarySearchPartId (List<Part> sorted, int token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M = L + (R - L) / 2;
+
+            // check if token value matches the part ID at the middle value
+            if (sorted.get(M).getId() == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (sorted.get(M).getId() < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Inv elements of Part Objects in a
+     * given List of parts
+     *
+     * @param sorted a sorted List of Part objects
+     * @param token an integer of the Part Stock being searched
+     * @return a matching Part or null
+     */
+    private Part binarySearchPartInv (List<Part> sorted, int token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M = L + (R - L) / 2;
+
+            // check if token value matches the part ID at the middle value
+            if (sorted.get(M).getStock() == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (sorted.get(M).getStock() < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Name elements of Part Objects in a
+     * given List of parts
+     *
+     * @param sorted a sorted List of Part objects
+     * @param token an string of the Part Name being searched
+     * @return a matching Part or null
+     */
+    private Part binarySearchPartName (List<Part> sorted, String token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M   = L + (R - L) / 2;
+            int res = token.compareTo(sorted.get(M)
+                                            .getName()
+                                            .toLowerCase(Locale.US)
+                                            .replaceAll("[^a-z0-9 ]+", "")
+                                            .trim());
+
+            // check if token is contained in a part Name at the index
+            if (sorted.get(M)
+                      .getName()
+                      .toLowerCase(Locale.US)
+                      .replaceAll("[^a-z0-9 ]+", "")
+                      .trim()
+                      .contains(token))
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (res > 0)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Price elements of Part Objects in a
+     * given List of parts
+     *
+     * @param sorted a sorted List of Part objects
+     * @param token an Double of the Part Price being searched
+     * @return a matching Part or null
+     */
+    private Part binarySearchPartPrice (List<Part> sorted, double token)
+    {
+        // Truncate token beyond the 2nd decimal place
+        token = BigDecimal.valueOf(token).setScale(2, RoundingMode.FLOOR).doubleValue();
+
+        // Left is the start index of the list
+        int L = 0;
+
+        // Right is the length of the list - 1
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M = L + (R - L) / 2;
+
+            // Truncate the price of current part beyond the 2nd decimal place
+            Double price = BigDecimal.valueOf(sorted.get(M).getPrice())
+                                     .setScale(2, RoundingMode.FLOOR)
+                                     .doubleValue();
+
+            // check if token value matches the part ID at the middle value
+            if (price == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (price < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the ID elements of Product Objects in a
+     * given List of products
+     *
+     * @param sorted a sorted List of Product objects
+     * @param token an integer of the Product ID being searched
+     * @return a matching Product or null
+     */
+    private Product binarySearchProdId (List<Product> sorted, int token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M = L + (R - L) / 2;
+
+            // check if token value matches the part ID at the middle value
+            if (sorted.get(M).getId() == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (sorted.get(M).getId() < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Inv elements of Product Objects in a
+     * given List of products
+     *
+     * @param sorted a sorted List of Product objects
+     * @param token an integer of the Product Inv being searched
+     * @return a matching Product or null
+     */
+    private Product binarySearchProdInv (List<Product> sorted, int token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M = L + (R - L) / 2;
+
+            // check if token value matches the part ID at the middle value
+            if (sorted.get(M).getStock() == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (sorted.get(M).getStock() < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Name elements of Product Objects in a
+     * given List of products
+     *
+     * @param sorted a sorted List of Product objects
+     * @param token a string of the Product Name being searched
+     * @return a matching Product or null
+     */
+    private Product binarySearchProdName (List<Product> sorted, String token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        while (L <= R)
+            {
+            int M   = L + (R - L) / 2;
+            int res = token.compareTo(sorted.get(M)
+                                            .getName()
+                                            .toLowerCase(Locale.US)
+                                            .replaceAll("[^a-z0-9 ]+", "")
+                                            .trim());
+
+            // check if token value matches the part ID at the middle value
+            if (sorted.get(M)
+                      .getName()
+                      .toLowerCase(Locale.US)
+                      .replaceAll("[^a-z0-9 ]+", "")
+                      .trim()
+                      .contains(token))
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (res > 0)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /**
+     * Performs binary search on the Price elements of Product Objects in a
+     * given List of products
+     *
+     * @param sorted a sorted List of Product objects
+     * @param token an integer of the Product Price being searched
+     * @return a matching Product or null
+     */
+    private Product binarySearchProdPrice (List<Product> sorted, double token)
+    {
+        int L = 0;
+        int R = sorted.size() - 1;
+
+        token = BigDecimal.valueOf(token).setScale(2, RoundingMode.FLOOR).doubleValue();
+        while (L <= R)
+            {
+            int    M     = L + (R - L) / 2;
+            Double price = BigDecimal.valueOf(sorted.get(M).getPrice())
+                                     .setScale(2, RoundingMode.FLOOR)
+                                     .doubleValue();
+
+            // check if token value matches the part ID at the middle value
+            if (price == token)
+                {
+                // if it matches return the part
+                return sorted.get(M);
+                }
+
+            // if the token value is greater, ignore the left half
+            if (price < token)
+                {
+                L = M + 1;
+                }
+
+            // if the token value is smaller, ignore the right half
+            else
+                {
+                R = M - 1;
+                }
+            }
+
+        return null;
+    }
+
+    /*
+     * Intermediary Part Search Functions, to prep data and call the binary search functions
+     */
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param parts a List of Part objects
+     * @param s a String object of the search token
+     * @return a Part object
+     */
+    private Part partById (List<Part> parts, String s)
+    {
+        if ("".equals(s))
+            {
+            return null;
+            }
+
+        // sort the list by part Id
+        Comparator<Part> id = Comparator.comparingInt((part) -> part.getId());
+
+        parts.sort(id);
+
+        // convert the search token to an integer
+        int token = Integer.valueOf(s);
+
+        // binary search for a part with a part Id same as token
+        Part part = binarySearchPartId(parts, token);
+
+        // return the binary search result
+        return part;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param parts a List of Part objects
+     * @param s a string of the search token
+     * @return a Part object
+     */
+    private Part partByInv (List<Part> parts, String s)
+    {
+        if ("".equals(s))
+            {
+            return null;
+            }
+
+        // sort the list by inv
+        Comparator<Part> inv = Comparator.comparingInt((part) -> part.getStock());
+
+        parts.sort(inv);
+
+        // convert the search token to an integer
+        int token = Integer.valueOf(s);
+
+        // binary search for a part with an inv same as token
+        Part part = binarySearchPartInv(parts, token);
+
+        // return the binary search result
+        return part;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param parts a List of Part objects
+     * @param token a string of the search token
+     * @return a Part object
+     */
+    private Part partByName (List<Part> parts, String token)
+    {
+        if ("".equals(token))
+            {
+            return null;
+            }
+
+        // sort the list by part name
+        Comparator<Part> name = Comparator.comparing((part) -> part.getName());
+
+        parts.sort(name);
+
+        // binary search for an object with a part name same as token
+        Part part = binarySearchPartName(parts, token);
+
+        // return binary search result
+        return part;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param parts a List of Part objects
+     * @param s a string of the search token
+     * @return a Part object
+     */
+    private Part partByPrice (List<Part> parts, String s)
+    {
+        if (s.isEmpty())
+            {
+            return null;
+            }
+
+        // sort the list by part price
+        Comparator<Part> price = Comparator.comparingDouble((part) -> part.getPrice());
+
+        parts.sort(price);
+
+        // convert token to double
+        Double token;
+
+        try
+            {
+            token = Double.valueOf(s);
+            }
+        catch (NumberFormatException e)
+            {
+            // catch exception and return null if token was not a valid price number
+            return null;
+            }
+
+        // binary search for an object with a price same as token
+        Part part = binarySearchPartPrice(parts, token);
+
+        // return binary search result
+        return part;
+    }
+
+    /*
+     * Intermediary Product Search functions, to prep data and call the binary search functions
+     */
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param prods a List of Product objects
+     * @param s a string of the search token
+     * @return a Part object
+     */
+    private Product prodById (List<Product> prods, String s)
+    {
+        if ("".equals(s))
+            {
+            return null;
+            }
+
+        // sort products by id
+        Comparator<Product> id = Comparator.comparingInt((prod) -> prod.getId());
+
+        prods.sort(id);
+
+        // convert search token to integer
+        int token = Integer.valueOf(s);
+
+        // binary search for a prod with an Id same as token
+        Product prod = binarySearchProdId(prods, token);
+
+        // return the saerch result
+        return prod;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param prods a List of Product objects
+     * @param s a string of the search token, will-auto convert to integer
+     * @return a Part object
+     */
+    private Product prodByInv (List<Product> prods, String s)
+    {
+        if ("".equals(s))
+            {
+            return null;
+            }
+
+        // sort the list by inv
+        Comparator<Product> inv = Comparator.comparingInt((prod) -> prod.getStock());
+
+        prods.sort(inv);
+
+        // convert the search token to an integer
+        int token = Integer.valueOf(s);
+
+        // binary search for a product with inv same as token
+        Product prod = binarySearchProdInv(prods, token);
+
+        // return the saerch result
+        return prod;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param prods a List of Product objects
+     * @param token a string of the search token
+     * @return a Part object
+     */
+    private Product prodByName (List<Product> prods, String token)
+    {
+        if ("".equals(token))
+            {
+            return null;
+            }
+
+        // sort the list by name
+        Comparator<Product> name = Comparator.comparing((prod) -> prod.getName());
+
+        prods.sort(name);
+
+        // binary search for a prod with name same as token
+        Product prod = binarySearchProdName(prods, token);
+
+        return prod;
+    }
+
+    /**
+     * Performs Binary Search on a List of Part objects
+     * for a specified search token
+     *
+     * @param prods a List of Product objects
+     * @param s a string of the search token, will auto-convert to double
+     * @return a Part object
+     */
+    private Product prodByPrice (List<Product> prods, String s)
+    {
+        if (s.isEmpty())
+            {
+            return null;
+            }
+
+        // sort the list by price
+        Comparator<Product> price = Comparator.comparingDouble((prod) -> prod.getPrice());
+
+        prods.sort(price);
+
+        // convert token to double
+        Double token;
+
+        try
+            {
+            token = Double.valueOf(s);
+            }
+        catch (NumberFormatException e)
+            {
+            // catch exception and return null if token was not a valid currency value
+            return null;
+            }
+
+        // binary search for a product with a price same as token
+        Product prod = binarySearchProdPrice(prods, token);
+
+        // return the search result
+        return prod;
+    }
+
+    /*
+     * Public search functions to search lists of parts and products
+     *
+     *                *** Searches are case insensitive
+     *  We need to narrow the search while providing the user the capability of
+     *  telling us specifically what to search for
+     *
+     *  Let's give them some search pre-fixing options to tell us what they want
+     *  We'll look for these special prefixes on each search query
+     *
+     *                          Search Prefixes
+     *
+     *      ("id:")    : The user wants to search for an item of a given ID
+     *      ("inv:")   : The user wants to search for an item of given INV
+     *      ("name:")  : The user wants to search for an item by name
+     *      ("price:") : The user wants to search for an item of a given price
+     */
+
+    /**
+     * Cleans up a search query: trims it, lower cases it,
+     * and removes every character no search can use.
+     *
+     * @param query the search text as entered by the user
+     * @return the search token
+     */
+    public static String normalize (String query)
+    {
+        return query.trim().toLowerCase(Locale.US).replaceAll("[^a-z0-9,.$: ]+", "");
+    }
+
+    /**
+     * Searches a list of parts for the search text entered by a user.
+     * The list is left sorted by the field that was searched.
+     *
+     * @param parts a modifiable list of Part objects
+     * @param query the search text, optionally with a search prefix
+     * @return the first matching Part, or null
+     */
+    public Part findPart (List<Part> parts, String query)
+    {
+        String token = normalize(query);
+
+        // search by Part ID matches numeric regex OR "id:" prefix
+        if (token.matches("[0-9]+") || token.startsWith("id:"))
+            {
+            // replace any non-numeric characters, i.e. remove "id:" prefix if exists
+            return partById(parts, token.replaceAll("[^0-9]+", ""));
+            }
+
+        // search by Part Inv matches only if "inv:" prefix is present
+        // by default we should assume an integer is a Part ID
+        if (token.startsWith("inv:"))
+            {
+            // replace all non-numeric characters, i.e remove "inv:" prefix if exists
+            return partByInv(parts, token.replaceAll("[^0-9]+", ""));
+            }
+
+        // search by Part Price matches currency regex OR "price:" prefix
+        if (token.startsWith("price:") || token.matches(CURRENCY))
+            {
+            // remove invalid characters
+            return partByPrice(parts, token.replaceAll("[^0-9.]", ""));
+            }
+
+        // Default case: search is a part name
+        if (token.startsWith("name:"))
+            {
+            // remove the prefix if exists
+            token = token.substring(5).trim();
+            }
+
+        return partByName(parts, token.replaceAll("[^a-z0-9 ]", ""));
+    }
+
+    /**
+     * Searches a list of products for the search text entered by a user.
+     * The list is left sorted by the field that was searched.
+     *
+     * @param prods a modifiable list of Product objects
+     * @param query the search text, optionally with a search prefix
+     * @return the first matching Product, or null
+     */
+    public Product findProduct (List<Product> prods, String query)
+    {
+        String token = normalize(query);
+
+        // search by Product ID matches numeric regex OR "id:" prefix
+        if (token.matches("[0-9]+") || token.startsWith("id:"))
+            {
+            // replace any non-numeric characters, i.e. remove "id:" prefix if exists
+            return prodById(prods, token.replaceAll("[^0-9]+", ""));
+            }
+
+        // search by Product Inv matches only if "inv:" prefix is present
+        // by default we should assume an integer is a Product ID
+        if (token.startsWith("inv:"))
+            {
+            // replace all non-numeric characters, i.e remove "inv:" prefix if exists
+            return prodByInv(prods, token.replaceAll("[^0-9]+", ""));
+            }
+
+        // search by Product Price matches currency regex OR "price:" prefix
+        if (token.startsWith("price:") || token.matches(CURRENCY))
+            {
+            // remove invalid characters
+            return prodByPrice(prods, token.replaceAll("[^0-9.]", ""));
+            }
+
+        // Default case: search is a product name
+        if (token.startsWith("name:"))
+            {
+            // remove the prefix if exists
+            token = token.substring(5).trim();
+            }
+
+        return prodByName(prods, token.replaceAll("[^a-z0-9 ]", ""));
+    }
+
+    /*
+     * Snapshot searches
+     *
+     * These take the same queries as the list searches above, but read the persistent
+     * lists of an inventory snapshot in place. An ID is found with indexOfKey() and a
+     * name prefix in the name index, both in O(log n), so neither copies nor sorts
+     * anything. Only a name matched in the middle, an inv or a price is searched for
+     * with a scan, which stops at the first match.
+     */
+
+    /**
+     * Searches the parts of an inventory snapshot for the search text entered by a user.
+     *
+     * @param snapshot the snapshot, e.g. from inventory.snapshot()
+     * @param query the search text, optionally with a search prefix
+     * @return the first matching Part, or null
+     */
+    public Part findPart (InventorySnapshot snapshot, String query)
+    {
+        return find(snapshot.getParts(), snapshot.getPartsByName(), query,
+                    Part::getId, Part::getName, Part::getStock, Part::getPrice);
+    }
+
+    /**
+     * Searches the products of an inventory snapshot for the search text entered by a user.
+     *
+     * @param snapshot the snapshot, e.g. from inventory.snapshot()
+     * @param query the search text, optionally with a search prefix
+     * @return the first matching Product, or null
+     */
+    public Product findProduct (InventorySnapshot snapshot, String query)
+    {
+        return find(snapshot.getProducts(), snapshot.getProductsByName(), query,
+                    Product::getId, Product::getName, Product::getStock, Product::getPrice);
+    }
+
+    /*
+     * Attribute filters
+     *
+     * A filter query is a list of conditions separated by spaces, all of which must hold.
+     * A condition may list alternatives separated by commas, any of which may hold.
+     *
+     *      ("type:")      : "type:inhouse" or "type:outsourced"
+     *      ("stock:low")  : parts at or below their min inventory
+     *      ("supplier:")  : outsourced parts from a company whose name contains the text,
+     *                       e.g. supplier:acme or supplier:"metal machining"
+     *      ("machine:")   : in-house parts made on a machine, e.g. machine:3,7
+     *      price, inv,    : compared with < <= = >= or >, e.g. price<5 or inv>=100
+     *      min, max
+     *
+     * The type, stock, supplier and machine conditions are answered by the PartIndex
+     * bitmaps, intersected before any part is read. The comparisons are then checked
+     * only on the parts the bitmaps let through.
+     */
+
+    /**
+     * Returns true if a search query is a filter query, see filterParts(),
+     * rather than a search for a single part.
+     *
+     * @param query the search text as entered by the user
+     * @return true if one of its words is a filter condition
+     */
+    public static boolean isFilter (String query)
+    {
+        for (String word : words(query))
+            {
+            if (CONDITION.matcher(word.toLowerCase(Locale.US)).matches())
+                {
+                return true;
+                }
+            }
+
+        return false;
+    }
+
+    /**
+     * Filters the parts of an inventory by their attributes, e.g.
+     * "type:outsourced stock:low supplier:acme price&lt;5".
+     *
+     * @param inventory the inventory
+     * @param query the filter query, see the conditions above
+     * @param limit the most parts to return, the IDs past it are never read
+     * @return the matching parts, in ID order, as of the call
+     * @throws IllegalArgumentException if a word of the query is not a condition
+     */
+    public List<Part> filterParts (Inventory inventory, String query, int limit)
+    {
+        List<Filter>          filters = new ArrayList<>();
+        List<Predicate<Part>> checks  = new ArrayList<>();
+
+        for (String word : words(query))
+            {
+            condition(word, filters, checks);
+            }
+
+        InventorySnapshot snapshot = inventory.snapshot();
+        List<Part>        matches  = new ArrayList<>();
+
+        if (filters.isEmpty())
+            {
+            // only comparisons, every part has to be read
+            for (Part part : snapshot.getParts())
+                {
+                if (matches.size() >= limit)
+                    {
+                    break;
+                    }
+                if (passes(part, checks))
+                    {
+                    matches.add(part);
+                    }
+                }
+
+            return matches;
+            }
+
+        Filter     filter = (filters.size() == 1) ? filters.get(0)
+                                                  : Filter.and(filters.toArray(new Filter[0]));
+        PartBitmap              bitmap = inventory.getIndex().select(filter);
+        PrimitiveIterator.OfInt ids    = bitmap.iterator();
+
+        while (ids.hasNext() && (matches.size() < limit))
+            {
+            // the part as of the snapshot, dropped if it was added or changed since
+            int index = snapshot.getParts().indexOfKey(Part::getId, ids.nextInt());
+
+            if (index >= 0)
+                {
+                Part part = snapshot.getParts().get(index);
+
+                if (filter.test(part) && passes(part, checks))
+                    {
+                    matches.add(part);
+                    }
+                }
+            }
+
+        return matches;
+    }
+
+    // reads one condition of a filter query into a bitmap filter or a check on each part
+    private static void condition (String word, List<Filter> filters,
+                                   List<Predicate<Part>> checks)
+    {
+        Matcher condition = CONDITION.matcher(word.toLowerCase(Locale.US));
+
+        if (!condition.matches())
+            {
+            throw new IllegalArgumentException("Not a filter condition: " + word);
+            }
+        if (condition.group(1) == null)
+            {
+            checks.add(comparison(condition.group(3), condition.group(4), condition.group(5)));
+
+            return;
+            }
+
+        List<Filter> any = new ArrayList<>();
+
+        for (String value : condition.group(2).split(","))
+            {
+            value = value.trim();
+            switch (condition.group(1))
+                {
+                case "type":
+                    if ("inhouse".equals(value) || "in-house".equals(value))
+                        {
+                        any.add(Filter.inHouse());
+                        }
+                    else if ("outsourced".equals(value))
+                        {
+                        any.add(Filter.outsourced());
+                        }
+                    else
+                        {
+                        throw new IllegalArgumentException("Unknown type: " + value);
+                        }
+                    break;
+                case "stock":
+                    if (!"low".equals(value))
+                        {
+                        throw new IllegalArgumentException("Unknown stock filter: " + value);
+                        }
+                    any.add(Filter.lowStock());
+                    break;
+                case "supplier":
+                    suppliers(value, any);
+                    break;
+                default:
+                    any.add(Filter.machine(number(value, word)));
+                    break;
+                }
+            }
+        filters.add((any.size() == 1) ? any.get(0) : Filter.or(any.toArray(new Filter[0])));
+    }
+
+    // a comparison of a price, inv, min or max with a value
+    private static Predicate<Part> comparison (String field, String operator, String text)
+    {
+        long                 value;
+        ToLongFunction<Part> read;
+
+        if ("price".equals(field))
+            {
+            value = CurrencyParser.parseLenient(text);
+            if (value == CurrencyParser.INVALID)
+                {
+                throw new IllegalArgumentException("Not a price: " + text);
+                }
+            read  = part -> Math.round(part.getPrice() * 100);
+            }
+        else
+            {
+            value = number(text, field + operator + text);
+            read  = "inv".equals(field) ? Part::getStock
+                    : "min".equals(field) ? Part::getMin : Part::getMax;
+            }
+
+        switch (operator)
+            {
+            case "<":
+                return part -> read.applyAsLong(part) < value;
+            case "<=":
+                return part -> read.applyAsLong(part) <= value;
+            case ">":
+                return part -> read.applyAsLong(part) > value;
+            case ">=":
+                return part -> read.applyAsLong(part) >= value;
+            default:
+                return part -> read.applyAsLong(part) == value;
+            }
+    }
+
+    // the digits of a search token as a number, -1 if it has none or too many
+    private static int digits (String token)
+    {
+        String digits = token.replaceAll("[^0-9]+", "");
+
+        try
+            {
+            return digits.isEmpty() ? -1 : Integer.parseInt(digits);
+            }
+        catch (NumberFormatException e)
+            {
+            return -1;
+            }
+    }
+
+    // searches an ID ordered list and its name index, see the snapshot searches above
+    private static <E> E find (PersistentList<E> byId, PersistentList<E> byName, String query,
+                               ToIntFunction<E> id, Function<E, String> name,
+                               ToIntFunction<E> stock, ToDoubleFunction<E> price)
+    {
+        String token = normalize(query);
+
+        // an ID, as findPart() reads it
+        if (token.matches("[0-9]+") || token.startsWith("id:"))
+            {
+            int key   = digits(token);
+            int index = (key < 0) ? -1 : byId.indexOfKey(id, key);
+
+            return (index < 0) ? null : byId.get(index);
+            }
+
+        // an inv, in ID order
+        if (token.startsWith("inv:"))
+            {
+            int inv = digits(token);
+
+            return (inv < 0) ? null : first(byId, (e) -> stock.applyAsInt(e) == inv);
+            }
+
+        // a price, truncated to cents as the binary searches compare them
+        if (token.startsWith("price:") || token.matches(CURRENCY))
+            {
+            double cents;
+
+            try
+                {
+                cents = truncate(Double.parseDouble(token.replaceAll("[^0-9.]", "")));
+                }
+            catch (NumberFormatException e)
+                {
+                return null;
+                }
+
+            return first(byId, (e) -> truncate(price.applyAsDouble(e)) == cents);
+            }
+
+        // a name, the first in name order starting with the token, else containing it
+        if (token.startsWith("name:"))
+            {
+            token = token.substring(5).trim();
+            }
+
+        String text = token.replaceAll("[^a-z0-9 ]", "");
+
+        if (text.isEmpty())
+            {
+            return null;
+            }
+
+        int from = startOf(byName, name, text);
+
+        if ((from < byName.size())
+            && nameOf(name, byName.get(from)).toLowerCase(Locale.US).startsWith(text))
+            {
+            return byName.get(from);
+            }
+
+        return first(byName, (e) -> nameOf(name, e).toLowerCase(Locale.US)
+                                                    .replaceAll("[^a-z0-9 ]+", "")
+                                                    .contains(text));
+    }
+
+    // the first element of a list passing a test, or null
+    private static <E> E first (PersistentList<E> list, Predicate<E> test)
+    {
+        for (E element : list)
+            {
+            if (test.test(element))
+                {
+                return element;
+                }
+            }
+
+        return null;
+    }
+
+    private static <E> String nameOf (Function<E, String> name, E element)
+    {
+        String text = name.apply(element);
+
+        return (text == null) ? "" : text;
+    }
+
+    private static int number (String text, String word)
+    {
+        try
+            {
+            return Integer.parseInt(text.trim());
+            }
+        catch (NumberFormatException e)
+            {
+            throw new IllegalArgumentException("Not a number in " + word);
+            }
+    }
+
+    private static boolean passes (Part part, List<Predicate<Part>> checks)
+    {
+        for (Predicate<Part> check : checks)
+            {
+            if (!check.test(part))
+                {
+                return false;
+                }
+            }
+
+        return true;
+    }
+
+    // the index in a name index of the first name at or after a text, ignoring case
+    private static <E> int startOf (PersistentList<E> byName, Function<E, String> name,
+                                    String text)
+    {
+        Comparator<String> order = String.CASE_INSENSITIVE_ORDER;
+
+        // no element compares equal, so the search returns the insertion point
+        return -1 - byName.search((e) -> (order.compare(nameOf(name, e), text) < 0) ? -1 : 1);
+    }
+
+    // a price truncated beyond the 2nd decimal place
+    private static double truncate (double price)
+    {
+        return BigDecimal.valueOf(price).setScale(2, RoundingMode.FLOOR).doubleValue();
+    }
+
+    // adds a filter for every supplier whose name contains the text, ignoring case and symbols
+    private static void suppliers (String text, List<Filter> any)
+    {
+        String token = text.replaceAll("[^a-z0-9]+", "");
+        int    found = 0;
+
+        for (int code = SupplierDictionary.NONE + 1; code < SupplierDictionary.size(); code++)
+            {
+            String name = SupplierDictionary.name(code).toLowerCase(Locale.US)
+                                                       .replaceAll("[^a-z0-9]+", "");
+
+            if (name.contains(token))
+                {
+                any.add(Filter.supplier(code));
+                found++;
+                }
+            }
+        if (found == 0)
+            {
+            // no such supplier, the lookup code of an unknown name matches no part
+            any.add(Filter.supplier(SupplierDictionary.lookup(text)));
+            }
+    }
+
+    // splits a query into words at spaces, keeping "quoted text" as one word without its quotes
+    private static List<String> words (String query)
+    {
+        List<String>  words  = new ArrayList<>();
+        StringBuilder word   = new StringBuilder();
+        boolean       quoted = false;
+
+        for (int i = 0; i <= query.length(); i++)
+            {
+            char c = (i < query.length()) ? query.charAt(i) : ' ';
+
+            if (c == '"')
+                {
+                quoted = !quoted;
+                }
+            else if (Character.isWhitespace(c) && !quoted)
+                {
+                if (word.length() > 0)
+                    {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    }
+                }
+            else
+                {
+                word.append(c);
+                }
+            }
+
+        return words;
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ *  Package: Helpers
+ *  File:    JsonReader.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.util.Arrays;
+
+/**
+ * Reads JSON straight from a Reader, one value at a time, the reverse of JsonWriter.
+ * <p>
+ * Nothing is built up in memory, so an export of any size can be read back.
+ * Callers step through arrays and objects, and read names and values:
+ * <pre>
+ * json.beginObject();
+ * while (json.hasNext())
+ *     {
+ *     String name = json.nextName();
+ *     ...
+ *     }
+ * json.endObject();
+ * </pre>
+ * Malformed JSON, or a value of another type than asked for, is an IOException
+ * giving the character offset where it was found.
+ *
+ * @author Justin Langley
+ */
+public class JsonReader implements Closeable
+{
+    // what the next thing in the input is, see peek()
+    public enum Token
+    {
+        BEGIN_ARRAY,
+        END_ARRAY,
+        BEGIN_OBJECT,
+        END_OBJECT,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    private final Reader in;
+
+    // the input read so far but not yet consumed, and the offset of buffer[0] in the input
+    private final char[]        buffer = new char[8192];
+    private int                 pos;
+    private int                 limit;
+    private long                offset;
+    private final StringBuilder text   = new StringBuilder();
+
+    // for each open array or object, whether it is an object, and whether a value was read
+    private boolean[] objects = new boolean[16];
+    private boolean[] started = new boolean[16];
+    private int       depth   = 0;
+    private boolean   named   = false;    // a name was read, its value is next
+    private Token     peeked;             // the next token, once peek() found it
+
+    public JsonReader (Reader in)
+    {
+        this.in = in;
+    }
+
+    public void beginArray () throws IOException
+    {
+        open(Token.BEGIN_ARRAY, false);
+    }
+
+    public void beginObject () throws IOException
+    {
+        open(Token.BEGIN_OBJECT, true);
+    }
+
+    @Override
+    public void close () throws IOException
+    {
+        in.close();
+    }
+
+    public void endArray () throws IOException
+    {
+        close(Token.END_ARRAY);
+    }
+
+    public void endObject () throws IOException
+    {
+        close(Token.END_OBJECT);
+    }
+
+    // returns true if the current array or object has another element
+    public boolean hasNext () throws IOException
+    {
+        Token token = peek();
+
+        return (token != Token.END_ARRAY) && (token != Token.END_OBJECT)
+               && (token != Token.END_DOCUMENT);
+    }
+
+    public boolean nextBoolean () throws IOException
+    {
+        expect(Token.BOOLEAN);
+
+        boolean value = buffer[pos] == 't';
+
+        literal(value ? "true" : "false");
+        consumed();
+
+        return value;
+    }
+
+    public double nextDouble () throws IOException
+    {
+        expect(Token.NUMBER);
+
+        String number = number();
+
+        try
+            {
+            return Double.parseDouble(number);
+            }
+        catch (NumberFormatException e)
+            {
+            throw error("Malformed number " + number);
+            }
+    }
+
+    // reads a number which must be a whole int, e.g. 5 or 5.0
+    public int nextInt () throws IOException
+    {
+        long value = nextLong();
+
+        if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE))
+            {
+            throw error("Number out of int range " + value);
+            }
+
+        return (int) value;
+    }
+
+    // reads a number which must be a whole long, e.g. 5 or 5.0
+    public long nextLong () throws IOException
+    {
+        expect(Token.NUMBER);
+
+        String number = number();
+
+        try
+            {
+            return Long.parseLong(number);
+            }
+        catch (NumberFormatException e)
+            {
+            double value;
+
+            try
+                {
+                value = Double.parseDouble(number);
+                }
+            catch (NumberFormatException notANumber)
+                {
+                throw error("Malformed number " + number);
+                }
+            if ((value != Math.rint(value)) || (Math.abs(value) >= 0x1p63))
+                {
+                throw error("Not a whole number " + number);
+                }
+
+            return (long) value;
+            }
+    }
+
+    public String nextName () throws IOException
+    {
+        expect(Token.NAME);
+
+        String name = string();
+
+        skipWhitespace();
+        if (!fill() || (buffer[pos] != ':'))
+            {
+            throw error("Expected ':' after name " + name);
+            }
+        pos++;
+        peeked = null;
+        named  = true;
+
+        return name;
+    }
+
+    public void nextNull () throws IOException
+    {
+        expect(Token.NULL);
+        literal("null");
+        consumed();
+    }
+
+    // reads a string, or null
+    public String nextString () throws IOException
+    {
+        if (peek() == Token.NULL)
+            {
+            nextNull();
+
+            return null;
+            }
+        expect(Token.STRING);
+
+        String value = string();
+
+        consumed();
+
+        return value;
+    }
+
+    /**
+     * Returns what the next thing in the input is, without reading it.
+     *
+     * @return the next token
+     * @throws IOException if the input fails or is not JSON
+     */
+    public Token peek () throws IOException
+    {
+        if (peeked != null)
+            {
+            return peeked;
+            }
+        skipWhitespace();
+        if (!fill())
+            {
+            if ((depth > 0) || named)
+                {
+                throw error("Unexpected end of input");
+                }
+
+            return peeked = Token.END_DOCUMENT;
+            }
+
+        char c = buffer[pos];
+
+        if ((depth > 0) && !named)
+            {
+            if (c == (objects[depth - 1] ? '}' : ']'))
+                {
+                return peeked = objects[depth - 1] ? Token.END_OBJECT : Token.END_ARRAY;
+                }
+            if (started[depth - 1])
+                {
+                if (c != ',')
+                    {
+                    throw error("Expected ',' but found '" + c + "'");
+                    }
+                pos++;
+                skipWhitespace();
+                if (!fill())
+                    {
+                    throw error("Unexpected end of input");
+                    }
+                c = buffer[pos];
+                }
+            if (objects[depth - 1])
+                {
+                if (c != '"')
+                    {
+                    throw error("Expected a name but found '" + c + "'");
+                    }
+
+                return peeked = Token.NAME;
+                }
+            }
+
+        return peeked = value(c);
+    }
+
+    // skips the next value, with everything in it if it is an array or object
+    public void skipValue () throws IOException
+    {
+        switch (peek())
+            {
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext())
+                    {
+                    skipValue();
+                    }
+                endArray();
+                break;
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext())
+                    {
+                    nextName();
+                    skipValue();
+                    }
+                endObject();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            case NUMBER:
+                nextDouble();
+                break;
+            case STRING:
+                nextString();
+                break;
+            default:
+                throw error("Expected a value but found " + peek());
+            }
+    }
+
+    private void close (Token token) throws IOException
+    {
+        expect(token);
+        pos++;
+        depth--;
+        consumed();
+    }
+
+    // marks a value as read in the array or object holding it
+    private void consumed ()
+    {
+        peeked = null;
+        named  = false;
+        if (depth > 0)
+            {
+            started[depth - 1] = true;
+            }
+    }
+
+    private IOException error (String message)
+    {
+        return new IOException(message + " at offset " + (offset + pos));
+    }
+
+    private void expect (Token token) throws IOException
+    {
+        if (peek() != token)
+            {
+            throw error("Expected " + token + " but found " + peeked);
+            }
+    }
+
+    // makes sure buffer[pos] can be read, returns false at the end of the input
+    private boolean fill () throws IOException
+    {
+        if (pos < limit)
+            {
+            return true;
+            }
+
+        int read = in.read(buffer);
+
+        if (read <= 0)
+            {
+            return false;
+            }
+        offset += limit;
+        pos     = 0;
+        limit   = read;
+
+        return true;
+    }
+
+    // reads an expected word, e.g. true
+    private void literal (String word) throws IOException
+    {
+        for (int i = 0; i < word.length(); i++)
+            {
+            if (!fill() || (buffer[pos] != word.charAt(i)))
+                {
+                throw error("Expected " + word);
+                }
+            pos++;
+            }
+    }
+
+    // reads the text of a number, consuming it
+    private String number () throws IOException
+    {
+        text.setLength(0);
+        while (fill() && ("+-0123456789.eE".indexOf(buffer[pos]) >= 0))
+            {
+            text.append(buffer[pos++]);
+            }
+        consumed();
+
+        return text.toString();
+    }
+
+    private void open (Token token, boolean object) throws IOException
+    {
+        expect(token);
+        pos++;
+        consumed();
+        if (depth == started.length)
+            {
+            objects = Arrays.copyOf(objects, depth * 2);
+            started = Arrays.copyOf(started, depth * 2);
+            }
+        objects[depth]   = object;
+        started[depth++] = false;
+    }
+
+    private void skipWhitespace () throws IOException
+    {
+        while (fill() && ((buffer[pos] == ' ') || (buffer[pos] == '\n') || (buffer[pos] == '\r')
+                          || (buffer[pos] == '\t')))
+            {
+            pos++;
+            }
+    }
+
+    // reads a quoted string, undoing its escapes
+    private String string () throws IOException
+    {
+        text.setLength(0);
+
+        // past the opening quote
+        pos++;
+        while (true)
+            {
+            if (!fill())
+                {
+                throw error("Unterminated string");
+                }
+
+            char c = buffer[pos++];
+
+            if (c == '"')
+                {
+                return text.toString();
+                }
+            if (c != '\\')
+                {
+                text.append(c);
+                continue;
+                }
+            if (!fill())
+                {
+                throw error("Unterminated string");
+                }
+            c = buffer[pos++];
+            switch (c)
+                {
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    text.append(unicode());
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    text.append(c);
+                    break;
+                default:
+                    throw error("Bad escape \\" + c);
+                }
+            }
+    }
+
+    // reads the four hex digits of a \\u escape
+    private char unicode () throws IOException
+    {
+        int code = 0;
+
+        for (int i = 0; i < 4; i++)
+            {
+            if (!fill())
+                {
+                throw error("Unterminated string");
+                }
+
+            int digit = Character.digit(buffer[pos++], 16);
+
+            if (digit < 0)
+                {
+                throw error("Bad \\u escape");
+                }
+            code = (code << 4) | digit;
+            }
+
+        return (char) code;
+    }
+
+    // the token of a value starting with a character
+    private Token value (char c) throws IOException
+    {
+        switch (c)
+            {
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if ((c == '-') || ((c >= '0') && (c <= '9')))
+                    {
+                    return Token.NUMBER;
+                    }
+                throw error("Unexpected character '" + c + "'");
+            }
+    }
+}
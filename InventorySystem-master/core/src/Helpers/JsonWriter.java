@@ -0,0 +1,236 @@
+/*
+ *  Package: Helpers
+ *  File:    JsonWriter.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.Arrays;
+
+/**
+ * Writes JSON straight to a Writer, one value at a time.
+ * <p>
+ * Nothing is built up in memory, so a list of any size can be streamed,
+ * e.g. to an HTTP response. The writer keeps track of commas,
+ * callers only open and close arrays and objects, and write names and values:
+ * <pre>
+ * json.beginObject().name("id").value(1).name("name").value("nut").endObject();
+ * </pre>
+ *
+ * @author Justin Langley
+ */
+public class JsonWriter implements Closeable, Flushable
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    // for each open array or object, whether a value has been written in it yet
+    private boolean[] started = new boolean[16];
+    private int       depth   = 0;
+    private boolean   named   = false;    // a name was written, its value is next
+
+    public JsonWriter (Writer out)
+    {
+        this.out = out;
+    }
+
+    public JsonWriter beginArray () throws IOException
+    {
+        return open('[');
+    }
+
+    public JsonWriter beginObject () throws IOException
+    {
+        return open('{');
+    }
+
+    @Override
+    public void close () throws IOException
+    {
+        out.close();
+    }
+
+    public JsonWriter endArray () throws IOException
+    {
+        return close(']');
+    }
+
+    public JsonWriter endObject () throws IOException
+    {
+        return close('}');
+    }
+
+    @Override
+    public void flush () throws IOException
+    {
+        out.flush();
+    }
+
+    // writes the name of the next value in an object
+    public JsonWriter name (String name) throws IOException
+    {
+        if ((depth == 0) || named)
+            {
+            throw new IllegalStateException("A name must be followed by a value");
+            }
+        separate();
+        string(name);
+        out.write(':');
+        named = true;
+
+        return this;
+    }
+
+    public JsonWriter nullValue () throws IOException
+    {
+        separate();
+        out.write("null");
+
+        return this;
+    }
+
+    public JsonWriter value (boolean value) throws IOException
+    {
+        separate();
+        out.write(value ? "true" : "false");
+
+        return this;
+    }
+
+    /**
+     * Writes a number. JSON has no NaN or infinity, so those are rejected.
+     *
+     * @param value the number
+     * @return this writer
+     * @throws IOException if the underlying writer fails
+     */
+    public JsonWriter value (double value) throws IOException
+    {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            {
+            throw new IllegalArgumentException("Not a JSON number: " + value);
+            }
+        separate();
+        out.write(Double.toString(value));
+
+        return this;
+    }
+
+    public JsonWriter value (long value) throws IOException
+    {
+        separate();
+        out.write(Long.toString(value));
+
+        return this;
+    }
+
+    public JsonWriter value (String value) throws IOException
+    {
+        if (value == null)
+            {
+            return nullValue();
+            }
+        separate();
+        string(value);
+
+        return this;
+    }
+
+    private JsonWriter close (char bracket) throws IOException
+    {
+        if ((depth == 0) || named)
+            {
+            throw new IllegalStateException("Nothing to close with " + bracket);
+            }
+        depth--;
+        out.write(bracket);
+
+        return this;
+    }
+
+    private JsonWriter open (char bracket) throws IOException
+    {
+        separate();
+        if (depth == started.length)
+            {
+            started = Arrays.copyOf(started, depth * 2);
+            }
+        started[depth++] = false;
+        out.write(bracket);
+
+        return this;
+    }
+
+    // writes the comma before a value, if it is not the first in its array or object
+    private void separate () throws IOException
+    {
+        if (named)
+            {
+            // the value of a name, the comma was written before the name
+            named = false;
+
+            return;
+            }
+        if (depth > 0)
+            {
+            if (started[depth - 1])
+                {
+                out.write(',');
+                }
+            started[depth - 1] = true;
+            }
+    }
+
+    // writes a quoted string, escaping what JSON requires
+    private void string (String value) throws IOException
+    {
+        int from = 0;
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++)
+            {
+            char c = value.charAt(i);
+
+            if ((c >= 0x20) && (c != '"') && (c != '\\'))
+                {
+                continue;
+                }
+
+            // write the plain run before the character, then its escape
+            out.write(value, from, i - from);
+            from = i + 1;
+            switch (c)
+                {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+        out.write(value, from, value.length() - from);
+        out.write('"');
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Package: Model
+ *  File:    CommandLog.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The CommandLog class holds the most recent edits of an Inventory for undo and redo.
+ * <p>
+ * Commands are kept in a fixed size ring buffer. Once it is full, recording a new
+ * command drops the oldest one, so memory stays bounded no matter how long the
+ * program runs. Recording a command after an undo drops the commands that could
+ * have been redone, as in any editor.
+ * <p>
+ * A listener can be set to receive every command as it is recorded,
+ * for auditing or for replicating the edits to another Inventory.
+ *
+ * @author Justin Langley
+ * @version 1.0
+ */
+public class CommandLog
+{
+    // default number of undo levels
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final InventoryCommand[]   ring;
+    private int                        start  = 0;    // slot of the oldest command
+    private int                        count  = 0;    // commands held, applied or undone
+    private int                        cursor = 0;    // commands applied, the rest can be redone
+    private Consumer<InventoryCommand> onRecord;
+
+    public CommandLog ()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CommandLog (int capacity)
+    {
+        if (capacity < 1)
+            {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+            }
+        this.ring = new InventoryCommand[capacity];
+    }
+
+    public boolean canRedo ()
+    {
+        return cursor < count;
+    }
+
+    public boolean canUndo ()
+    {
+        return cursor > 0;
+    }
+
+    // forgets all commands, e.g. once initial data has been loaded
+    public void clear ()
+    {
+        Arrays.fill(ring, null);
+        start  = 0;
+        count  = 0;
+        cursor = 0;
+    }
+
+    /**
+     * Adds a command that has just been applied.
+     *
+     * @param command the applied command
+     */
+    public void record (InventoryCommand command)
+    {
+        // drop anything that could have been redone
+        for (int i = cursor; i < count; i++)
+            {
+            ring[slot(i)] = null;
+            }
+        count = cursor;
+
+        // drop the oldest command if full
+        if (count == ring.length)
+            {
+            ring[start] = null;
+            start       = (start + 1) % ring.length;
+            count--;
+            cursor--;
+            }
+        ring[slot(count)] = command;
+        count++;
+        cursor++;
+        if (onRecord != null)
+            {
+            onRecord.accept(command);
+            }
+    }
+
+    /**
+     * Steps forward to the last undone command.
+     *
+     * @return the command to re-apply, or null if there is nothing to redo
+     */
+    public InventoryCommand redo ()
+    {
+        if (!canRedo())
+            {
+            return null;
+            }
+
+        return ring[slot(cursor++)];
+    }
+
+    // sets a callback which receives every command as it is recorded
+    public void setOnRecord (Consumer<InventoryCommand> onRecord)
+    {
+        this.onRecord = onRecord;
+    }
+
+    /**
+     * Steps back over the last applied command.
+     *
+     * @return the command to revert, or null if there is nothing to undo
+     */
+    public InventoryCommand undo ()
+    {
+        if (!canUndo())
+            {
+            return null;
+            }
+
+        return ring[slot(--cursor)];
+    }
+
+    // ring slot of the i-th oldest command
+    private int slot (int i)
+    {
+        return (start + i) % ring.length;
+    }
+}
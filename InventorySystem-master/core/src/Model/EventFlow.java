@@ -0,0 +1,57 @@
+/*
+ *  Package: Model
+ *  File:    EventFlow.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+/**
+ * The interfaces of a back-pressured event stream, as in java.util.concurrent.Flow.
+ * <p>
+ * This project compiles for Java 8, which does not have Flow, so the same
+ * contract is declared here with the same method names and rules:
+ * <ul>
+ * <li>a Subscriber is sent onSubscribe() first, then nothing until it requests events</li>
+ * <li>it receives at most as many onNext() calls as it has requested,
+ * and calls from one Publisher are never made concurrently</li>
+ * <li>onError() or onComplete() ends the stream, cancel() ends it early</li>
+ * </ul>
+ *
+ * @author Justin Langley
+ */
+public final class EventFlow
+{
+    private EventFlow ()
+    {
+    }
+
+    // a source of events for any number of subscribers
+    public interface Publisher<T>
+    {
+        void subscribe (Subscriber<? super T> subscriber);
+    }
+
+    // a receiver of events, which controls how fast they arrive by requesting them
+    public interface Subscriber<T>
+    {
+        void onSubscribe (Subscription subscription);
+
+        void onNext (T item);
+
+        void onError (Throwable throwable);
+
+        void onComplete ();
+    }
+
+    // the link between a publisher and one subscriber
+    public interface Subscription
+    {
+        // allows n more events to be delivered, n must be positive
+        void request (long n);
+
+        // stops delivery, events may still arrive for a short while
+        void cancel ();
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ *  Package: Model
+ *  File:    EventPublisher.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Publishes events to subscribers, each with its own bounded buffer.
+ * <p>
+ * publish() never blocks, so it can be called while holding a lock, e.g. from
+ * an Inventory edit. Each subscriber gets its events on its own Executor,
+ * one at a time and only as many as it has requested. A JavaFX view, for example,
+ * can subscribe with Platform::runLater to get its events on the FX thread.
+ * <p>
+ * A subscriber which falls more than its buffer capacity behind is cut off with
+ * onError(), rather than slowing down the publisher or losing events silently.
+ * It can take a fresh snapshot of whatever it follows and subscribe again.
+ *
+ * @author Justin Langley
+ * @param <T> the type of event
+ */
+public class EventPublisher<T> implements EventFlow.Publisher<T>
+{
+    // events buffered per subscriber, by default
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // events delivered in one go, before other work on the executor gets a turn
+    private static final int BATCH = 64;
+
+    private final List<BufferedSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean                    closed;
+
+    /**
+     * Completes the stream: each subscriber receives its buffered events, then onComplete().
+     * Events published afterwards are dropped.
+     */
+    public void close ()
+    {
+        closed = true;
+        for (BufferedSubscription<T> subscription : subscriptions)
+            {
+            subscription.complete();
+            }
+        subscriptions.clear();
+    }
+
+    // whether anyone is listening, so callers can skip building events nobody receives
+    public boolean hasSubscribers ()
+    {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Buffers an event for every subscriber, and schedules its delivery.
+     *
+     * @param event the event
+     */
+    public void publish (T event)
+    {
+        if (closed)
+            {
+            return;
+            }
+        for (BufferedSubscription<T> subscription : subscriptions)
+            {
+            if (!subscription.offer(event))
+                {
+                subscriptions.remove(subscription);
+                }
+            }
+    }
+
+    // subscribes with the default executor and buffer capacity
+    @Override
+    public void subscribe (EventFlow.Subscriber<? super T> subscriber)
+    {
+        subscribe(subscriber, defaultExecutor(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a subscriber.
+     *
+     * @param subscriber the subscriber
+     * @param executor runs the calls to the subscriber, one at a time
+     * @param capacity the most events buffered for the subscriber
+     */
+    public void subscribe (EventFlow.Subscriber<? super T> subscriber, Executor executor,
+                           int capacity)
+    {
+        if (capacity < 1)
+            {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+            }
+
+        BufferedSubscription<T> subscription = new BufferedSubscription<>(subscriber, executor,
+                                                                          capacity);
+
+        for (BufferedSubscription<T> other : subscriptions)
+            {
+            if (other.subscriber == subscriber)
+                {
+                // the Flow rules do not allow subscribing twice
+                subscription.fail(new IllegalStateException("Already subscribed"));
+
+                return;
+                }
+            }
+        if (closed)
+            {
+            subscription.complete();
+
+            return;
+            }
+        subscriptions.add(subscription);
+        subscription.schedule();
+    }
+
+    // ForkJoinPool.commonPool(), unless it has no parallelism, as SubmissionPublisher does
+    private static Executor defaultExecutor ()
+    {
+        return (ForkJoinPool.getCommonPoolParallelism() > 1)
+               ? ForkJoinPool.commonPool()
+               : (task) -> new Thread(task).start();
+    }
+
+    /*
+     * The buffer and demand of one subscriber.
+     * All fields are guarded by the subscription itself. Only one drain task runs
+     * at a time, which is what keeps the calls to the subscriber from overlapping.
+     */
+    private static final class BufferedSubscription<T> implements EventFlow.Subscription,
+                                                                  Runnable
+    {
+        private final EventFlow.Subscriber<? super T> subscriber;
+        private final Executor                        executor;
+        private final Object[]                        ring;
+        private int                                   head;
+        private int                                   count;
+        private long                                  demand;
+        private volatile boolean                      subscribed;   // onSubscribe() was sent
+        private boolean                               draining;     // a drain task is scheduled
+        private boolean                               cancelled;
+        private boolean                               completed;    // complete once drained
+        private Throwable                             failure;      // send before anything else
+
+        BufferedSubscription (EventFlow.Subscriber<? super T> subscriber, Executor executor,
+                              int capacity)
+        {
+            this.subscriber = subscriber;
+            this.executor   = executor;
+            this.ring       = new Object[capacity];
+        }
+
+        @Override
+        public synchronized void cancel ()
+        {
+            cancelled = true;
+            Arrays.fill(ring, null);
+            count = 0;
+        }
+
+        @Override
+        public void request (long n)
+        {
+            synchronized (this)
+                {
+                if (n <= 0)
+                    {
+                    failure = new IllegalArgumentException("Request must be positive: " + n);
+                    }
+                else
+                    {
+                    // saturates, as a demand of Long.MAX_VALUE means unbounded
+                    demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+                    }
+                }
+            schedule();
+        }
+
+        // delivers events, up to a batch at a time, then reschedules if there is more
+        @Override
+        public void run ()
+        {
+            EventFlow.Subscriber<? super T> target = subscriber;
+
+            try
+                {
+                if (!subscribed)
+                    {
+                    subscribed = true;
+                    target.onSubscribe(this);
+                    }
+                for (int sent = 0; sent < BATCH; sent++)
+                    {
+                    T         event = null;
+                    Throwable error = null;
+                    boolean   done  = false;
+
+                    synchronized (this)
+                        {
+                        if (cancelled)
+                            {
+                            draining = false;
+
+                            return;
+                            }
+                        if (failure != null)
+                            {
+                            error = failure;
+                            cancel();
+                            }
+                        else if ((count > 0) && (demand > 0))
+                            {
+                            event = take();
+                            if (demand != Long.MAX_VALUE)
+                                {
+                                demand--;
+                                }
+                            }
+                        else if ((count == 0) && completed)
+                            {
+                            done = true;
+                            cancel();
+                            }
+                        else
+                            {
+                            // nothing to deliver until more events or demand arrive
+                            draining = false;
+
+                            return;
+                            }
+                        }
+                    if (error != null)
+                        {
+                        target.onError(error);
+
+                        return;
+                        }
+                    if (done)
+                        {
+                        target.onComplete();
+
+                        return;
+                        }
+                    target.onNext(event);
+                    }
+                }
+            catch (RuntimeException e)
+                {
+                // a subscriber which throws is cancelled, as the Flow rules require
+                cancel();
+
+                return;
+                }
+
+            // the batch is used up, give other tasks on the executor a turn
+            synchronized (this)
+                {
+                draining = false;
+                }
+            schedule();
+        }
+
+        synchronized void complete ()
+        {
+            completed = true;
+            schedule();
+        }
+
+        synchronized void fail (Throwable throwable)
+        {
+            failure = throwable;
+            schedule();
+        }
+
+        /**
+         * Buffers an event.
+         *
+         * @param event the event
+         * @return false if the subscription is over, or was just cut off for falling behind
+         */
+        boolean offer (T event)
+        {
+            synchronized (this)
+                {
+                if (cancelled || (failure != null))
+                    {
+                    return false;
+                    }
+                if (count == ring.length)
+                    {
+                    failure = new IllegalStateException("Subscriber fell more than "
+                                                        + ring.length + " events behind");
+                    schedule();
+
+                    return false;
+                    }
+                ring[(head + count) % ring.length] = event;
+                count++;
+                }
+            schedule();
+
+            return true;
+        }
+
+        // starts a drain task, unless one is running or there is nothing it could do
+        synchronized void schedule ()
+        {
+            if (draining || cancelled)
+                {
+                return;
+                }
+            if (subscribed && (failure == null) && !(completed && (count == 0))
+                && ((count == 0) || (demand == 0)))
+                {
+                return;
+                }
+            draining = true;
+            executor.execute(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T take ()
+        {
+            T event = (T) ring[head];
+
+            ring[head] = null;
+            head       = (head + 1) % ring.length;
+            count--;
+
+            return event;
+        }
+    }
+}
@@ -0,0 +1,979 @@
+/*
+ *  Package: Model
+ *  File:    Inventory.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/*
+ * Concurrency:
+ *   Reads (snapshot, lookupPart, lookupProduct) never lock, they read the current
+ *   immutable state. Edits are applied one at a time, each in a short synchronized step.
+ *
+ *   Editors which read a part, let the user change it, then save, should use the
+ *   versioned updatePart(id, expectedVersion, part) and updateProduct(...).
+ *   These hold no lock while the user edits, and report a conflict instead of
+ *   overwriting a change saved by someone else in the meantime.
+ *
+ *   Versions come from one sequence shared by all parts and products, and every
+ *   part or product stored, including the ones undo, redo and restore put back,
+ *   is stamped with the next one. So a version only ever goes up, and is never
+ *   given out twice: a caller holding an old version can not match a later edit.
+ *
+ * User interfaces:
+ *   Inventory does not depend on JavaFX, so it runs in servers, batch jobs and
+ *   benchmarks. The UI uses ObservableInventory, which overrides the protected
+ *   partChanged, productChanged and stateChanged hooks to keep its TableView lists in step.
+ *   Other code, e.g. dashboards or caches, can follow edits through getEvents() instead.
+ */
+public class Inventory
+{
+    // the current parts and products, held in persistent lists in ID order
+    private volatile InventorySnapshot state = InventorySnapshot.EMPTY;
+
+    // tracks parts at or below their min inventory, kept up to date on every part change;
+    // this and the two below are replaced whole when load() swaps in ones built ahead
+    private volatile LowStockMonitor lowStock = new LowStockMonitor();
+
+    // counts of parts, stock and value per supplier and machine, kept up to date likewise
+    private volatile PartFacets facets = new PartFacets();
+
+    // bitmaps of part IDs by type, low stock, supplier and machine, for attribute filters
+    private volatile PartIndex index = new PartIndex();
+
+    // append-only history of every stock movement, only replaced while it is still empty
+    private volatile StockLedger ledger = new StockLedger();
+
+    // recent edits, for undo and redo
+    private final CommandLog history = new CommandLog();
+
+    // change events for subscribers, and the sequence number of the last one sent
+    private final EventPublisher<InventoryEvent> events = new EventPublisher<>();
+    private long                                 eventSequence;
+
+    // the last version stamped on a part or product
+    private long lastVersion;
+
+    // adds a part, stamped with the next version, throws IllegalArgumentException if its ID is in use
+    public synchronized void addPart (Part newPart)
+    {
+        newPart.setVersion(++lastVersion);
+        execute(new InventoryCommand.PartChange(null, newPart, StockReason.INITIAL));
+    }
+
+    /**
+     * Moves the stock of a part up or down and records the movement in the ledger.
+     * The part is found by its ID, so the delta applies to the part as it is now,
+     * even if the caller holds an older copy of it. It is replaced by a copy holding
+     * the new stock, so snapshots taken before the move keep the old stock.
+     * The stock may rise above the part's max, e.g. for a large delivery.
+     *
+     * @param part the part whose stock is moving
+     * @param delta the change in stock, negative for consumption
+     * @param reason why the stock moved
+     * @return the replacement part holding the new stock
+     * @throws IllegalArgumentException if there is no part with the ID of the part, or the
+     *         stock would fall below zero or overflow; nothing is changed then
+     */
+    public synchronized Part adjustStock (Part part, int delta, StockReason reason)
+    {
+        return moveStock(storedPart(part.getId()), delta, reason, false);
+    }
+
+    /**
+     * Moves the stock of the part with an ID, as it is when the move is applied.
+     * Safe for concurrent callers, who could otherwise move a part someone
+     * else has just replaced. Unlike adjustStock(Part, ...) the stock may not
+     * rise above the part's max, as StockBatch and the API require.
+     *
+     * @param partId the ID of the part whose stock is moving
+     * @param delta the change in stock, negative for consumption
+     * @param reason why the stock moved
+     * @return the replacement part holding the new stock, or null if there is no such part
+     * @throws IllegalArgumentException if the stock would fall below zero, or a positive
+     *         delta would take it above max; nothing is changed then
+     */
+    public synchronized Part adjustStock (int partId, int delta, StockReason reason)
+    {
+        Part part = lookupPart(partId);
+
+        return (part == null) ? null : moveStock(part, delta, reason, true);
+    }
+
+    // adds a product, stamped with the next version, throws IllegalArgumentException if its ID is in use
+    public synchronized void addProduct (Product newProduct)
+    {
+        newProduct.setVersion(++lastVersion);
+        execute(new InventoryCommand.ProductChange(null, newProduct));
+    }
+
+    // deletes the part with the ID of a part, if there still is one
+    public synchronized void deletePart (Part selectedPart)
+    {
+        Part current = lookupPart(selectedPart.getId());
+
+        if (current != null)
+            {
+            execute(new InventoryCommand.PartChange(current, null, StockReason.REMOVED));
+            }
+    }
+
+    // deletes the product with the ID of a product, if there still is one
+    public synchronized void deleteProduct (Product product)
+    {
+        Product current = lookupProduct(product.getId());
+
+        if (current != null)
+            {
+            execute(new InventoryCommand.ProductChange(current, null));
+            }
+    }
+
+    // returns a read-only view of all parts in ID order, as of the call
+    public List<Part> getAllParts ()
+    {
+        return this.state.getParts().asList();
+    }
+
+    // returns a read-only view of all products in ID order, as of the call
+    public List<Product> getAllProducts ()
+    {
+        return this.state.getProducts().asList();
+    }
+
+    /**
+     * Returns the stream of change events, sent after each edit.
+     * Subscribers request events at their own pace, and one which falls too far
+     * behind is sent onError(), after which it should reload from snapshot().
+     * To follow the inventory from a known state, subscribe first, then take a snapshot();
+     * events for edits already in the snapshot can be told apart by their versions.
+     *
+     * @return the publisher of change events
+     */
+    public EventPublisher<InventoryEvent> getEvents ()
+    {
+        return this.events;
+    }
+
+    // returns the log of recent edits, used for undo and redo
+    public CommandLog getHistory ()
+    {
+        return this.history;
+    }
+
+    // returns the counts of parts per supplier and machine
+    public PartFacets getFacets ()
+    {
+        return this.facets;
+    }
+
+    // returns the bitmap index of parts by attribute, for filters
+    public PartIndex getIndex ()
+    {
+        return this.index;
+    }
+
+    // returns the history of stock movements
+    public StockLedger getLedger ()
+    {
+        return this.ledger;
+    }
+
+    // returns the monitor of parts needing reorder
+    public LowStockMonitor getLowStock ()
+    {
+        return this.lowStock;
+    }
+
+    // looks up a part by its ID in O(log n), returns null if there is no such part
+    public Part lookupPart (int partId)
+    {
+        // read the state once, so the index is used on the list it was found in
+        PersistentList<Part> parts = this.state.getParts();
+        int                  index = parts.indexOfKey(Part::getId, partId);
+
+        return (index < 0) ? null : parts.get(index);
+    }
+
+    // looks up a product by its ID in O(log n), returns null if there is no such product
+    public Product lookupProduct (int productId)
+    {
+        PersistentList<Product> products = this.state.getProducts();
+        int                     index    = products.indexOfKey(Product::getId, productId);
+
+        return (index < 0) ? null : products.get(index);
+    }
+
+    /**
+     * Replaces the whole inventory with a snapshot built elsewhere, e.g. with
+     * InventorySnapshot.of() on a background thread, as its new starting point.
+     * Unlike restore() this is not an edit: the stock of every part is recorded
+     * as initial stock, and the undo history is cleared.
+     * Takes O(n) under the lock, see prepareLoad() to do that work beforehand.
+     *
+     * @param snapshot the parts and products to hold
+     */
+    public synchronized void load (InventorySnapshot snapshot)
+    {
+        load(prepareLoad(snapshot));
+    }
+
+    /**
+     * Loads a snapshot as load(InventorySnapshot) does, with its reorder monitor,
+     * facet counts, part index and ledger entries already built by prepareLoad().
+     * Only swaps them in, in O(1), so it can run on the UI thread. If the inventory
+     * was edited since the load was prepared, or its ledger holds movements already,
+     * the work left is done here instead.
+     *
+     * @param load the load, from prepareLoad() on this inventory
+     */
+    public synchronized void load (PreparedLoad load)
+    {
+        InventorySnapshot       snapshot = load.snapshot;
+        PersistentList<Part>    parts    = snapshot.getParts();
+        PersistentList<Product> products = snapshot.getProducts();
+
+        if ((load.inventory != this) || (load.base != this.state) || load.used)
+            {
+            load = prepareLoad(snapshot);
+            }
+        load.used = true;
+
+        // never auto-generate an ID which is already in use
+        if (!parts.isEmpty())
+            {
+            Part.reserveId(parts.get(parts.size() - 1).getId());
+            }
+        if (!products.isEmpty())
+            {
+            Product.reserveId(products.get(products.size() - 1).getId());
+            }
+
+        // the stock movements first, so the ledger never misses one the inventory shows
+        if (this.ledger.size() == 0)
+            {
+            this.ledger = load.ledger;
+            }
+        else
+            {
+            for (int e = 0; e < load.ledger.size(); e++)
+                {
+                this.ledger.append(load.ledger.getPartId(e), load.ledger.getDelta(e),
+                                   load.ledger.getReason(e), load.ledger.getTimestamp(e));
+                }
+            }
+
+        LowStockMonitor old = this.lowStock;
+
+        this.lowStock    = load.lowStock;
+        this.facets      = load.facets;
+        this.index       = load.index;
+        this.lastVersion = Math.max(this.lastVersion, load.lastVersion);
+        this.state       = snapshot;
+        this.lowStock.takeOver(old);
+        history.clear();
+        stateChanged(snapshot);
+        if (events.hasSubscribers())
+            {
+            events.publish(new InventoryEvent.Restored(++eventSequence, snapshot));
+            }
+    }
+
+    /**
+     * Does the O(n) work of load() ahead of it, e.g. on a background thread: builds
+     * the reorder monitor, facet counts and part index of a snapshot, and enters its
+     * stock in a ledger, as moved from the inventory as it is now. Nothing in the
+     * inventory is locked or changed.
+     *
+     * @param snapshot the parts and products to load
+     * @return the load, to pass to load(PreparedLoad)
+     */
+    public PreparedLoad prepareLoad (InventorySnapshot snapshot)
+    {
+        return new PreparedLoad(this, this.state, snapshot);
+    }
+
+    // re-applies the last undone edit, returns false if there was nothing to redo
+    public synchronized boolean redo ()
+    {
+        InventoryCommand command = history.redo();
+
+        if (command == null)
+            {
+            return false;
+            }
+        command.apply(this);
+
+        return true;
+    }
+
+    /**
+     * Rolls the inventory back to a snapshot taken earlier.
+     * Recorded like any other edit, so a restore can itself be undone.
+     *
+     * @param snapshot a snapshot taken with snapshot()
+     */
+    public synchronized void restore (InventorySnapshot snapshot)
+    {
+        execute(new InventoryCommand.Restore(this.state, snapshot));
+    }
+
+    /**
+     * Replaces the associated parts of a product in the inventory.
+     * The product is replaced by a copy holding the new parts, so snapshots
+     * taken before the change keep the old parts.
+     *
+     * @param product the product being changed, found by its ID
+     * @param parts the parts to associate
+     * @return the replacement product
+     * @throws IllegalArgumentException if there is no product with the ID of the product
+     */
+    public synchronized Product setAssociatedParts (Product product, PersistentList<Part> parts)
+    {
+        Product current = storedProduct(product.getId());
+        Product changed = nextVersion(current);
+
+        changed.setAssociatedParts(parts);
+        execute(new InventoryCommand.ProductChange(current, changed));
+
+        return changed;
+    }
+
+    /**
+     * Returns an immutable view of the inventory as it is right now, in O(1).
+     *
+     * @return the current parts and products
+     */
+    public InventorySnapshot snapshot ()
+    {
+        return this.state;
+    }
+
+    // reverts the last edit, returns false if there was nothing to undo
+    public synchronized boolean undo ()
+    {
+        InventoryCommand command = history.undo();
+
+        if (command == null)
+            {
+            return false;
+            }
+        command.revert(this);
+
+        return true;
+    }
+
+    // method to update a part, index is the position of the part in getAllParts()
+    public synchronized void updatePart (int index, Part selectedPart)
+    {
+        Part current = getAllParts().get(index);
+
+        execute(new InventoryCommand.PartChange(current, nextVersion(selectedPart),
+                                                StockReason.ADJUSTMENT));
+    }
+
+    // method to update a product, index is the position of the product in getAllProducts()
+    public synchronized void updateProduct (int index, Product selectedProduct)
+    {
+        Product current = getAllProducts().get(index);
+
+        execute(new InventoryCommand.ProductChange(current, nextVersion(selectedProduct)));
+    }
+
+    /*
+     * Hooks for subclasses, called after each edit has been applied,
+     * while the edit still holds the inventory lock. They do nothing by default.
+     */
+
+    /**
+     * Called after a part was added, deleted or replaced.
+     *
+     * @param old the part replaced or deleted, null if it was added
+     * @param replacement the new part, null if it was deleted
+     */
+    protected void partChanged (Part old, Part replacement)
+    {
+    }
+
+    /**
+     * Called after a product was added, deleted or replaced.
+     *
+     * @param old the product replaced or deleted, null if it was added
+     * @param replacement the new product, null if it was deleted
+     */
+    protected void productChanged (Product old, Product replacement)
+    {
+    }
+
+    /**
+     * Called after the whole state was swapped, e.g. by restore() or its undo.
+     *
+     * @param snapshot the new state of the inventory
+     */
+    protected void stateChanged (InventorySnapshot snapshot)
+    {
+    }
+
+    /**
+     * Replaces a part, but only if it has not changed since the caller read it.
+     * The replacement may be of a different type, e.g. PartInHouse to PartOutsourced.
+     *
+     * @param partId the ID of the part being replaced
+     * @param expectedVersion the version of the part the caller read, from getVersion()
+     * @param newPart the replacement part, with the same ID, stored as a copy
+     * @return UPDATED with the replacement as stored, CONFLICT with the part as it is now,
+     *         or NOT_FOUND if there is no part with the ID
+     */
+    public synchronized UpdateResult<Part> updatePart (int partId, long expectedVersion,
+                                                       Part newPart)
+    {
+        Part current = lookupPart(partId);
+
+        if (current == null)
+            {
+            return new UpdateResult<>(UpdateResult.Status.NOT_FOUND, null);
+            }
+        if (current.getVersion() != expectedVersion)
+            {
+            return new UpdateResult<>(UpdateResult.Status.CONFLICT, current);
+            }
+        Part next = nextVersion(newPart);
+
+        execute(new InventoryCommand.PartChange(current, next, StockReason.ADJUSTMENT));
+
+        return new UpdateResult<>(UpdateResult.Status.UPDATED, next);
+    }
+
+    /**
+     * Replaces a product, but only if it has not changed since the caller read it.
+     *
+     * @param productId the ID of the product being replaced
+     * @param expectedVersion the version of the product the caller read, from getVersion()
+     * @param newProduct the replacement product, with the same ID, stored as a copy
+     * @return UPDATED with the replacement as stored, CONFLICT with the product as it is now,
+     *         or NOT_FOUND if there is no product with the ID
+     */
+    public synchronized UpdateResult<Product> updateProduct (int productId, long expectedVersion,
+                                                             Product newProduct)
+    {
+        Product current = lookupProduct(productId);
+
+        if (current == null)
+            {
+            return new UpdateResult<>(UpdateResult.Status.NOT_FOUND, null);
+            }
+        if (current.getVersion() != expectedVersion)
+            {
+            return new UpdateResult<>(UpdateResult.Status.CONFLICT, current);
+            }
+        Product next = nextVersion(newProduct);
+
+        execute(new InventoryCommand.ProductChange(current, next));
+
+        return new UpdateResult<>(UpdateResult.Status.UPDATED, next);
+    }
+
+    /*
+     * Functions applying the edits, called by InventoryCommand.
+     * These do not record anything in the history, so undo and redo can use them.
+     * The replacement of a new edit is stamped with its version when the edit is made;
+     * undo and redo put back a copy of theirs, stamped with nextVersion(), since the
+     * objects older snapshots hold must keep the versions they were read with.
+     */
+
+    /**
+     * Returns a copy of a part stamped with the next version, for an edit to store.
+     *
+     * @param part the part, null for none
+     * @return the copy, or null
+     */
+    Part nextVersion (Part part)
+    {
+        if (part == null)
+            {
+            return null;
+            }
+
+        Part next = part.copy();
+
+        next.setVersion(++lastVersion);
+
+        return next;
+    }
+
+    // returns a copy of a product stamped with the next version, or null for none
+    Product nextVersion (Product product)
+    {
+        if (product == null)
+            {
+            return null;
+            }
+
+        Product next = product.copy();
+
+        next.setVersion(++lastVersion);
+
+        return next;
+    }
+
+    /**
+     * Adds, deletes or replaces a part, keeping every structure in the inventory in step.
+     * The part replaced or deleted is the one held with the ID of old, so a stale
+     * copy of a part never leaves the part itself behind. Nothing is changed if the
+     * edit fails.
+     *
+     * @param old the part being replaced or deleted, null to add
+     * @param replacement the new part, null to delete
+     * @param reason the reason to record any stock movement under
+     * @throws IllegalArgumentException if there is no part with the ID of old,
+     *         or another part already has the ID of the replacement
+     */
+    void putPart (Part old, Part replacement, StockReason reason)
+    {
+        PersistentList<Part> parts  = state.getParts();
+        PersistentList<Part> byName = state.getPartsByName();
+
+        if (old != null)
+            {
+            int index = indexById(parts, Part::getId, old.getId(), "part");
+
+            old    = parts.get(index);
+            parts  = parts.remove(index);
+            byName = removeInOrder(byName, InventorySnapshot.PART_NAME_ORDER, old);
+            }
+        if (replacement != null)
+            {
+            parts  = insertById(parts, Part::getId, replacement, "part");
+            byName = insertInOrder(byName, InventorySnapshot.PART_NAME_ORDER, replacement);
+            Part.reserveId(replacement.getId());
+            }
+
+        // record the stock movement first, as one delta if the part kept its ID,
+        // so the ledger never misses a change the rest of the inventory shows
+        if ((old != null) && (replacement != null) && (old.getId() == replacement.getId()))
+            {
+            recordStock(old.getId(), replacement.getStock() - old.getStock(), reason);
+            }
+        else
+            {
+            if (old != null)
+                {
+                recordStock(old.getId(), -old.getStock(), reason);
+                }
+            if (replacement != null)
+                {
+                recordStock(replacement.getId(), replacement.getStock(), reason);
+                }
+            }
+        if (old != null)
+            {
+            this.lowStock.remove(old);
+            }
+        if (replacement != null)
+            {
+            this.lowStock.update(replacement);
+            }
+        this.facets.update(old, replacement);
+        this.index.update(old, replacement);
+        this.state = state.withParts(parts, byName);
+        partChanged(old, replacement);
+        publishPart(old, replacement);
+    }
+
+    /**
+     * Adds, deletes or replaces a product, found by ID as putPart() finds parts.
+     *
+     * @param old the product being replaced or deleted, null to add
+     * @param replacement the new product, null to delete
+     * @throws IllegalArgumentException if there is no product with the ID of old,
+     *         or another product already has the ID of the replacement
+     */
+    void putProduct (Product old, Product replacement)
+    {
+        PersistentList<Product> products = state.getProducts();
+        PersistentList<Product> byName   = state.getProductsByName();
+
+        if (old != null)
+            {
+            int index = indexById(products, Product::getId, old.getId(), "product");
+
+            old      = products.get(index);
+            products = products.remove(index);
+            byName   = removeInOrder(byName, InventorySnapshot.PRODUCT_NAME_ORDER, old);
+            }
+        if (replacement != null)
+            {
+            products = insertById(products, Product::getId, replacement, "product");
+            byName   = insertInOrder(byName, InventorySnapshot.PRODUCT_NAME_ORDER, replacement);
+            Product.reserveId(replacement.getId());
+            }
+        this.state = state.withProducts(products, byName);
+        productChanged(old, replacement);
+        publishProduct(old, replacement);
+    }
+
+    /**
+     * Swaps in a whole snapshot in one step, once the stock ledger, reorder monitor,
+     * facet counts and part index are brought in line with only the parts that differ.
+     * The parts and products which differ are swapped in as copies stamped with
+     * the next version, so the snapshot itself keeps the versions it was taken with.
+     *
+     * @param snapshot the new state of the inventory
+     */
+    void swapState (InventorySnapshot snapshot)
+    {
+        PersistentList<Part> parts  = snapshot.getParts();
+        PersistentList<Part> byName = snapshot.getPartsByName();
+        Iterator<Part>       now    = this.state.getParts().iterator();
+        Iterator<Part>       then   = parts.iterator();
+        Part                 a      = now.hasNext() ? now.next() : null;
+        Part                 b      = then.hasNext() ? then.next() : null;
+        int                  at     = 0;
+
+        // walk both ID ordered part lists together to find the parts that changed,
+        // recording their stock movements before the new state is swapped in
+        while ((a != null) || (b != null))
+            {
+            if ((b == null) || ((a != null) && (a.getId() < b.getId())))
+                {
+                // part is not in the new state
+                this.lowStock.remove(a);
+                this.facets.update(a, null);
+                this.index.update(a, null);
+                recordStock(a.getId(), -a.getStock(), StockReason.ADJUSTMENT);
+                a = now.hasNext() ? now.next() : null;
+                continue;
+                }
+
+            // same part ID in both, or only in the new state
+            Part old = ((a != null) && (a.getId() == b.getId())) ? a : null;
+
+            if (old != b)
+                {
+                Part entering = nextVersion(b);
+
+                parts  = parts.set(at, entering);
+                byName = replaceInOrder(byName, InventorySnapshot.PART_NAME_ORDER, b, entering);
+                this.lowStock.update(entering);
+                this.facets.update(old, entering);
+                this.index.update(old, entering);
+                recordStock(b.getId(), b.getStock() - ((old == null) ? 0 : old.getStock()),
+                            StockReason.ADJUSTMENT);
+                }
+            if (old != null)
+                {
+                a = now.hasNext() ? now.next() : null;
+                }
+            b = then.hasNext() ? then.next() : null;
+            at++;
+            }
+
+        PersistentList<Product> products       = snapshot.getProducts();
+        PersistentList<Product> productsByName = snapshot.getProductsByName();
+        Iterator<Product>       held           = this.state.getProducts().iterator();
+        Product                 c              = held.hasNext() ? held.next() : null;
+
+        // likewise for the products, which only need their versions stamped
+        at = 0;
+        for (Product d : snapshot.getProducts())
+            {
+            while ((c != null) && (c.getId() < d.getId()))
+                {
+                c = held.hasNext() ? held.next() : null;
+                }
+            if (c != d)
+                {
+                Product entering = nextVersion(d);
+
+                products       = products.set(at, entering);
+                productsByName = replaceInOrder(productsByName,
+                                                InventorySnapshot.PRODUCT_NAME_ORDER, d, entering);
+                }
+            at++;
+            }
+        snapshot = snapshot.withParts(parts, byName).withProducts(products, productsByName);
+
+        this.state = snapshot;
+        stateChanged(snapshot);
+        if (events.hasSubscribers())
+            {
+            events.publish(new InventoryEvent.Restored(++eventSequence, snapshot));
+            }
+    }
+
+    // sends the events describing a part change, if anyone is listening
+    private void publishPart (Part old, Part replacement)
+    {
+        if (!events.hasSubscribers())
+            {
+            return;
+            }
+        if ((old != null) && (replacement != null) && (old.getId() == replacement.getId()))
+            {
+            boolean stock   = old.getStock() != replacement.getStock();
+            boolean price   = Double.compare(old.getPrice(), replacement.getPrice()) != 0;
+            boolean details = !InventoryEvent.sameDetails(old, replacement);
+
+            if (stock)
+                {
+                events.publish(new InventoryEvent.StockChanged(++eventSequence, old, replacement));
+                }
+            if (price)
+                {
+                events.publish(new InventoryEvent.PriceChanged(++eventSequence, old, replacement));
+                }
+            if (details || !(stock || price))
+                {
+                events.publish(new InventoryEvent.PartUpdated(++eventSequence, old, replacement));
+                }
+
+            return;
+            }
+        if (old != null)
+            {
+            events.publish(new InventoryEvent.PartRemoved(++eventSequence, old));
+            }
+        if (replacement != null)
+            {
+            events.publish(new InventoryEvent.PartAdded(++eventSequence, replacement));
+            }
+    }
+
+    // sends the events describing a product change, if anyone is listening
+    private void publishProduct (Product old, Product replacement)
+    {
+        if (!events.hasSubscribers())
+            {
+            return;
+            }
+        if ((old != null) && (replacement != null) && (old.getId() == replacement.getId()))
+            {
+            boolean parts   = old.getAssociatedPartsSnapshot()
+                              != replacement.getAssociatedPartsSnapshot();
+            boolean details = !Objects.equals(old.getName(), replacement.getName())
+                              || (Double.compare(old.getPrice(), replacement.getPrice()) != 0)
+                              || (old.getStock() != replacement.getStock())
+                              || (old.getMin() != replacement.getMin())
+                              || (old.getMax() != replacement.getMax());
+
+            if (parts)
+                {
+                events.publish(new InventoryEvent.AssociationChanged(++eventSequence, old,
+                                                                     replacement));
+                }
+            if (details || !parts)
+                {
+                events.publish(new InventoryEvent.ProductUpdated(++eventSequence, old,
+                                                                 replacement));
+                }
+
+            return;
+            }
+        if (old != null)
+            {
+            events.publish(new InventoryEvent.ProductRemoved(++eventSequence, old));
+            }
+        if (replacement != null)
+            {
+            events.publish(new InventoryEvent.ProductAdded(++eventSequence, replacement));
+            }
+    }
+
+    // applies a new edit and records it in the history
+    private void execute (InventoryCommand command)
+    {
+        command.perform(this);
+        this.history.record(command);
+    }
+
+    // returns the position of the element with an ID in an ID ordered list, or throws
+    private static <E> int indexById (PersistentList<E> list, ToIntFunction<E> id, int key,
+                                      String type)
+    {
+        int index = list.indexOfKey(id, key);
+
+        if (index < 0)
+            {
+            throw new IllegalArgumentException("No " + type + " with ID " + key);
+            }
+
+        return index;
+    }
+
+    // returns a new ID ordered list with the element inserted in place, if its ID is free
+    private static <E> PersistentList<E> insertById (PersistentList<E> list, ToIntFunction<E> id,
+                                                     E element, String type)
+    {
+        int index = list.indexOfKey(id, id.applyAsInt(element));
+
+        if (index >= 0)
+            {
+            throw new IllegalArgumentException("Another " + type + " already has ID "
+                                               + id.applyAsInt(element));
+            }
+
+        return list.add(-index - 1, element);
+    }
+
+    // returns a new list, kept in the given order, with the element inserted
+    private static <E> PersistentList<E> insertInOrder (PersistentList<E> list,
+                                                        Comparator<? super E> order, E element)
+    {
+        int index = list.search((other) -> order.compare(other, element));
+
+        return list.add((index < 0) ? (-index - 1) : index, element);
+    }
+
+    // returns a new list, kept in the given order, with an element replaced by one sorting the same
+    private static <E> PersistentList<E> replaceInOrder (PersistentList<E> list,
+                                                         Comparator<? super E> order, E element,
+                                                         E replacement)
+    {
+        return list.set(list.search((other) -> order.compare(other, element)), replacement);
+    }
+
+    // returns a new list, kept in the given order, with the element removed
+    private static <E> PersistentList<E> removeInOrder (PersistentList<E> list,
+                                                        Comparator<? super E> order, E element)
+    {
+        int index = list.search((other) -> order.compare(other, element));
+
+        return ((index < 0) || (list.get(index) != element)) ? list : list.remove(index);
+    }
+
+    // replaces a part by a copy with its stock moved, if the new stock is in range
+    private Part moveStock (Part current, int delta, StockReason reason, boolean withinMax)
+    {
+        int stock;
+
+        try
+            {
+            stock = Math.addExact(current.getStock(), delta);
+            }
+        catch (ArithmeticException e)
+            {
+            throw new IllegalArgumentException("Stock of part " + current.getId()
+                                               + " would overflow, it is " + current.getStock());
+            }
+        if (stock < 0)
+            {
+            throw new IllegalArgumentException("Stock of part " + current.getId()
+                                               + " would fall below zero, it is "
+                                               + current.getStock());
+            }
+        if (withinMax && (delta > 0) && (stock > current.getMax()))
+            {
+            throw new IllegalArgumentException("Stock of part " + current.getId()
+                                               + " would rise above max of " + current.getMax()
+                                               + ", it is " + current.getStock());
+            }
+
+        Part moved = nextVersion(current);
+
+        moved.setStock(stock);
+        execute(new InventoryCommand.PartChange(current, moved, reason));
+
+        return moved;
+    }
+
+    // the part held with an ID, throws IllegalArgumentException if there is none
+    private Part storedPart (int partId)
+    {
+        PersistentList<Part> parts = state.getParts();
+
+        return parts.get(indexById(parts, Part::getId, partId, "part"));
+    }
+
+    // the product held with an ID, throws IllegalArgumentException if there is none
+    private Product storedProduct (int productId)
+    {
+        PersistentList<Product> products = state.getProducts();
+
+        return products.get(indexById(products, Product::getId, productId, "product"));
+    }
+
+    // appends a stock movement to the ledger, skipping movements of zero
+    private void recordStock (int partId, int delta, StockReason reason)
+    {
+        if (delta != 0)
+            {
+            this.ledger.append(partId, delta, reason, System.currentTimeMillis());
+            }
+    }
+
+    /**
+     * A snapshot ready to load, with everything load() builds from it already
+     * built, see prepareLoad().
+     */
+    public static final class PreparedLoad
+    {
+        private final Inventory         inventory;
+        private final InventorySnapshot base;
+        private final InventorySnapshot snapshot;
+        private final LowStockMonitor   lowStock = new LowStockMonitor();
+        private final PartFacets        facets   = new PartFacets();
+        private final PartIndex         index    = new PartIndex();
+        private final StockLedger       ledger   = new StockLedger();
+        private long                    lastVersion;
+        private boolean                 used;
+
+        // builds the structures of the snapshot, and its stock moves from the base
+        private PreparedLoad (Inventory inventory, InventorySnapshot base,
+                              InventorySnapshot snapshot)
+        {
+            Iterator<Part> now  = base.getParts().iterator();
+            Part           a    = now.hasNext() ? now.next() : null;
+            long           time = System.currentTimeMillis();
+
+            this.inventory = inventory;
+            this.base      = base;
+            this.snapshot  = snapshot;
+            for (Part b : snapshot.getParts())
+                {
+                lowStock.update(b);
+                facets.update(null, b);
+                index.update(null, b);
+                lastVersion = Math.max(lastVersion, b.getVersion());
+
+                // the parts of the base up to b, which are gone or replaced by it
+                int moved = b.getStock();
+
+                while ((a != null) && (a.getId() <= b.getId()))
+                    {
+                    if (a.getId() == b.getId())
+                        {
+                        moved -= a.getStock();
+                        }
+                    else if (a.getStock() != 0)
+                        {
+                        ledger.append(a.getId(), -a.getStock(), StockReason.INITIAL, time);
+                        }
+                    a = now.hasNext() ? now.next() : null;
+                    }
+                if (moved != 0)
+                    {
+                    ledger.append(b.getId(), moved, StockReason.INITIAL, time);
+                    }
+                }
+            for (; a != null; a = now.hasNext() ? now.next() : null)
+                {
+                if (a.getStock() != 0)
+                    {
+                    ledger.append(a.getId(), -a.getStock(), StockReason.INITIAL, time);
+                    }
+                }
+            for (Product product : snapshot.getProducts())
+                {
+                lastVersion = Math.max(lastVersion, product.getVersion());
+                }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *  Package: Model
+ *  File:    InventoryCommand.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+/**
+ * An InventoryCommand is one recorded edit of an Inventory, kept in its CommandLog.
+ * <p>
+ * Every edit is stored as a "before" and "after" reference, so a command can both
+ * apply and revert itself, and no part or product is ever copied to record it.
+ * An add has no "before", a delete has no "after". When the edit is redone,
+ * undone or replicated, what it puts in is a copy stamped with the next version
+ * of the inventory, so a version never comes back once it has been replaced.
+ * <p>
+ * Commands can also be applied to another Inventory, e.g. to replicate edits
+ * from a CommandLog listener.
+ *
+ * @author Justin Langley
+ */
+public abstract class InventoryCommand
+{
+    // commands are only created by Inventory
+    InventoryCommand ()
+    {
+    }
+
+    // apply the edit to an inventory
+    public abstract void apply (Inventory inventory);
+
+    // revert the edit on an inventory
+    public abstract void revert (Inventory inventory);
+
+    // apply the edit as it is made, storing its "after" as recorded, already stamped
+    void perform (Inventory inventory)
+    {
+        apply(inventory);
+    }
+
+    // a short description of the edit, e.g. for an audit log
+    @Override
+    public abstract String toString ();
+
+    // describes a change from "before" to "after", given the name of each
+    static String describe (String type, String before, String after)
+    {
+        if (before == null)
+            {
+            return "Add " + type + ": " + after;
+            }
+        if (after == null)
+            {
+            return "Delete " + type + ": " + before;
+            }
+
+        return "Update " + type + ": " + after;
+    }
+
+    // an add, delete or change of a part
+    static final class PartChange extends InventoryCommand
+    {
+        private final Part        before;
+        private final Part        after;
+        private final StockReason reason;
+
+        PartChange (Part before, Part after, StockReason reason)
+        {
+            this.before = before;
+            this.after  = after;
+            this.reason = reason;
+        }
+
+        @Override
+        public void apply (Inventory inventory)
+        {
+            inventory.putPart(before, inventory.nextVersion(after), reason);
+        }
+
+        @Override
+        public void revert (Inventory inventory)
+        {
+            // recorded under the same reason, so e.g. an undone pick is not consumption
+            inventory.putPart(after, inventory.nextVersion(before), reason);
+        }
+
+        @Override
+        void perform (Inventory inventory)
+        {
+            inventory.putPart(before, after, reason);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return describe("part",
+                            (before == null) ? null : before.getName(),
+                            (after == null) ? null : after.getName());
+        }
+    }
+
+    // an add, delete or change of a product, including changes to its associated parts
+    static final class ProductChange extends InventoryCommand
+    {
+        private final Product before;
+        private final Product after;
+
+        ProductChange (Product before, Product after)
+        {
+            this.before = before;
+            this.after  = after;
+        }
+
+        @Override
+        public void apply (Inventory inventory)
+        {
+            inventory.putProduct(before, inventory.nextVersion(after));
+        }
+
+        @Override
+        public void revert (Inventory inventory)
+        {
+            inventory.putProduct(after, inventory.nextVersion(before));
+        }
+
+        @Override
+        void perform (Inventory inventory)
+        {
+            inventory.putProduct(before, after);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return describe("product",
+                            (before == null) ? null : before.getName(),
+                            (after == null) ? null : after.getName());
+        }
+    }
+
+    // a roll back of the whole inventory to a snapshot
+    static final class Restore extends InventoryCommand
+    {
+        private final InventorySnapshot before;
+        private final InventorySnapshot after;
+
+        Restore (InventorySnapshot before, InventorySnapshot after)
+        {
+            this.before = before;
+            this.after  = after;
+        }
+
+        @Override
+        public void apply (Inventory inventory)
+        {
+            inventory.swapState(after);
+        }
+
+        @Override
+        public void revert (Inventory inventory)
+        {
+            inventory.swapState(before);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Restore inventory snapshot";
+        }
+    }
+}
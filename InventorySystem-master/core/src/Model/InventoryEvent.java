@@ -0,0 +1,324 @@
+/*
+ *  Package: Model
+ *  File:    InventoryEvent.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Objects;
+
+/**
+ * An InventoryEvent tells subscribers of Inventory.getEvents() what one edit changed.
+ * <p>
+ * Events carry the parts and products themselves, which are never changed once
+ * they are in the inventory, so a subscriber can read them on any thread.
+ * Each event has a sequence number, one higher than the event before it,
+ * so a subscriber can tell that it has seen every change.
+ * <p>
+ * A change to a part is split by what changed: StockChanged for its stock,
+ * PriceChanged for its price and PartUpdated for anything else, so a subscriber
+ * only interested in stock does not have to compare parts. One edit may send
+ * more than one of these, with consecutive sequence numbers.
+ *
+ * @author Justin Langley
+ */
+public abstract class InventoryEvent
+{
+    private final long sequence;
+
+    // events are only created by Inventory
+    InventoryEvent (long sequence)
+    {
+        this.sequence = sequence;
+    }
+
+    public final long getSequence ()
+    {
+        return this.sequence;
+    }
+
+    // whether two versions of a part differ in anything but stock, price and version
+    static boolean sameDetails (Part a, Part b)
+    {
+        if ((a.getClass() != b.getClass()) || !Objects.equals(a.getName(), b.getName())
+            || (a.getMin() != b.getMin()) || (a.getMax() != b.getMax()))
+            {
+            return false;
+            }
+        if (a instanceof PartInHouse)
+            {
+            return ((PartInHouse) a).getMachine() == ((PartInHouse) b).getMachine();
+            }
+        if (a instanceof PartOutsourced)
+            {
+            return ((PartOutsourced) a).getCompanyCode() == ((PartOutsourced) b).getCompanyCode();
+            }
+
+        return true;
+    }
+
+    // a part was added
+    public static final class PartAdded extends InventoryEvent
+    {
+        private final Part part;
+
+        PartAdded (long sequence, Part part)
+        {
+            super(sequence);
+            this.part = part;
+        }
+
+        public Part getPart ()
+        {
+            return this.part;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Part added: " + part.getName();
+        }
+    }
+
+    // a part was deleted
+    public static final class PartRemoved extends InventoryEvent
+    {
+        private final Part part;
+
+        PartRemoved (long sequence, Part part)
+        {
+            super(sequence);
+            this.part = part;
+        }
+
+        // the part as it was before it was deleted
+        public Part getPart ()
+        {
+            return this.part;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Part removed: " + part.getName();
+        }
+    }
+
+    // a part was replaced by its next version, the base of the events below
+    public abstract static class PartChanged extends InventoryEvent
+    {
+        private final Part before;
+        private final Part after;
+
+        PartChanged (long sequence, Part before, Part after)
+        {
+            super(sequence);
+            this.before = before;
+            this.after  = after;
+        }
+
+        public Part getAfter ()
+        {
+            return this.after;
+        }
+
+        public Part getBefore ()
+        {
+            return this.before;
+        }
+
+        public int getPartId ()
+        {
+            return after.getId();
+        }
+    }
+
+    // the stock of a part moved
+    public static final class StockChanged extends PartChanged
+    {
+        StockChanged (long sequence, Part before, Part after)
+        {
+            super(sequence, before, after);
+        }
+
+        // the change in stock, negative for consumption
+        public int getDelta ()
+        {
+            return getAfter().getStock() - getBefore().getStock();
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Stock changed: " + getAfter().getName() + " " + getBefore().getStock()
+                   + " -> " + getAfter().getStock();
+        }
+    }
+
+    // the price of a part changed
+    public static final class PriceChanged extends PartChanged
+    {
+        PriceChanged (long sequence, Part before, Part after)
+        {
+            super(sequence, before, after);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Price changed: " + getAfter().getName() + " " + getBefore().getPrice()
+                   + " -> " + getAfter().getPrice();
+        }
+    }
+
+    // anything else about a part changed, e.g. its name, limits or type
+    public static final class PartUpdated extends PartChanged
+    {
+        PartUpdated (long sequence, Part before, Part after)
+        {
+            super(sequence, before, after);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Part updated: " + getAfter().getName();
+        }
+    }
+
+    // a product was added
+    public static final class ProductAdded extends InventoryEvent
+    {
+        private final Product product;
+
+        ProductAdded (long sequence, Product product)
+        {
+            super(sequence);
+            this.product = product;
+        }
+
+        public Product getProduct ()
+        {
+            return this.product;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Product added: " + product.getName();
+        }
+    }
+
+    // a product was deleted
+    public static final class ProductRemoved extends InventoryEvent
+    {
+        private final Product product;
+
+        ProductRemoved (long sequence, Product product)
+        {
+            super(sequence);
+            this.product = product;
+        }
+
+        // the product as it was before it was deleted
+        public Product getProduct ()
+        {
+            return this.product;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Product removed: " + product.getName();
+        }
+    }
+
+    // a product was replaced by its next version, the base of the events below
+    public abstract static class ProductChanged extends InventoryEvent
+    {
+        private final Product before;
+        private final Product after;
+
+        ProductChanged (long sequence, Product before, Product after)
+        {
+            super(sequence);
+            this.before = before;
+            this.after  = after;
+        }
+
+        public Product getAfter ()
+        {
+            return this.after;
+        }
+
+        public Product getBefore ()
+        {
+            return this.before;
+        }
+
+        public int getProductId ()
+        {
+            return after.getId();
+        }
+    }
+
+    // the associated parts of a product changed
+    public static final class AssociationChanged extends ProductChanged
+    {
+        AssociationChanged (long sequence, Product before, Product after)
+        {
+            super(sequence, before, after);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Associated parts changed: " + getAfter().getName() + " "
+                   + getBefore().getAssociatedPartsSnapshot().size() + " -> "
+                   + getAfter().getAssociatedPartsSnapshot().size() + " parts";
+        }
+    }
+
+    // anything else about a product changed, including its price and stock
+    public static final class ProductUpdated extends ProductChanged
+    {
+        ProductUpdated (long sequence, Product before, Product after)
+        {
+            super(sequence, before, after);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Product updated: " + getAfter().getName();
+        }
+    }
+
+    /*
+     * The whole inventory was swapped for a snapshot, e.g. by restore() or its undo.
+     * No other events are sent for it, subscribers should reload from the snapshot.
+     */
+    public static final class Restored extends InventoryEvent
+    {
+        private final InventorySnapshot snapshot;
+
+        Restored (long sequence, InventorySnapshot snapshot)
+        {
+            super(sequence);
+            this.snapshot = snapshot;
+        }
+
+        public InventorySnapshot getSnapshot ()
+        {
+            return this.snapshot;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Inventory restored";
+        }
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ *  Package: Model
+ *  File:    InventoryGenerator.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic parts and products for demos, benchmarks and load tests.
+ * <p>
+ * The same seed and settings always generate the same inventory, so runs can be
+ * compared against each other. Parts and products are drawn from separate random
+ * streams, so changing the product settings does not change the parts.
+ * <p>
+ * The data is shaped like a real bill of materials:
+ * <ul>
+ * <li>a few suppliers and machines make most of the parts (Zipf distributed)</li>
+ * <li>prices are log-normal: many cheap parts, a long tail of expensive ones</li>
+ * <li>a share of the parts are at or below their min inventory</li>
+ * <li>products use between minFanOut and maxFanOut parts, the low part IDs
+ * being common parts shared by many products</li>
+ * <li>products are priced at a markup over the cost of their parts</li>
+ * </ul>
+ * Part IDs run from 1 to the part count, product IDs from 1 to the product count.
+ *
+ * @author Justin Langley
+ */
+public class InventoryGenerator
+{
+    // system properties read by fromProperties(), e.g. -Dinventory.parts=100000
+    public static final String SEED        = "inventory.seed";
+    public static final String PARTS       = "inventory.parts";
+    public static final String PRODUCTS    = "inventory.products";
+    public static final String COMPANIES   = "inventory.companies";
+    public static final String MACHINES    = "inventory.machines";
+    public static final String MIN_FAN_OUT = "inventory.minFanOut";
+    public static final String MAX_FAN_OUT = "inventory.maxFanOut";
+    public static final String PRICE_SKEW  = "inventory.priceSkew";
+
+    // first machine ID, in-house parts use the machines after it
+    private static final int FIRST_MACHINE = 100;
+
+    private static final String[] MATERIALS = {"aluminum", "brass", "carbon", "copper", "nylon",
+                                               "rubber", "stainless", "steel", "titanium"};
+    private static final String[] COMPONENTS = {"axle", "bearing", "bolt", "bracket", "cable",
+                                                "chain", "clamp", "gear", "grip", "hinge",
+                                                "hub", "lever", "nut", "pad", "pin", "plate",
+                                                "pulley", "rim", "rod", "screw", "seal",
+                                                "shaft", "spacer", "spoke", "spring",
+                                                "sprocket", "tube", "valve", "washer"};
+    private static final String[] LINES = {"bmx", "cargo", "city", "folding", "gravel", "kids",
+                                           "mountain", "road", "touring", "track"};
+    private static final String[] TYPES = {"bike", "scooter", "tricycle", "trailer", "wagon"};
+    private static final String[] BRANDS = {"Acme", "Allied", "Apex", "Atlas", "Keystone",
+                                            "Liberty", "Northern", "Pacific", "Pioneer",
+                                            "Precision", "Real", "Sterling", "Summit", "Titan",
+                                            "United", "Vertex"};
+    private static final String[] TRADES = {"Bearings, Inc.", "Components", "Fasteners",
+                                            "Industries", "Machining Co.", "Manufacturing",
+                                            "Metals", "Supply Co."};
+
+    private final long seed;
+    private int        partCount       = 40;
+    private int        productCount    = 8;
+    private int        companyCount    = 12;
+    private int        machineCount    = 24;
+    private int        minFanOut       = 3;
+    private int        maxFanOut       = 25;
+    private double     outsourcedShare = 0.5;     // share of parts bought from a company
+    private double     lowStockShare   = 0.1;     // share of parts at or below min inventory
+    private double     priceMedian     = 4.00;    // half of the parts cost less than this
+    private double     priceSkew       = 1.2;     // log-normal sigma, larger is a longer tail
+    private double     supplierSkew    = 1.0;     // Zipf exponent of companies and machines
+    private double     partReuseSkew   = 2.0;     // larger shares common parts more widely
+
+    public InventoryGenerator (long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a generator set up from properties, e.g. System.getProperties().
+     * Any property not given keeps its default.
+     *
+     * @param properties the properties holding the settings, see the constants above
+     * @return the generator
+     * @throws IllegalArgumentException if a property is not a valid number
+     */
+    public static InventoryGenerator fromProperties (Properties properties)
+    {
+        InventoryGenerator generator = new InventoryGenerator(
+            Long.parseLong(properties.getProperty(SEED, "20190808").trim()));
+
+        generator.setPartCount(intProperty(properties, PARTS, generator.partCount));
+        generator.setProductCount(intProperty(properties, PRODUCTS, generator.productCount));
+        generator.setCompanyCount(intProperty(properties, COMPANIES, generator.companyCount));
+        generator.setMachineCount(intProperty(properties, MACHINES, generator.machineCount));
+        generator.setFanOut(intProperty(properties, MIN_FAN_OUT, generator.minFanOut),
+                            intProperty(properties, MAX_FAN_OUT, generator.maxFanOut));
+        generator.setPriceSkew(Double.parseDouble(
+            properties.getProperty(PRICE_SKEW, String.valueOf(generator.priceSkew)).trim()));
+
+        return generator;
+    }
+
+    /**
+     * Generates the parts, in ID order.
+     *
+     * @return a new list of parts
+     */
+    public List<Part> generateParts ()
+    {
+        Random     random     = new Random(seed);
+        String[]   companies  = companyNames(random);
+        int[]      codes      = new int[companies.length];
+        double[]   byCompany  = zipf(companies.length, supplierSkew);
+        double[]   byMachine  = zipf(machineCount, supplierSkew);
+        List<Part> parts      = new ArrayList<>(partCount);
+
+        for (int c = 0; c < companies.length; c++)
+            {
+            codes[c] = SupplierDictionary.code(companies[c]);
+            }
+        for (int id = 1; id <= partCount; id++)
+            {
+            // the company code or the machine ID
+            boolean outsourced = random.nextDouble() < outsourcedShare;
+            int     source     = outsourced ? codes[pick(byCompany, random)]
+                                            : FIRST_MACHINE + pick(byMachine, random);
+
+            // cheap parts are kept in larger quantities
+            double price = cents(priceMedian * Math.exp(priceSkew * random.nextGaussian()));
+            int    scale = (price < 1) ? 400 : (price < 20) ? 120 : 30;
+            int    min   = 1 + random.nextInt(scale);
+            int    max   = min + scale / 2 + random.nextInt(scale * 2);
+            String name  = MATERIALS[random.nextInt(MATERIALS.length)] + " "
+                           + COMPONENTS[random.nextInt(COMPONENTS.length)];
+            int    stock = (random.nextDouble() < lowStockShare)
+                           ? min / 2 + random.nextInt(min - min / 2 + 1)
+                           : min + 1 + random.nextInt(max - min);
+
+            // the constructors taking an ID do not print, unlike those generating one
+            if (outsourced)
+                {
+                PartOutsourced part = new PartOutsourced(id, name, Math.max(0.01, price), stock,
+                                                         min, max, null);
+
+                // the company was added to SupplierDictionary above, set it by its code
+                part.setCompanyCode(source);
+                parts.add(part);
+                }
+            else
+                {
+                parts.add(new PartInHouse(id, name, Math.max(0.01, price), stock, min, max,
+                                          source));
+                }
+            }
+
+        return parts;
+    }
+
+    /**
+     * Generates the products, in ID order, with their associated parts.
+     *
+     * @param parts the parts to associate, in ID order, e.g. from generateParts()
+     * @return a new list of products
+     */
+    public List<Product> generateProducts (List<Part> parts)
+    {
+        // a separate stream, so the product settings do not change the parts
+        Random        random   = new Random(~seed);
+        List<Product> products = new ArrayList<>(productCount);
+
+        if (parts.isEmpty() && (minFanOut > 0))
+            {
+            throw new IllegalArgumentException("Products need parts to associate");
+            }
+
+        for (int id = 1; id <= productCount; id++)
+            {
+            int        fanOut = parts.isEmpty()
+                                ? 0
+                                : minFanOut + random.nextInt(maxFanOut - minFanOut + 1);
+            List<Part> bom    = new ArrayList<>(Math.min(fanOut, parts.size()));
+            Set<Part>  used   = new HashSet<>();
+            double     cost   = 0;
+
+            // low indexes come up most often, they are the common parts
+            for (int attempt = 0; (bom.size() < fanOut) && (attempt < fanOut * 4); attempt++)
+                {
+                Part part = parts.get((int) (parts.size()
+                                             * Math.pow(random.nextDouble(), partReuseSkew)));
+
+                if (used.add(part))
+                    {
+                    bom.add(part);
+                    cost += part.getPrice();
+                    }
+                }
+
+            // priced at a markup of 15% to 80% over the cost of the parts
+            String  name    = LINES[random.nextInt(LINES.length)] + " "
+                              + TYPES[random.nextInt(TYPES.length)] + " " + id;
+            double  price   = cents(cost * (1.15 + random.nextDouble() * 0.65));
+            int     min     = random.nextInt(20);
+            int     max     = min + 5 + random.nextInt(60);
+            Product product = new Product(id, name, price, min + random.nextInt(max - min + 1),
+                                          min, max);
+
+            // addAssociatedPart() prints every association, so set them all at once
+            product.setAssociatedParts(PersistentList.of(bom));
+            products.add(product);
+            }
+
+        return products;
+    }
+
+    /**
+     * Generates the parts and products and adds them to an inventory.
+     * Each is added as an edit, so the caller may want to clear its history afterwards.
+     *
+     * @param inventory the inventory to fill
+     */
+    public void populate (Inventory inventory)
+    {
+        List<Part> parts = generateParts();
+
+        for (Part part : parts)
+            {
+            inventory.addPart(part);
+            }
+        for (Product product : generateProducts(parts))
+            {
+            inventory.addProduct(product);
+            }
+    }
+
+    public void setCompanyCount (int companyCount)
+    {
+        this.companyCount = positive(companyCount, "Company count");
+    }
+
+    /**
+     * Sets the range of the number of parts associated with each product.
+     *
+     * @param minFanOut the fewest parts in a product
+     * @param maxFanOut the most parts in a product
+     */
+    public void setFanOut (int minFanOut, int maxFanOut)
+    {
+        if ((minFanOut < 0) || (maxFanOut < minFanOut))
+            {
+            throw new IllegalArgumentException("Invalid fan-out: " + minFanOut + " to "
+                                               + maxFanOut);
+            }
+        this.minFanOut = minFanOut;
+        this.maxFanOut = maxFanOut;
+    }
+
+    public void setLowStockShare (double lowStockShare)
+    {
+        this.lowStockShare = share(lowStockShare, "Low stock share");
+    }
+
+    public void setMachineCount (int machineCount)
+    {
+        this.machineCount = positive(machineCount, "Machine count");
+    }
+
+    public void setOutsourcedShare (double outsourcedShare)
+    {
+        this.outsourcedShare = share(outsourcedShare, "Outsourced share");
+    }
+
+    public void setPartCount (int partCount)
+    {
+        this.partCount = notNegative(partCount, "Part count");
+    }
+
+    // sets how much more common parts are reused than others, 1 for no preference
+    public void setPartReuseSkew (double partReuseSkew)
+    {
+        if (partReuseSkew < 1)
+            {
+            throw new IllegalArgumentException("Part reuse skew must be at least 1: "
+                                               + partReuseSkew);
+            }
+        this.partReuseSkew = partReuseSkew;
+    }
+
+    /**
+     * Sets the distribution of part prices.
+     *
+     * @param priceMedian the price half of the parts cost less than
+     */
+    public void setPriceMedian (double priceMedian)
+    {
+        if (!(priceMedian > 0))
+            {
+            throw new IllegalArgumentException("Price median must be positive: " + priceMedian);
+            }
+        this.priceMedian = priceMedian;
+    }
+
+    // sets the spread of part prices, 0 gives every part the median price
+    public void setPriceSkew (double priceSkew)
+    {
+        if (!(priceSkew >= 0))
+            {
+            throw new IllegalArgumentException("Price skew must not be negative: " + priceSkew);
+            }
+        this.priceSkew = priceSkew;
+    }
+
+    public void setProductCount (int productCount)
+    {
+        this.productCount = notNegative(productCount, "Product count");
+    }
+
+    // sets how strongly a few companies and machines dominate, 0 spreads parts evenly
+    public void setSupplierSkew (double supplierSkew)
+    {
+        if (!(supplierSkew >= 0))
+            {
+            throw new IllegalArgumentException("Supplier skew must not be negative: "
+                                               + supplierSkew);
+            }
+        this.supplierSkew = supplierSkew;
+    }
+
+    // rounds a price to whole cents
+    private static double cents (double price)
+    {
+        return Math.round(price * 100) / 100.0;
+    }
+
+    // returns distinct company names, e.g. "Atlas Fasteners", in a seeded order
+    private String[] companyNames (Random random)
+    {
+        String[] names = new String[companyCount];
+
+        for (int i = 0; i < companyCount; i++)
+            {
+            // every brand with every trade, the trade rotating so neighbours differ in both
+            int    combo = i % (BRANDS.length * TRADES.length);
+            int    brand = combo % BRANDS.length;
+            String name  = BRANDS[brand] + " "
+                           + TRADES[(brand + combo / BRANDS.length) % TRADES.length];
+
+            names[i] = (i < BRANDS.length * TRADES.length)
+                       ? name
+                       : name + " " + (i / (BRANDS.length * TRADES.length) + 1);
+            }
+
+        // shuffle, so the most common supplier is not always the first name
+        for (int i = companyCount - 1; i > 0; i--)
+            {
+            int    j    = random.nextInt(i + 1);
+            String swap = names[i];
+
+            names[i] = names[j];
+            names[j] = swap;
+            }
+
+        return names;
+    }
+
+    private static int intProperty (Properties properties, String key, int otherwise)
+    {
+        String value = properties.getProperty(key);
+
+        return (value == null) ? otherwise : Integer.parseInt(value.trim());
+    }
+
+    private static int notNegative (int count, String what)
+    {
+        if (count < 0)
+            {
+            throw new IllegalArgumentException(what + " must not be negative: " + count);
+            }
+
+        return count;
+    }
+
+    // returns a random index weighted by a cumulative distribution from zipf()
+    private static int pick (double[] cumulative, Random random)
+    {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+        return Math.min((index < 0) ? (-index - 1) : index, cumulative.length - 1);
+    }
+
+    private static int positive (int count, String what)
+    {
+        if (count < 1)
+            {
+            throw new IllegalArgumentException(what + " must be at least 1: " + count);
+            }
+
+        return count;
+    }
+
+    private static double share (double share, String what)
+    {
+        if (!((share >= 0) && (share <= 1)))
+            {
+            throw new IllegalArgumentException(what + " must be from 0 to 1: " + share);
+            }
+
+        return share;
+    }
+
+    // the cumulative Zipf distribution over n ranks, rank k weighted 1 / k^exponent
+    private static double[] zipf (int n, double exponent)
+    {
+        double[] cumulative = new double[n];
+        double   total      = 0;
+
+        for (int k = 0; k < n; k++)
+            {
+            total        += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+            }
+        for (int k = 0; k < n; k++)
+            {
+            cumulative[k] /= total;
+            }
+
+        return cumulative;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Package: Model
+ *  File:    InventorySnapshot.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable, point-in-time view of all parts and products in an Inventory.
+ * <p>
+ * Snapshots are taken with Inventory.snapshot() in O(1), since the persistent lists
+ * they hold share structure with the live inventory. They never change afterwards,
+ * so exporters and reports can walk them while the inventory is being edited,
+ * and Inventory.restore() can roll the inventory back to one.
+ * <p>
+ * Parts and products are held in ascending ID order, and again in name order
+ * (ignoring case, then by ID) as an index for paging, see Page.
+ *
+ * @author Justin Langley
+ */
+public final class InventorySnapshot
+{
+    // the order of the name indexes
+    public static final Comparator<Part>    PART_NAME_ORDER    =
+        (a, b) -> compareByName(a.getName(), a.getId(), b.getName(), b.getId());
+    public static final Comparator<Product> PRODUCT_NAME_ORDER =
+        (a, b) -> compareByName(a.getName(), a.getId(), b.getName(), b.getId());
+
+    // the snapshot of an empty inventory
+    static final InventorySnapshot EMPTY = new InventorySnapshot(PersistentList.empty(),
+                                                                 PersistentList.empty(),
+                                                                 PersistentList.empty(),
+                                                                 PersistentList.empty());
+    private final PersistentList<Part>    parts;
+    private final PersistentList<Product> products;
+    private final PersistentList<Part>    partsByName;
+    private final PersistentList<Product> productsByName;
+
+    InventorySnapshot (PersistentList<Part> parts, PersistentList<Product> products,
+                       PersistentList<Part> partsByName, PersistentList<Product> productsByName)
+    {
+        this.parts          = parts;
+        this.products       = products;
+        this.partsByName    = partsByName;
+        this.productsByName = productsByName;
+    }
+
+    /**
+     * Builds a snapshot of the given parts and products, e.g. ones loaded from
+     * storage or generated off the UI thread, for Inventory.load().
+     * The ID and name indexes are sorted with Arrays.parallelSort(), which
+     * splits a large sort over every core, and each index is then built in O(n).
+     *
+     * @param parts the parts, in any order
+     * @param products the products, in any order
+     * @return the snapshot
+     * @throws IllegalArgumentException if two parts, or two products, share an ID
+     */
+    public static InventorySnapshot of (Collection<? extends Part> parts,
+                                        Collection<? extends Product> products)
+    {
+        Part[]    partsById      = parts.toArray(new Part[0]);
+        Part[]    partsByName    = partsById.clone();
+        Product[] productsById   = products.toArray(new Product[0]);
+        Product[] productsByName = productsById.clone();
+
+        Arrays.parallelSort(partsById, Comparator.comparingInt(Part::getId));
+        Arrays.parallelSort(partsByName, PART_NAME_ORDER);
+        Arrays.parallelSort(productsById, Comparator.comparingInt(Product::getId));
+        Arrays.parallelSort(productsByName, PRODUCT_NAME_ORDER);
+        checkUnique(partsById, Part::getId, "part");
+        checkUnique(productsById, Product::getId, "product");
+
+        return new InventorySnapshot(PersistentList.of(Arrays.asList(partsById)),
+                                     PersistentList.of(Arrays.asList(productsById)),
+                                     PersistentList.of(Arrays.asList(partsByName)),
+                                     PersistentList.of(Arrays.asList(productsByName)));
+    }
+
+    // compares two rows of a name index, by name ignoring case, then by ID
+    static int compareByName (String name, int id, String otherName, int otherId)
+    {
+        int order = String.CASE_INSENSITIVE_ORDER.compare((name == null) ? "" : name,
+                                                          (otherName == null) ? "" : otherName);
+
+        return (order != 0) ? order : Integer.compare(id, otherId);
+    }
+
+    public PersistentList<Part> getParts ()
+    {
+        return this.parts;
+    }
+
+    // returns the parts in name order
+    public PersistentList<Part> getPartsByName ()
+    {
+        return this.partsByName;
+    }
+
+    public PersistentList<Product> getProducts ()
+    {
+        return this.products;
+    }
+
+    // returns the products in name order
+    public PersistentList<Product> getProductsByName ()
+    {
+        return this.productsByName;
+    }
+
+    /**
+     * Reads a page of parts in ID order.
+     *
+     * @param id the ID to read after or before, e.g. of the last part of the previous page;
+     *        Integer.MIN_VALUE reads from the first part, Integer.MAX_VALUE up to the last
+     * @param direction which side of the ID to read
+     * @param limit the most parts to read
+     * @return the page of parts
+     */
+    public Page<Part> pagePartsById (int id, Page.Direction direction, int limit)
+    {
+        return Page.read(parts, (part) -> Integer.compare(part.getId(), id), direction, limit);
+    }
+
+    /**
+     * Reads a page of parts in name order.
+     *
+     * @param name the name to read after or before, e.g. of the last part of the previous page;
+     *        null reads from the first part (AFTER) or up to the last (BEFORE)
+     * @param id the ID of that part, which orders parts sharing a name
+     * @param direction which side of the name to read
+     * @param limit the most parts to read
+     * @return the page of parts
+     */
+    public Page<Part> pagePartsByName (String name, int id, Page.Direction direction, int limit)
+    {
+        return Page.read(partsByName,
+                         (name == null)
+                         ? null
+                         : (part) -> compareByName(part.getName(), part.getId(), name, id),
+                         direction, limit);
+    }
+
+    // reads a page of products in ID order, as pagePartsById()
+    public Page<Product> pageProductsById (int id, Page.Direction direction, int limit)
+    {
+        return Page.read(products, (product) -> Integer.compare(product.getId(), id), direction,
+                         limit);
+    }
+
+    // reads a page of products in name order, as pagePartsByName()
+    public Page<Product> pageProductsByName (String name, int id, Page.Direction direction,
+                                             int limit)
+    {
+        return Page.read(productsByName,
+                         (name == null)
+                         ? null
+                         : (product) -> compareByName(product.getName(), product.getId(), name,
+                                                      id),
+                         direction, limit);
+    }
+
+    // returns a snapshot with the parts replaced
+    InventorySnapshot withParts (PersistentList<Part> parts, PersistentList<Part> partsByName)
+    {
+        return new InventorySnapshot(parts, this.products, partsByName, this.productsByName);
+    }
+
+    // returns a snapshot with the products replaced
+    InventorySnapshot withProducts (PersistentList<Product> products,
+                                    PersistentList<Product> productsByName)
+    {
+        return new InventorySnapshot(this.parts, products, this.partsByName, productsByName);
+    }
+
+    // throws if two rows of an ID ordered array share an ID
+    private static <E> void checkUnique (E[] byId, ToIntFunction<E> id, String kind)
+    {
+        for (int i = 1; i < byId.length; i++)
+            {
+            if (id.applyAsInt(byId[i - 1]) == id.applyAsInt(byId[i]))
+                {
+                throw new IllegalArgumentException("Duplicate " + kind + " ID: "
+                                                   + id.applyAsInt(byId[i]));
+                }
+            }
+    }
+}
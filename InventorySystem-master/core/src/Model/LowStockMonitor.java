@@ -0,0 +1,324 @@
+/*
+ *  Package: Model
+ *  File:    LowStockMonitor.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The LowStockMonitor class keeps track of every part whose stock has fallen to
+ * or below its minimum inventory level.
+ * <p>
+ * Parts are held in an indexed binary heap, ordered by how far below min each part is
+ * (min - stock), so the part most in need of reordering is always at the top.
+ * A map from part ID to heap slot lets a single part be re-positioned or removed
+ * in O(log n) whenever its stock changes, without ever scanning the full part list.
+ * <p>
+ * The Inventory class calls update() and remove() on every part mutation.
+ * <p>
+ * The heap is changed under the Inventory lock but read from other threads (the
+ * status label, the CLI and batch results), so every method locks the monitor itself.
+ * A caller needing two reads to agree, such as size() and peek(), holds that lock
+ * around both, as with Collections.synchronizedList(). The onChange callback runs
+ * after the lock is let go, so it may read the monitor from any thread.
+ *
+ * @author Justin Langley
+ * @version 1.0
+ */
+public class LowStockMonitor
+{
+    // heap of parts needing reorder, and their priority (how far below min) in parallel
+    private Part[] heap     = new Part[16];
+    private int[]  deficits = new int[16];
+    private int    size     = 0;
+
+    // part ID -> index of the part in the heap
+    private final Map<Integer, Integer> slots = new HashMap<>();
+
+    // callback to run whenever the set of parts needing reorder changes
+    private volatile Runnable onChange;
+
+    /**
+     * Returns how far below its minimum a part currently is.
+     * Zero means the part is exactly at min, a negative value means it is above min.
+     *
+     * @param part the part being checked
+     * @return min - stock
+     */
+    public static int deficit (Part part)
+    {
+        return part.getMin() - part.getStock();
+    }
+
+    /**
+     * Returns the suggested quantity to reorder for a part,
+     * enough to bring the part back up to its maximum inventory level.
+     *
+     * @param part the part being reordered
+     * @return max - stock, or 0 if stock is already at or above max
+     */
+    public static int suggestedReorderQty (Part part)
+    {
+        return Math.max(0, part.getMax() - part.getStock());
+    }
+
+    /**
+     * Returns all parts needing reorder, most urgent first.
+     * Only the parts held by the monitor are sorted, the inventory is never scanned.
+     *
+     * @return a new List of parts at or below min
+     */
+    public synchronized List<Part> getReorderParts ()
+    {
+        Part[] sorted = Arrays.copyOf(heap, size);
+
+        Arrays.sort(sorted, (a, b) -> compare(deficit(a), a.getId(), deficit(b), b.getId()));
+
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    // returns true if the part is currently at or below its min
+    public synchronized boolean needsReorder (Part part)
+    {
+        return slots.containsKey(part.getId());
+    }
+
+    /**
+     * Returns the part furthest below its minimum, without removing it
+     *
+     * @return the most urgent part, or null if no parts need reorder
+     */
+    public synchronized Part peek ()
+    {
+        return (size == 0) ? null : heap[0];
+    }
+
+    /**
+     * Removes a part from the monitor, used when a part is deleted from the inventory
+     *
+     * @param part the part being removed
+     */
+    public void remove (Part part)
+    {
+        synchronized (this)
+            {
+            Integer slot = slots.get(part.getId());
+
+            if (slot == null)
+                {
+                return;
+                }
+            removeAt(slot);
+            }
+        changed();
+    }
+
+    // sets a callback which runs whenever the parts needing reorder change
+    public void setOnChange (Runnable onChange)
+    {
+        this.onChange = onChange;
+    }
+
+    // takes over the callback of a monitor this one replaces, and runs it
+    void takeOver (LowStockMonitor old)
+    {
+        this.onChange = old.onChange;
+        changed();
+    }
+
+    // the number of parts needing reorder
+    public synchronized int size ()
+    {
+        return this.size;
+    }
+
+    /**
+     * Inserts, re-positions or removes a part depending on its current stock.
+     * Must be called each time a part is added or its stock, min or max change.
+     * Parts are matched by ID, so a replacement Part object with the same ID
+     * takes the place of the one already in the heap.
+     *
+     * @param part the added or changed part
+     */
+    public void update (Part part)
+    {
+        synchronized (this)
+            {
+            int     deficit = deficit(part);
+            Integer slot    = slots.get(part.getId());
+
+            if (slot == null)
+                {
+                if (deficit < 0)
+                    {
+                    // part is above min and was not being tracked, nothing to do
+                    return;
+                    }
+
+                // part has fallen to or below min, add it to the bottom of the heap
+                grow();
+                heap[size]     = part;
+                deficits[size] = deficit;
+                slots.put(part.getId(), size);
+                size++;
+                siftUp(size - 1);
+                }
+            else if (deficit < 0)
+                {
+                // part was restocked above min, stop tracking it
+                removeAt(slot);
+                }
+            else
+                {
+                // part is still low, store the new object and re-position it
+                int old = deficits[slot];
+
+                heap[slot]     = part;
+                deficits[slot] = deficit;
+                if (deficit > old)
+                    {
+                    siftUp(slot);
+                    }
+                else
+                    {
+                    siftDown(slot);
+                    }
+                }
+            }
+        changed();
+    }
+
+    // notify the callback of a change, outside the lock
+    private void changed ()
+    {
+        Runnable callback = this.onChange;
+
+        if (callback != null)
+            {
+            callback.run();
+            }
+    }
+
+    // orders by larger deficit first, then by lower part ID for a stable order
+    private static int compare (int deficitA, int idA, int deficitB, int idB)
+    {
+        if (deficitA != deficitB)
+            {
+            return Integer.compare(deficitB, deficitA);
+            }
+
+        return Integer.compare(idA, idB);
+    }
+
+    // returns true if the part in slot i should sit above the part in slot j
+    private boolean higher (int i, int j)
+    {
+        return compare(deficits[i], heap[i].getId(), deficits[j], heap[j].getId()) < 0;
+    }
+
+    // double the heap arrays when full
+    private void grow ()
+    {
+        if (size == heap.length)
+            {
+            heap     = Arrays.copyOf(heap, size * 2);
+            deficits = Arrays.copyOf(deficits, size * 2);
+            }
+    }
+
+    // removes the part at a slot by moving the last part into it and re-positioning
+    private void removeAt (int slot)
+    {
+        int last = size - 1;
+
+        slots.remove(heap[slot].getId());
+        if (slot != last)
+            {
+            // fill the gap with the last part, then let it find its place
+            Part moved = heap[last];
+
+            move(last, slot);
+            heap[last] = null;
+            size--;
+            siftUp(slot);
+            siftDown(slots.get(moved.getId()));
+            }
+        else
+            {
+            heap[last] = null;
+            size--;
+            }
+    }
+
+    // moves the part in slot "from" to slot "to", keeping the ID map in step
+    private void move (int from, int to)
+    {
+        heap[to]     = heap[from];
+        deficits[to] = deficits[from];
+        slots.put(heap[to].getId(), to);
+    }
+
+    // moves the part at slot i down until neither child should sit above it
+    private void siftDown (int i)
+    {
+        while (true)
+            {
+            int left    = 2 * i + 1;
+            int right   = left + 1;
+            int highest = i;
+
+            if ((left < size) && higher(left, highest))
+                {
+                highest = left;
+                }
+            if ((right < size) && higher(right, highest))
+                {
+                highest = right;
+                }
+            if (highest == i)
+                {
+                return;
+                }
+            swap(i, highest);
+            i = highest;
+            }
+    }
+
+    // moves the part at slot i up until its parent should sit above it
+    private void siftUp (int i)
+    {
+        while (i > 0)
+            {
+            int parent = (i - 1) / 2;
+
+            if (!higher(i, parent))
+                {
+                return;
+                }
+            swap(i, parent);
+            i = parent;
+            }
+    }
+
+    // swaps two slots in the heap, keeping the ID map in step
+    private void swap (int i, int j)
+    {
+        Part p = heap[i];
+        int  d = deficits[i];
+
+        heap[i]     = heap[j];
+        deficits[i] = deficits[j];
+        heap[j]     = p;
+        deficits[j] = d;
+        slots.put(heap[i].getId(), i);
+        slots.put(heap[j].getId(), j);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Package: Model
+ *  File:    Page.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A Page is a run of rows read from an index of an InventorySnapshot,
+ * starting just after or just before a key (keyset pagination).
+ * <p>
+ * The next page is read from the key of the last row, the previous page from the
+ * key of the first. Since rows are found by key, not by position, adding or deleting
+ * rows between two reads does not skip or repeat any, and each read costs
+ * O(log n + limit) however deep into the index it starts.
+ *
+ * @author Justin Langley
+ * @param <E> the type of rows
+ */
+public final class Page<E>
+{
+    // which side of the key a page is read from
+    public enum Direction
+    {
+        AFTER,
+        BEFORE
+    }
+
+    private final List<E> items;
+    private final boolean more;
+
+    private Page (List<E> items, boolean more)
+    {
+        this.items = items;
+        this.more  = more;
+    }
+
+    /**
+     * Reads a page from an ordered list.
+     *
+     * @param list the index, in ascending order
+     * @param compareToKey compares a row to the key, as for PersistentList.search(),
+     *        or null to read from the start (AFTER) or end (BEFORE) of the index
+     * @param direction which side of the key to read
+     * @param limit the most rows to read
+     * @return the page, in ascending order either way
+     */
+    static <E> Page<E> read (PersistentList<E> list, ToIntFunction<? super E> compareToKey,
+                             Direction direction, int limit)
+    {
+        if (limit < 1)
+            {
+            throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+            }
+
+        int from;
+        int to;
+
+        if (direction == Direction.AFTER)
+            {
+            int index = (compareToKey == null) ? -1 : list.search(compareToKey);
+
+            // the key's own row was the last one read, start after it
+            from = (index < 0) ? (-index - 1) : (index + 1);
+            to   = (int) Math.min((long) from + limit, list.size());
+            }
+        else
+            {
+            int index = (compareToKey == null) ? -list.size() - 1 : list.search(compareToKey);
+
+            to   = (index < 0) ? (-index - 1) : index;
+            from = Math.max(to - limit, 0);
+            }
+
+        List<E>     items = new ArrayList<>(to - from);
+        Iterator<E> rows  = list.iterator(from);
+
+        // one walk down to the first row, then O(1) per row, rather than get() for each
+        for (int i = from; i < to; i++)
+            {
+            items.add(rows.next());
+            }
+
+        boolean more = (direction == Direction.AFTER) ? (to < list.size()) : (from > 0);
+
+        return new Page<>(Collections.unmodifiableList(items), more);
+    }
+
+    // the rows of the page, in ascending order
+    public List<E> getItems ()
+    {
+        return this.items;
+    }
+
+    // whether there are more rows beyond this page, in the direction it was read
+    public boolean hasMore ()
+    {
+        return this.more;
+    }
+
+    public boolean isEmpty ()
+    {
+        return items.isEmpty();
+    }
+}
@@ -16,11 +16,11 @@ public abstract class Part
      *  static allows it to be used by other instances of Part
      *  must be left as default package private for child classes to have access
      *
-     *  if the test payload is removed from MainController.java,
-     *  adjust this to desired start number for auto-generating IDs
+     *  Inventory moves it past the ID of every part added, see reserveId(),
+     *  so parts loaded or generated with their own IDs are never given out again
      *  also check Product.java for it's ID generation properties
      */
-    static int     partIdCount = 38;
+    static int     partIdCount = 1;
     private String name;
     private double price;
 
@@ -30,6 +30,9 @@ public abstract class Part
     private int min;
     private int stock;
 
+    // stamped by Inventory, from a sequence which only goes up, each time this part is stored
+    private long version;
+
     public Part ()
     {
         // default constructor, required for program to compile
@@ -46,6 +49,23 @@ public abstract class Part
         setMax(max);
     }
 
+    // makes sure an ID in use is not auto-generated for a new part
+    static synchronized void reserveId (int id)
+    {
+        if (id >= partIdCount)
+            {
+            partIdCount = id + 1;
+            }
+    }
+
+    /**
+     * Returns a new part of the same type with the same ID and data.
+     * Used by Inventory to change a part without touching the object held by snapshots.
+     *
+     * @return a copy of this part
+     */
+    public abstract Part copy ();
+
     public final int getId ()
     {
         return this.id;
@@ -76,6 +96,11 @@ public abstract class Part
         return this.stock;
     }
 
+    public final long getVersion ()
+    {
+        return this.version;
+    }
+
     public final void setId (int id)
     {
         this.id = id;
@@ -105,4 +130,10 @@ public abstract class Part
     {
         this.stock = stock;
     }
+
+    // only Inventory sets versions, when it stores a part or product
+    final void setVersion (long version)
+    {
+        this.version = version;
+    }
 }
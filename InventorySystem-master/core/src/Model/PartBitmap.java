@@ -0,0 +1,667 @@
+/*
+ *  Package: Model
+ *  File:    PartBitmap.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * The PartBitmap class is a compressed set of part IDs, used by PartIndex to
+ * answer attribute filters with word-level AND and OR.
+ * <p>
+ * IDs are split into chunks of 65,536 by their upper 16 bits, and only the chunks
+ * holding an ID are stored, each in the smaller of two forms:
+ * <pre>
+ * sparse    up to 4,096 IDs, as a sorted char[] of their lower 16 bits, 2 bytes per ID
+ * dense     more IDs, as 1,024 long words, one bit per possible ID, 8 KB per chunk
+ * </pre>
+ * and() and or() combine two bitmaps chunk by chunk: two dense chunks 64 IDs per
+ * word operation, a sparse chunk against a dense one by probing single bits, and
+ * two sparse chunks by merging. Chunks only one side has are skipped by and(),
+ * so intersecting with a small set costs little however large the other is.
+ * <p>
+ * Not thread safe, PartIndex guards the bitmaps it holds.
+ *
+ * @author Justin Langley
+ */
+public final class PartBitmap
+{
+    // the most IDs a sparse chunk holds, at which point the dense form is no larger
+    private static final int MAX_SPARSE = 4096;
+
+    // the words of a dense chunk, 65,536 bits
+    private static final int WORDS = 1024;
+
+    // the upper 16 bits of each chunk, ascending, and the chunks in parallel
+    private char[]  keys   = new char[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int     size;
+
+    /**
+     * Adds an ID.
+     *
+     * @param id the part ID
+     * @return true if the ID was not already in the bitmap
+     */
+    public boolean add (int id)
+    {
+        int slot = find((char) (id >>> 16));
+
+        if (slot < 0)
+            {
+            slot = -slot - 1;
+            insertChunk(slot, (char) (id >>> 16), new Chunk(new char[4], null, 0));
+            }
+
+        return chunks[slot].add((char) id);
+    }
+
+    /**
+     * Returns the IDs in both bitmaps.
+     *
+     * @param a a bitmap
+     * @param b another bitmap
+     * @return a new bitmap
+     */
+    public static PartBitmap and (PartBitmap a, PartBitmap b)
+    {
+        PartBitmap result = new PartBitmap();
+        int        i      = 0;
+        int        j      = 0;
+
+        while ((i < a.size) && (j < b.size))
+            {
+            if (a.keys[i] < b.keys[j])
+                {
+                i++;
+                }
+            else if (a.keys[i] > b.keys[j])
+                {
+                j++;
+                }
+            else
+                {
+                Chunk both = a.chunks[i].and(b.chunks[j]);
+
+                if (both.cardinality > 0)
+                    {
+                    result.insertChunk(result.size, a.keys[i], both);
+                    }
+                i++;
+                j++;
+                }
+            }
+
+        return result;
+    }
+
+    // the number of IDs
+    public int cardinality ()
+    {
+        int cardinality = 0;
+
+        for (int c = 0; c < size; c++)
+            {
+            cardinality += chunks[c].cardinality;
+            }
+
+        return cardinality;
+    }
+
+    public boolean contains (int id)
+    {
+        int slot = find((char) (id >>> 16));
+
+        return (slot >= 0) && chunks[slot].contains((char) id);
+    }
+
+    // a copy, which can be changed without changing this bitmap
+    public PartBitmap copy ()
+    {
+        PartBitmap copy = new PartBitmap();
+
+        copy.keys   = Arrays.copyOf(keys, Math.max(size, 4));
+        copy.chunks = new Chunk[copy.keys.length];
+        copy.size   = size;
+        for (int c = 0; c < size; c++)
+            {
+            copy.chunks[c] = chunks[c].copy();
+            }
+
+        return copy;
+    }
+
+    // runs an action on every ID, in ascending order
+    public void forEach (IntConsumer action)
+    {
+        for (int c = 0; c < size; c++)
+            {
+            chunks[c].forEach(keys[c] << 16, action);
+            }
+    }
+
+    public boolean isEmpty ()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Iterates the IDs in ascending order, finding each only when it is asked for,
+     * so a reader wanting the first few IDs of a large bitmap can stop early.
+     * The bitmap must not change while it is iterated.
+     *
+     * @return an iterator over the IDs
+     */
+    public PrimitiveIterator.OfInt iterator ()
+    {
+        return new PrimitiveIterator.OfInt()
+        {
+            private int slot  = 0;     // the chunk being read
+            private int from  = 0;     // the lower 16 bits to look for the next ID from
+            private int found = -1;    // the lower 16 bits of the next ID, -1 if not found yet
+
+            @Override
+            public boolean hasNext ()
+            {
+                while ((found < 0) && (slot < size))
+                    {
+                    found = chunks[slot].next(from);
+                    if (found < 0)
+                        {
+                        slot++;
+                        from = 0;
+                        }
+                    }
+
+                return found >= 0;
+            }
+
+            @Override
+            public int nextInt ()
+            {
+                if (!hasNext())
+                    {
+                    throw new NoSuchElementException();
+                    }
+
+                int id = (keys[slot] << 16) | found;
+
+                from  = found + 1;
+                found = -1;
+
+                return id;
+            }
+        };
+    }
+
+    /**
+     * Returns the IDs in either bitmap.
+     *
+     * @param a a bitmap
+     * @param b another bitmap
+     * @return a new bitmap
+     */
+    public static PartBitmap or (PartBitmap a, PartBitmap b)
+    {
+        PartBitmap result = new PartBitmap();
+        int        i      = 0;
+        int        j      = 0;
+
+        while ((i < a.size) || (j < b.size))
+            {
+            if ((j == b.size) || ((i < a.size) && (a.keys[i] < b.keys[j])))
+                {
+                result.insertChunk(result.size, a.keys[i], a.chunks[i].copy());
+                i++;
+                }
+            else if ((i == a.size) || (a.keys[i] > b.keys[j]))
+                {
+                result.insertChunk(result.size, b.keys[j], b.chunks[j].copy());
+                j++;
+                }
+            else
+                {
+                result.insertChunk(result.size, a.keys[i], a.chunks[i].or(b.chunks[j]));
+                i++;
+                j++;
+                }
+            }
+
+        return result;
+    }
+
+    /**
+     * Removes an ID.
+     *
+     * @param id the part ID
+     * @return true if the ID was in the bitmap
+     */
+    public boolean remove (int id)
+    {
+        int slot = find((char) (id >>> 16));
+
+        if ((slot < 0) || !chunks[slot].remove((char) id))
+            {
+            return false;
+            }
+        if (chunks[slot].cardinality == 0)
+            {
+            // drop the empty chunk
+            System.arraycopy(keys, slot + 1, keys, slot, size - slot - 1);
+            System.arraycopy(chunks, slot + 1, chunks, slot, size - slot - 1);
+            size--;
+            chunks[size] = null;
+            }
+
+        return true;
+    }
+
+    // the IDs, ascending
+    public int[] toArray ()
+    {
+        int[] ids  = new int[cardinality()];
+        int[] next = new int[1];
+
+        forEach(id -> ids[next[0]++] = id);
+
+        return ids;
+    }
+
+    @Override
+    public String toString ()
+    {
+        return "PartBitmap of " + cardinality() + " IDs in " + size + " chunks";
+    }
+
+    // the slot of the chunk with a key, or -(insertion point) - 1 if there is none
+    private int find (char key)
+    {
+        int low  = 0;
+        int high = size - 1;
+
+        // IDs mostly grow, so check the last chunk first
+        if ((size > 0) && (keys[high] == key))
+            {
+            return high;
+            }
+        while (low <= high)
+            {
+            int mid = (low + high) >>> 1;
+
+            if (keys[mid] < key)
+                {
+                low = mid + 1;
+                }
+            else if (keys[mid] > key)
+                {
+                high = mid - 1;
+                }
+            else
+                {
+                return mid;
+                }
+            }
+
+        return -(low + 1);
+    }
+
+    private void insertChunk (int slot, char key, Chunk chunk)
+    {
+        if (size == keys.length)
+            {
+            keys   = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+            }
+        System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+        System.arraycopy(chunks, slot, chunks, slot + 1, size - slot);
+        keys[slot]   = key;
+        chunks[slot] = chunk;
+        size++;
+    }
+
+    /*
+     * One chunk of 65,536 possible IDs, by their lower 16 bits. It is sparse, holding
+     * the sorted values, or dense, holding the words, never both.
+     */
+    private static final class Chunk
+    {
+        private char[] values;
+        private long[] words;
+        private int    cardinality;
+
+        private Chunk (char[] values, long[] words, int cardinality)
+        {
+            this.values      = values;
+            this.words       = words;
+            this.cardinality = cardinality;
+        }
+
+        private boolean add (char low)
+        {
+            if (words != null)
+                {
+                long bit = 1L << low;
+
+                if ((words[low >>> 6] & bit) != 0)
+                    {
+                    return false;
+                    }
+                words[low >>> 6] |= bit;
+                cardinality++;
+
+                return true;
+                }
+
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+
+            if (at >= 0)
+                {
+                return false;
+                }
+            if (cardinality == MAX_SPARSE)
+                {
+                toDense();
+
+                return add(low);
+                }
+            at = -at - 1;
+            if (cardinality == values.length)
+                {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, MAX_SPARSE));
+                }
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = low;
+            cardinality++;
+
+            return true;
+        }
+
+        private Chunk and (Chunk other)
+        {
+            if ((words != null) && (other.words != null))
+                {
+                long[] both  = new long[WORDS];
+                int    count = 0;
+
+                for (int w = 0; w < WORDS; w++)
+                    {
+                    both[w] = words[w] & other.words[w];
+                    count  += Long.bitCount(both[w]);
+                    }
+
+                return dense(both, count);
+                }
+            if (words != null)
+                {
+                return other.and(this);
+                }
+
+            // this one is sparse, keep the values the other one holds
+            char[] both  = new char[Math.max(cardinality, 4)];
+            int    count = 0;
+
+            if (other.words != null)
+                {
+                for (int v = 0; v < cardinality; v++)
+                    {
+                    if (other.contains(values[v]))
+                        {
+                        both[count++] = values[v];
+                        }
+                    }
+                }
+            else
+                {
+                int i = 0;
+                int j = 0;
+
+                while ((i < cardinality) && (j < other.cardinality))
+                    {
+                    if (values[i] < other.values[j])
+                        {
+                        i++;
+                        }
+                    else if (values[i] > other.values[j])
+                        {
+                        j++;
+                        }
+                    else
+                        {
+                        both[count++] = values[i];
+                        i++;
+                        j++;
+                        }
+                    }
+                }
+
+            return new Chunk(both, null, count);
+        }
+
+        private boolean contains (char low)
+        {
+            if (words != null)
+                {
+                return (words[low >>> 6] & (1L << low)) != 0;
+                }
+
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        private Chunk copy ()
+        {
+            return (words != null) ? new Chunk(null, words.clone(), cardinality)
+                                   : new Chunk(Arrays.copyOf(values, Math.max(cardinality, 4)),
+                                               null, cardinality);
+        }
+
+        private void forEach (int high, IntConsumer action)
+        {
+            if (words == null)
+                {
+                for (int v = 0; v < cardinality; v++)
+                    {
+                    action.accept(high | values[v]);
+                    }
+
+                return;
+                }
+            for (int w = 0; w < WORDS; w++)
+                {
+                long word = words[w];
+
+                while (word != 0)
+                    {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                    }
+                }
+        }
+
+        // the first value at or after from, or -1 if there is none
+        private int next (int from)
+        {
+            if (from > Character.MAX_VALUE)
+                {
+                return -1;
+                }
+            if (words == null)
+                {
+                int at = Arrays.binarySearch(values, 0, cardinality, (char) from);
+
+                at = (at < 0) ? (-at - 1) : at;
+
+                return (at < cardinality) ? values[at] : -1;
+                }
+
+            int  w    = from >>> 6;
+            long word = words[w] & (-1L << from);
+
+            while (word == 0)
+                {
+                if (++w == WORDS)
+                    {
+                    return -1;
+                    }
+                word = words[w];
+                }
+
+            return (w << 6) | Long.numberOfTrailingZeros(word);
+        }
+
+        private Chunk or (Chunk other)
+        {
+            if ((words != null) || (other.words != null))
+                {
+                Chunk  dense  = (words != null) ? this : other;
+                Chunk  rest   = (dense == this) ? other : this;
+                long[] either = dense.words.clone();
+                int    count;
+
+                if (rest.words != null)
+                    {
+                    count = 0;
+                    for (int w = 0; w < WORDS; w++)
+                        {
+                        either[w] |= rest.words[w];
+                        count     += Long.bitCount(either[w]);
+                        }
+                    }
+                else
+                    {
+                    count = dense.cardinality;
+                    for (int v = 0; v < rest.cardinality; v++)
+                        {
+                        char low = rest.values[v];
+                        long bit = 1L << low;
+
+                        if ((either[low >>> 6] & bit) == 0)
+                            {
+                            either[low >>> 6] |= bit;
+                            count++;
+                            }
+                        }
+                    }
+
+                return new Chunk(null, either, count);
+                }
+
+            // both sparse, merge the values
+            char[] either = new char[Math.max(cardinality + other.cardinality, 4)];
+            int    count  = 0;
+            int    i      = 0;
+            int    j      = 0;
+
+            while ((i < cardinality) || (j < other.cardinality))
+                {
+                if ((j == other.cardinality) || ((i < cardinality) && (values[i] < other.values[j])))
+                    {
+                    either[count++] = values[i++];
+                    }
+                else if ((i == cardinality) || (values[i] > other.values[j]))
+                    {
+                    either[count++] = other.values[j++];
+                    }
+                else
+                    {
+                    either[count++] = values[i];
+                    i++;
+                    j++;
+                    }
+                }
+
+            Chunk merged = new Chunk(either, null, count);
+
+            if (count > MAX_SPARSE)
+                {
+                merged.toDense();
+                }
+
+            return merged;
+        }
+
+        private boolean remove (char low)
+        {
+            if (words != null)
+                {
+                long bit = 1L << low;
+
+                if ((words[low >>> 6] & bit) == 0)
+                    {
+                    return false;
+                    }
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+
+                // back to sparse well below the limit, so IDs coming and going at it do not flip the form
+                if (cardinality <= MAX_SPARSE / 2)
+                    {
+                    toSparse();
+                    }
+
+                return true;
+                }
+
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+
+            if (at < 0)
+                {
+                return false;
+                }
+            System.arraycopy(values, at + 1, values, at, cardinality - at - 1);
+            cardinality--;
+
+            return true;
+        }
+
+        // a chunk of the words, sparse if it holds few enough IDs
+        private static Chunk dense (long[] words, int cardinality)
+        {
+            Chunk chunk = new Chunk(null, words, cardinality);
+
+            if (cardinality <= MAX_SPARSE)
+                {
+                chunk.toSparse();
+                }
+
+            return chunk;
+        }
+
+        private void toDense ()
+        {
+            long[] bits = new long[WORDS];
+
+            for (int v = 0; v < cardinality; v++)
+                {
+                bits[values[v] >>> 6] |= 1L << values[v];
+                }
+            words  = bits;
+            values = null;
+        }
+
+        private void toSparse ()
+        {
+            char[] sparse = new char[Math.max(cardinality, 4)];
+            int    next   = 0;
+
+            for (int w = 0; w < WORDS; w++)
+                {
+                long word = words[w];
+
+                while (word != 0)
+                    {
+                    sparse[next++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                    }
+                }
+            values = sparse;
+            words  = null;
+        }
+    }
+}
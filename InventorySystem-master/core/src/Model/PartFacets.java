@@ -0,0 +1,228 @@
+/*
+ *  Package: Model
+ *  File:    PartFacets.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PartFacets class counts the parts of each supplier (outsourced parts, by
+ * company name) and each machine (in-house parts, by machine ID), with their
+ * total stock and the total value of that stock.
+ * <p>
+ * The counts are kept up to date one part at a time: a changed part is taken out
+ * of the counts of its old supplier or machine and added to those of its new one.
+ * Reading a facet is O(1) and listing them is O(facets), the parts are never scanned.
+ * Values are summed in whole cents, so adding and taking out parts never drifts.
+ * Suppliers are counted by their code in SupplierDictionary, so finding the
+ * facet of a part never hashes its company name.
+ * <p>
+ * The Inventory class calls update() on every part mutation, under its lock.
+ * Readers, e.g. API requests, may call from any thread.
+ *
+ * @author Justin Langley
+ */
+public class PartFacets
+{
+    // suppliers are listed by name, ignoring case
+    private static final Comparator<String> NAME_ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    // company code or machine ID -> counts, a facet is dropped when its last part goes
+    private final Map<Integer, Counts> suppliers = new HashMap<>();
+    private final Map<Integer, Counts> machines  = new HashMap<>();
+
+    /**
+     * Returns the value of a part's stock in cents, as counted in the facets.
+     *
+     * @param part the part
+     * @return price * stock, in cents
+     */
+    public static long value (Part part)
+    {
+        return Math.round(part.getPrice() * 100) * part.getStock();
+    }
+
+    // the counts of one machine, or null if no in-house part uses it
+    public synchronized Facet<Integer> getMachine (int machineId)
+    {
+        return facet(machines, machineId);
+    }
+
+    // the counts of every machine in use, by machine ID
+    public synchronized List<Facet<Integer>> getMachines ()
+    {
+        return facets(machines, Comparator.naturalOrder());
+    }
+
+    // the counts of one supplier, or null if no outsourced part comes from it
+    public synchronized Facet<String> getSupplier (String companyName)
+    {
+        Counts counts = suppliers.get(SupplierDictionary.lookup(companyName));
+
+        return (counts == null) ? null : new Facet<>(key(companyName), counts);
+    }
+
+    // the counts of every supplier, by company name
+    public synchronized List<Facet<String>> getSuppliers ()
+    {
+        List<Facet<String>> list = new ArrayList<>(suppliers.size());
+
+        for (Map.Entry<Integer, Counts> entry : suppliers.entrySet())
+            {
+            list.add(new Facet<>(key(SupplierDictionary.name(entry.getKey())), entry.getValue()));
+            }
+        list.sort((a, b) -> NAME_ORDER.compare(a.getKey(), b.getKey()));
+
+        return list;
+    }
+
+    /**
+     * Moves a part's counts from its old facet to its new one.
+     * Must be called each time a part is added, deleted or replaced.
+     *
+     * @param old the part replaced or deleted, null if it was added
+     * @param replacement the new part, null if it was deleted
+     */
+    public synchronized void update (Part old, Part replacement)
+    {
+        if (old != null)
+            {
+            count(old, -1);
+            }
+        if (replacement != null)
+            {
+            count(replacement, 1);
+            }
+    }
+
+    // adds a part to the counts of its facet, or takes it out with sign -1
+    private void count (Part part, int sign)
+    {
+        if (part instanceof PartOutsourced)
+            {
+            count(suppliers, ((PartOutsourced) part).getCompanyCode(), part, sign);
+            }
+        else if (part instanceof PartInHouse)
+            {
+            count(machines, ((PartInHouse) part).getMachine(), part, sign);
+            }
+    }
+
+    private static <K> void count (Map<K, Counts> facets, K key, Part part, int sign)
+    {
+        Counts counts = facets.get(key);
+
+        if (counts == null)
+            {
+            counts = new Counts();
+            facets.put(key, counts);
+            }
+        counts.parts += sign;
+        counts.stock += sign * (long) part.getStock();
+        counts.value += sign * value(part);
+        if (counts.parts == 0)
+            {
+            facets.remove(key);
+            }
+    }
+
+    private static <K> Facet<K> facet (Map<K, Counts> facets, K key)
+    {
+        Counts counts = facets.get(key);
+
+        return (counts == null) ? null : new Facet<>(key, counts);
+    }
+
+    private static <K> List<Facet<K>> facets (Map<K, Counts> facets, Comparator<K> order)
+    {
+        List<Facet<K>> list = new ArrayList<>(facets.size());
+
+        for (Map.Entry<K, Counts> entry : facets.entrySet())
+            {
+            list.add(new Facet<>(entry.getKey(), entry.getValue()));
+            }
+        list.sort((a, b) -> order.compare(a.getKey(), b.getKey()));
+
+        return list;
+    }
+
+    // parts without a company name are counted under ""
+    private static String key (String companyName)
+    {
+        return (companyName == null) ? "" : companyName;
+    }
+
+    // the running counts of one facet
+    private static final class Counts
+    {
+        private int  parts;
+        private long stock;
+        private long value;
+    }
+
+    /**
+     * The counts of one supplier or machine, as they were when it was read.
+     *
+     * @param <K> the company name, or the machine ID
+     */
+    public static final class Facet<K>
+    {
+        private final K    key;
+        private final int  parts;
+        private final long stock;
+        private final long value;
+
+        private Facet (K key, Counts counts)
+        {
+            this.key   = key;
+            this.parts = counts.parts;
+            this.stock = counts.stock;
+            this.value = counts.value;
+        }
+
+        // the company name or machine ID
+        public K getKey ()
+        {
+            return this.key;
+        }
+
+        // the number of parts
+        public int getParts ()
+        {
+            return this.parts;
+        }
+
+        // the total stock of the parts
+        public long getStock ()
+        {
+            return this.stock;
+        }
+
+        // the total value of the stock
+        public double getValue ()
+        {
+            return this.value / 100.0;
+        }
+
+        // the total value of the stock, in cents
+        public long getValueCents ()
+        {
+            return this.value;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return key + ": " + parts + " parts, " + stock + " in stock worth " + getValue();
+        }
+    }
+}
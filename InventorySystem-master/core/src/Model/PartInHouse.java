@@ -40,7 +40,21 @@ public class PartInHouse extends Part
         this.setMin(min);
         this.setMax(max);
         setMachineId(machineId);
-        System.out.println("New part with ID: " + this.getId());
+    }
+
+    // copy constructor, used by copy()
+    private PartInHouse (PartInHouse part)
+    {
+        super(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+              part.getMax());
+        setVersion(part.getVersion());
+        setMachineId(part.getMachine());
+    }
+
+    @Override
+    public PartInHouse copy ()
+    {
+        return new PartInHouse(this);
     }
 
     public final int getMachine ()
@@ -0,0 +1,323 @@
+/*
+ *  Package: Model
+ *  File:    PartIndex.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The PartIndex class keeps a PartBitmap of part IDs for each value of the
+ * attributes parts are filtered by:
+ * <pre>
+ * in-house, outsourced      the type of the part
+ * low stock                 at or below its min, as LowStockMonitor counts it
+ * supplier                  one bitmap per company, by its SupplierDictionary code
+ * machine                   one bitmap per machine ID
+ * </pre>
+ * A filter such as "outsourced AND low stock AND supplier 12" is answered by
+ * intersecting those bitmaps with word-level AND, smallest first, without reading
+ * a single part; alternatives, e.g. machine 3 OR 7, are merged with OR.
+ * <p>
+ * The bitmaps are kept up to date one part at a time, and a change which leaves
+ * an attribute as it was, e.g. a stock move above min, does not touch its bitmap.
+ * The Inventory class calls update() on every part mutation, under its lock.
+ * Readers, e.g. searches and API requests, may call select() from any thread.
+ *
+ * @author Justin Langley
+ */
+public class PartIndex
+{
+    // the bitmaps of the attributes with a fixed set of values
+    private final PartBitmap inHouse    = new PartBitmap();
+    private final PartBitmap outsourced = new PartBitmap();
+    private final PartBitmap lowStock   = new PartBitmap();
+
+    // company code or machine ID -> the parts with it, dropped when its last part goes
+    private final Map<Integer, PartBitmap> suppliers = new HashMap<>();
+    private final Map<Integer, PartBitmap> machines  = new HashMap<>();
+
+    /**
+     * Returns the IDs of the parts matching a filter, as of the call.
+     * The parts themselves may have changed by the time the caller reads them,
+     * which Filter.test() can check.
+     *
+     * @param filter the filter
+     * @return a new bitmap of part IDs
+     */
+    public synchronized PartBitmap select (Filter filter)
+    {
+        PartBitmap ids = filter.bitmap(this);
+
+        // a single attribute's bitmap is the index's own, and must not be handed out
+        return (filter instanceof Term) ? ids.copy() : ids;
+    }
+
+    /**
+     * Moves a part's ID between the bitmaps of its old and new attribute values.
+     * Must be called each time a part is added, deleted or replaced.
+     *
+     * @param old the part replaced or deleted, null if it was added
+     * @param replacement the new part, null if it was deleted
+     */
+    public synchronized void update (Part old, Part replacement)
+    {
+        PartBitmap[] was  = (old == null) ? new PartBitmap[0] : bitmaps(old);
+        PartBitmap[] will = (replacement == null) ? new PartBitmap[0] : bitmaps(replacement);
+        boolean      same = (old != null) && (replacement != null)
+                            && (old.getId() == replacement.getId());
+
+        for (PartBitmap bitmap : was)
+            {
+            if (!same || !holds(will, bitmap))
+                {
+                bitmap.remove(old.getId());
+                }
+            }
+        for (PartBitmap bitmap : will)
+            {
+            if (!same || !holds(was, bitmap))
+                {
+                bitmap.add(replacement.getId());
+                }
+            }
+        if (old instanceof PartOutsourced)
+            {
+            dropIfEmpty(suppliers, ((PartOutsourced) old).getCompanyCode());
+            }
+        else if (old instanceof PartInHouse)
+            {
+            dropIfEmpty(machines, ((PartInHouse) old).getMachine());
+            }
+    }
+
+    // the bitmaps a part belongs in, creating its supplier or machine bitmap if needed
+    private PartBitmap[] bitmaps (Part part)
+    {
+        PartBitmap type;
+        PartBitmap group;
+
+        if (part instanceof PartOutsourced)
+            {
+            type  = outsourced;
+            group = suppliers.computeIfAbsent(((PartOutsourced) part).getCompanyCode(),
+                                              code -> new PartBitmap());
+            }
+        else if (part instanceof PartInHouse)
+            {
+            type  = inHouse;
+            group = machines.computeIfAbsent(((PartInHouse) part).getMachine(),
+                                             machine -> new PartBitmap());
+            }
+        else
+            {
+            return lowStock(part) ? new PartBitmap[] {lowStock} : new PartBitmap[0];
+            }
+
+        return lowStock(part) ? new PartBitmap[] {type, group, lowStock}
+                              : new PartBitmap[] {type, group};
+    }
+
+    // drops the bitmap of a supplier or machine which lost its last part
+    private static void dropIfEmpty (Map<Integer, PartBitmap> groups, int key)
+    {
+        PartBitmap bitmap = groups.get(key);
+
+        if ((bitmap != null) && bitmap.isEmpty())
+            {
+            groups.remove(key);
+            }
+    }
+
+    private static boolean holds (PartBitmap[] bitmaps, PartBitmap bitmap)
+    {
+        for (PartBitmap held : bitmaps)
+            {
+            if (held == bitmap)
+                {
+                return true;
+                }
+            }
+
+        return false;
+    }
+
+    private static boolean lowStock (Part part)
+    {
+        return LowStockMonitor.deficit(part) >= 0;
+    }
+
+    // the bitmap of a supplier or machine, or an empty one
+    private static PartBitmap group (Map<Integer, PartBitmap> groups, int key)
+    {
+        PartBitmap bitmap = groups.get(key);
+
+        return (bitmap == null) ? new PartBitmap() : bitmap;
+    }
+
+    /**
+     * A condition on the attributes of a part, built from the terms and combined
+     * with and() and or(), e.g.
+     * <pre>
+     * Filter.and(Filter.outsourced(), Filter.lowStock(), Filter.supplier(code))
+     * </pre>
+     */
+    public abstract static class Filter
+    {
+        private Filter ()
+        {
+        }
+
+        // parts matching every one of the filters
+        public static Filter and (Filter... filters)
+        {
+            return new Combined(true, filters);
+        }
+
+        // in-house parts
+        public static Filter inHouse ()
+        {
+            return new Term(index -> index.inHouse, part -> part instanceof PartInHouse);
+        }
+
+        // parts at or below their min
+        public static Filter lowStock ()
+        {
+            return new Term(index -> index.lowStock, PartIndex::lowStock);
+        }
+
+        // in-house parts made on a machine
+        public static Filter machine (int machineId)
+        {
+            return new Term(index -> group(index.machines, machineId),
+                            part -> (part instanceof PartInHouse)
+                                    && (((PartInHouse) part).getMachine() == machineId));
+        }
+
+        // parts matching any one of the filters
+        public static Filter or (Filter... filters)
+        {
+            return new Combined(false, filters);
+        }
+
+        // outsourced parts
+        public static Filter outsourced ()
+        {
+            return new Term(index -> index.outsourced, part -> part instanceof PartOutsourced);
+        }
+
+        // outsourced parts from a company, by its code in SupplierDictionary
+        public static Filter supplier (int companyCode)
+        {
+            return new Term(index -> group(index.suppliers, companyCode),
+                            part -> (part instanceof PartOutsourced)
+                                    && (((PartOutsourced) part).getCompanyCode() == companyCode));
+        }
+
+        /**
+         * Checks one part against the filter, e.g. to drop parts which changed
+         * after select() found them.
+         *
+         * @param part the part
+         * @return true if the part matches
+         */
+        public abstract boolean test (Part part);
+
+        // the IDs matching the filter, the index's own bitmap for a single term
+        abstract PartBitmap bitmap (PartIndex index);
+    }
+
+    // one attribute value, read straight from the index
+    private static final class Term extends Filter
+    {
+        private final Function<PartIndex, PartBitmap> bitmap;
+        private final Predicate<Part>                 test;
+
+        private Term (Function<PartIndex, PartBitmap> bitmap,
+                      Predicate<Part> test)
+        {
+            this.bitmap = bitmap;
+            this.test   = test;
+        }
+
+        @Override
+        public boolean test (Part part)
+        {
+            return test.test(part);
+        }
+
+        @Override
+        PartBitmap bitmap (PartIndex index)
+        {
+            return bitmap.apply(index);
+        }
+    }
+
+    // filters joined by AND or OR
+    private static final class Combined extends Filter
+    {
+        private final boolean  all;
+        private final Filter[] filters;
+
+        private Combined (boolean all, Filter[] filters)
+        {
+            if (filters.length == 0)
+                {
+                throw new IllegalArgumentException("Nothing to combine");
+                }
+            this.all     = all;
+            this.filters = filters.clone();
+        }
+
+        @Override
+        public boolean test (Part part)
+        {
+            for (Filter filter : filters)
+                {
+                if (filter.test(part) != all)
+                    {
+                    return !all;
+                    }
+                }
+
+            return all;
+        }
+
+        @Override
+        PartBitmap bitmap (PartIndex index)
+        {
+            PartBitmap[] bitmaps = new PartBitmap[filters.length];
+
+            for (int f = 0; f < filters.length; f++)
+                {
+                bitmaps[f] = filters[f].bitmap(index);
+                }
+            if (all)
+                {
+                // intersect the smallest first, so the running result stays small
+                Arrays.sort(bitmaps, Comparator.comparingInt(PartBitmap::cardinality));
+                }
+
+            PartBitmap result = bitmaps[0];
+            boolean    fresh  = false;
+
+            for (int b = 1; (b < bitmaps.length) && !(all && result.isEmpty()); b++)
+                {
+                result = all ? PartBitmap.and(result, bitmaps[b])
+                             : PartBitmap.or(result, bitmaps[b]);
+                fresh  = true;
+                }
+
+            // never hand out a bitmap of the index itself
+            return fresh ? result : result.copy();
+        }
+    }
+}
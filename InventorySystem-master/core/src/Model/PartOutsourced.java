@@ -0,0 +1,80 @@
+
+/*
+ *  Package: Model
+ *  File:    PartOutsourced.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+public class PartOutsourced extends Part
+{
+    // private data element, the company of an outsourced part, as its code in SupplierDictionary
+    private int companyCode;
+
+    // constructor overload for auto-generated id
+    public PartOutsourced (String name, double price, int stock, int min, int max,
+                           String companyName)
+    {
+        this.companyCode = SupplierDictionary.code(companyName);
+        this.setId(partIdCount);
+        this.setName(name);
+        this.setPrice(price);
+        this.setStock(stock);
+        this.setMin(min);
+        this.setMax(max);
+        partIdCount++;
+        System.out.println("New part with ID: " + this.getId());
+    }
+
+    // parameterized constructor
+    public PartOutsourced (int id, String name, double price, int stock, int min, int max,
+                           String companyName)
+    {
+        this.companyCode = SupplierDictionary.code(companyName);
+        this.setId(id);
+        this.setName(name);
+        this.setPrice(price);
+        this.setStock(stock);
+        this.setMin(min);
+        this.setMax(max);
+    }
+
+    // copy constructor, used by copy()
+    private PartOutsourced (PartOutsourced part)
+    {
+        super(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+              part.getMax());
+        setVersion(part.getVersion());
+        this.companyCode = part.getCompanyCode();
+    }
+
+    @Override
+    public PartOutsourced copy ()
+    {
+        return new PartOutsourced(this);
+    }
+
+    // the code of the company in SupplierDictionary, the same for every part of the company
+    public int getCompanyCode ()
+    {
+        return this.companyCode;
+    }
+
+    public String getCompanyName ()
+    {
+        return SupplierDictionary.name(this.companyCode);
+    }
+
+    public void setCompanyCode (int companyCode)
+    {
+        SupplierDictionary.name(companyCode);
+        this.companyCode = companyCode;
+    }
+
+    public void setCompanyName (String companyName)
+    {
+        this.companyCode = SupplierDictionary.code(companyName);
+    }
+}
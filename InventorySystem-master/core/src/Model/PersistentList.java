@@ -0,0 +1,497 @@
+/*
+ *  Package: Model
+ *  File:    PersistentList.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * The PersistentList class is an immutable list. Every "modifying" method returns
+ * a new list and leaves the original untouched.
+ * <p>
+ * It is a balanced (AVL) tree where each node also stores the size of its subtree,
+ * so get, set, add and remove at any position take O(log n). A modified list copies
+ * only the nodes on the path to the change and shares the rest with the original,
+ * which makes holding on to an old version (a snapshot) cost O(1).
+ * <p>
+ * Lists kept in order of an integer key (e.g. part ID) can also be searched
+ * by that key in O(log n) with indexOfKey(), and lists in any other order with search().
+ *
+ * @author Justin Langley
+ * @version 1.0
+ * @param <E> the type of elements held
+ */
+public final class PersistentList<E> implements Iterable<E>
+{
+    private static final PersistentList<Object> EMPTY = new PersistentList<>(null);
+    private final Node<E>                       root;
+
+    private PersistentList (Node<E> root)
+    {
+        this.root = root;
+    }
+
+    // returns the shared empty list
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty ()
+    {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Builds a list holding the given elements, in iteration order, in O(n).
+     *
+     * @param elements the elements to copy
+     * @return a new list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> of (Iterable<? extends E> elements)
+    {
+        ArrayList<E> copy = new ArrayList<>();
+
+        elements.forEach(copy::add);
+
+        return new PersistentList<>(build((E[]) copy.toArray(), 0, copy.size() - 1));
+    }
+
+    // returns a new list with an element added to the end
+    public PersistentList<E> add (E element)
+    {
+        return add(size(), element);
+    }
+
+    // returns a new list with an element inserted at an index
+    public PersistentList<E> add (int index, E element)
+    {
+        if ((index < 0) || (index > size()))
+            {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+
+        return new PersistentList<>(insert(root, index, element));
+    }
+
+    /**
+     * Returns a read-only java.util.List view of this list, for code expecting a List.
+     * The view never changes, as this list never changes.
+     *
+     * @return an unmodifiable List backed by this list
+     */
+    public List<E> asList ()
+    {
+        return new AbstractList<E>()
+        {
+            @Override
+            public E get (int index)
+            {
+                return PersistentList.this.get(index);
+            }
+
+            @Override
+            public Iterator<E> iterator ()
+            {
+                return PersistentList.this.iterator();
+            }
+
+            @Override
+            public int size ()
+            {
+                return PersistentList.this.size();
+            }
+        };
+    }
+
+    // returns the element at an index
+    public E get (int index)
+    {
+        checkIndex(index);
+
+        Node<E> node = root;
+
+        while (true)
+            {
+            int leftSize = size(node.left);
+
+            if (index < leftSize)
+                {
+                node = node.left;
+                }
+            else if (index > leftSize)
+                {
+                index -= leftSize + 1;
+                node  =  node.right;
+                }
+            else
+                {
+                return node.value;
+                }
+            }
+    }
+
+    // returns the index of the first element equal to o, or -1
+    public int indexOf (Object o)
+    {
+        int index = 0;
+
+        for (E element : this)
+            {
+            if ((o == null) ? (element == null) : o.equals(element))
+                {
+                return index;
+                }
+            index++;
+            }
+
+        return -1;
+    }
+
+    /**
+     * Binary searches a list kept in ascending order of an integer key.
+     * Works like Collections.binarySearch, but walks the tree directly in O(log n).
+     *
+     * @param key function returning the key of an element
+     * @param k the key being searched for
+     * @return the index of an element with the key,
+     *         otherwise (-(insertion point) - 1)
+     */
+    public int indexOfKey (ToIntFunction<? super E> key, int k)
+    {
+        Node<E> node   = root;
+        int     offset = 0;
+
+        while (node != null)
+            {
+            int nodeKey  = key.applyAsInt(node.value);
+            int leftSize = size(node.left);
+
+            if (k < nodeKey)
+                {
+                node = node.left;
+                }
+            else if (k > nodeKey)
+                {
+                offset += leftSize + 1;
+                node   =  node.right;
+                }
+            else
+                {
+                return offset + leftSize;
+                }
+            }
+
+        return -offset - 1;
+    }
+
+    /**
+     * Binary searches a list kept in any ascending order, e.g. by name then ID.
+     * The comparison is given as a function, so no element has to be built
+     * to search for, e.g. part -> compare(part.getName(), name).
+     *
+     * @param compareToKey function returning a negative number, zero or a positive
+     *        number as an element sorts before, at or after the key being searched for
+     * @return the index of an element at the key,
+     *         otherwise (-(insertion point) - 1)
+     */
+    public int search (ToIntFunction<? super E> compareToKey)
+    {
+        Node<E> node   = root;
+        int     offset = 0;
+
+        while (node != null)
+            {
+            int order    = compareToKey.applyAsInt(node.value);
+            int leftSize = size(node.left);
+
+            if (order > 0)
+                {
+                node = node.left;
+                }
+            else if (order < 0)
+                {
+                offset += leftSize + 1;
+                node   =  node.right;
+                }
+            else
+                {
+                return offset + leftSize;
+                }
+            }
+
+        return -offset - 1;
+    }
+
+    public boolean isEmpty ()
+    {
+        return root == null;
+    }
+
+    // iterates the elements in order, without copying them
+    @Override
+    public Iterator<E> iterator ()
+    {
+        return iterator(0);
+    }
+
+    /**
+     * Iterates the elements in order, starting at an index.
+     * Finding the start takes O(log n), each element after it O(1) on average,
+     * so reading a run of k elements costs O(log n + k) rather than k calls to get().
+     *
+     * @param from the index of the first element returned, up to size()
+     * @return an iterator over the elements from the index on
+     */
+    public Iterator<E> iterator (int from)
+    {
+        if ((from < 0) || (from > size()))
+            {
+            throw new IndexOutOfBoundsException("Index: " + from + ", Size: " + size());
+            }
+
+        // the path of nodes still to visit, next on top
+        Deque<Node<E>> path  = new ArrayDeque<>();
+        Node<E>        node  = root;
+        int            index = from;
+
+        // walk down to the starting element, keeping the nodes after it whose left was taken
+        while (node != null)
+            {
+            int leftSize = size(node.left);
+
+            if (index < leftSize)
+                {
+                path.push(node);
+                node = node.left;
+                }
+            else if (index > leftSize)
+                {
+                index -= leftSize + 1;
+                node  =  node.right;
+                }
+            else
+                {
+                path.push(node);
+                node = null;
+                }
+            }
+
+        return new Iterator<E>()
+        {
+            @Override
+            public boolean hasNext ()
+            {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public E next ()
+            {
+                if (path.isEmpty())
+                    {
+                    throw new NoSuchElementException();
+                    }
+
+                Node<E> next = path.pop();
+
+                // the elements after it start with the leftmost of its right subtree
+                for (Node<E> right = next.right; right != null; right = right.left)
+                    {
+                    path.push(right);
+                    }
+
+                return next.value;
+            }
+        };
+    }
+
+    // returns a new list with the element at an index removed
+    public PersistentList<E> remove (int index)
+    {
+        checkIndex(index);
+
+        return new PersistentList<>(delete(root, index));
+    }
+
+    // returns a new list with the element at an index replaced
+    public PersistentList<E> set (int index, E element)
+    {
+        checkIndex(index);
+
+        return new PersistentList<>(replace(root, index, element));
+    }
+
+    public int size ()
+    {
+        return size(root);
+    }
+
+    @Override
+    public String toString ()
+    {
+        return asList().toString();
+    }
+
+    private void checkIndex (int index)
+    {
+        if ((index < 0) || (index >= size()))
+            {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+    }
+
+    /*
+     * Tree functions
+     * Each returns a new subtree and never modifies an existing node
+     */
+
+    // create a node, re-balancing with a single or double rotation if the sides differ by 2
+    private static <E> Node<E> balance (E value, Node<E> left, Node<E> right)
+    {
+        int diff = height(left) - height(right);
+
+        if (diff > 1)
+            {
+            // left side too tall
+            if (height(left.left) >= height(left.right))
+                {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+                }
+
+            return new Node<>(left.right.value,
+                              new Node<>(left.value, left.left, left.right.left),
+                              new Node<>(value, left.right.right, right));
+            }
+        if (diff < -1)
+            {
+            // right side too tall
+            if (height(right.right) >= height(right.left))
+                {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+                }
+
+            return new Node<>(right.left.value,
+                              new Node<>(value, left, right.left.left),
+                              new Node<>(right.value, right.left.right, right.right));
+            }
+
+        return new Node<>(value, left, right);
+    }
+
+    // build a perfectly balanced tree from a range of an array
+    private static <E> Node<E> build (E[] values, int from, int to)
+    {
+        if (from > to)
+            {
+            return null;
+            }
+
+        int mid = from + (to - from) / 2;
+
+        return new Node<>(values[mid], build(values, from, mid - 1), build(values, mid + 1, to));
+    }
+
+    private static <E> Node<E> delete (Node<E> node, int index)
+    {
+        int leftSize = size(node.left);
+
+        if (index < leftSize)
+            {
+            return balance(node.value, delete(node.left, index), node.right);
+            }
+        if (index > leftSize)
+            {
+            return balance(node.value, node.left, delete(node.right, index - leftSize - 1));
+            }
+
+        // removing this node, replace it with the first node on its right
+        if (node.left == null)
+            {
+            return node.right;
+            }
+        if (node.right == null)
+            {
+            return node.left;
+            }
+
+        Node<E> first = node.right;
+
+        while (first.left != null)
+            {
+            first = first.left;
+            }
+
+        return balance(first.value, node.left, delete(node.right, 0));
+    }
+
+    private static int height (Node<?> node)
+    {
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static <E> Node<E> insert (Node<E> node, int index, E value)
+    {
+        if (node == null)
+            {
+            return new Node<>(value, null, null);
+            }
+
+        int leftSize = size(node.left);
+
+        if (index <= leftSize)
+            {
+            return balance(node.value, insert(node.left, index, value), node.right);
+            }
+
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, value));
+    }
+
+    private static <E> Node<E> replace (Node<E> node, int index, E value)
+    {
+        int leftSize = size(node.left);
+
+        if (index < leftSize)
+            {
+            return new Node<>(node.value, replace(node.left, index, value), node.right);
+            }
+        if (index > leftSize)
+            {
+            return new Node<>(node.value, node.left, replace(node.right, index - leftSize - 1, value));
+            }
+
+        return new Node<>(value, node.left, node.right);
+    }
+
+    private static int size (Node<?> node)
+    {
+        return (node == null) ? 0 : node.size;
+    }
+
+    // an immutable tree node, with the size and height of its subtree
+    private static final class Node<E>
+    {
+        final E       value;
+        final Node<E> left;
+        final Node<E> right;
+        final int     size;
+        final int     height;
+
+        Node (E value, Node<E> left, Node<E> right)
+        {
+            this.value  = value;
+            this.left   = left;
+            this.right  = right;
+            this.size   = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
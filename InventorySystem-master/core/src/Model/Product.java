@@ -8,17 +8,16 @@
  */
 package Model;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.List;
 
 public class Product
 {
     /*
      * counter for auto-generating product ID, static so all product instances have access
-     * if the test payload is removed, adjust this to the desired start number for auto-generating IDs
+     * Inventory moves it past the ID of every product added, see reserveId()
      * also be sure to check Part.java for its similar ID generation properties
      */
-    private static int prodIdCount = 109;
+    private static int prodIdCount = 1;
     private String     name;
     private double     price;
     private int        id;
@@ -26,8 +25,12 @@ public class Product
     private int        min;
     private int        stock;
 
+    // stamped by Inventory, from a sequence which only goes up, each time this product is stored
+    private long       version;
+
     // private data elements for Product objects
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    // associated parts are held in a persistent list, so taking a snapshot of them is O(1)
+    private PersistentList<Part> associatedParts = PersistentList.empty();
 
     // constuctor overload, auto-generates product ID
     public Product (String name, double price, int stock, int min, int max)
@@ -60,15 +63,12 @@ public class Product
         // attempt to associate part
         try
             {
-            // set isAdded to true if it was added to associatedParts
-            boolean isAdded = this.associatedParts.add(part);
+            // add the part to associatedParts
+            this.associatedParts = this.associatedParts.add(part);
 
-            if (isAdded)
-                {
-                // print to console that part was associated
-                System.out.println("Part:\t" + part.getName() + ", associated with\n\t\tProduct: "
-                                   + this.getName() + "\n");
-                }
+            // print to console that part was associated
+            System.out.println("Part:\t" + part.getName() + ", associated with\n\t\tProduct: "
+                               + this.getName() + "\n");
             }
         catch (Exception e)
             {
@@ -78,6 +78,31 @@ public class Product
             }
     }
 
+    // makes sure an ID in use is not auto-generated for a new product
+    static synchronized void reserveId (int id)
+    {
+        if (id >= prodIdCount)
+            {
+            prodIdCount = id + 1;
+            }
+    }
+
+    /**
+     * Returns a new product with the same ID, data and associated parts.
+     * The associated parts are shared, not copied, as they cannot change.
+     *
+     * @return a copy of this product
+     */
+    public Product copy ()
+    {
+        Product product = new Product(getId(), getName(), getPrice(), getStock(), getMin(), getMax());
+
+        product.associatedParts = this.associatedParts;
+        product.version         = this.version;
+
+        return product;
+    }
+
     // remove an associated part from a product
     public void deleteAssociatedPart (Part associatedPart)
     {
@@ -85,10 +110,13 @@ public class Product
         try
             {
             // set isRemoved to true if it was deleted from associatedParts
-            boolean isRemoved = this.associatedParts.remove(associatedPart);
+            int     index     = this.associatedParts.indexOf(associatedPart);
+            boolean isRemoved = index >= 0;
 
             if (isRemoved)
                 {
+                this.associatedParts = this.associatedParts.remove(index);
+
                 // print to console that part was disassociated
                 System.out.println("Part:\t" + associatedPart.getName()
                                    + ", disassociated from\n\t\tProduct: " + this.getName());
@@ -103,12 +131,46 @@ public class Product
             }
     }
 
-    // returns an ObservableList of all parts in associatedParts
-    public ObservableList<Part> getAllAssociatedParts ()
+    // returns a read-only view of all parts in associatedParts, as of the call
+    public List<Part> getAllAssociatedParts ()
+    {
+        return this.associatedParts.asList();
+    }
+
+    // returns the total price of all associated parts, the least the product may sell for
+    public double getAssociatedPartsCost ()
+    {
+        double cost = 0;
+
+        cost = getAllAssociatedParts().stream()
+                                      .map((part) -> part.getPrice())
+                                      .reduce(cost, (accum, _item) -> accum + _item);
+
+        return cost;
+    }
+
+    /**
+     * Returns the associated parts as they are right now, in O(1).
+     * The returned list never changes, so it can be handed to setAssociatedParts()
+     * later to roll back any association changes made in between.
+     *
+     * @return an immutable list of the associated parts
+     */
+    public PersistentList<Part> getAssociatedPartsSnapshot ()
     {
         return this.associatedParts;
     }
 
+    /**
+     * Replaces all associated parts, e.g. with a snapshot taken earlier.
+     *
+     * @param parts an immutable list of the parts to associate
+     */
+    public void setAssociatedParts (PersistentList<Part> parts)
+    {
+        this.associatedParts = parts;
+    }
+
     public final int getId ()
     {
         return this.id;
@@ -139,6 +201,11 @@ public class Product
         return this.stock;
     }
 
+    public final long getVersion ()
+    {
+        return this.version;
+    }
+
     public final void setId (int id)
     {
         this.id = id;
@@ -168,4 +235,10 @@ public class Product
     {
         this.stock = stock;
     }
+
+    // only Inventory sets versions, when it stores a part or product
+    final void setVersion (long version)
+    {
+        this.version = version;
+    }
 }
@@ -0,0 +1,334 @@
+/*
+ *  Package: Model
+ *  File:    StockLedger.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The StockLedger class is an append-only log of every stock movement in the inventory.
+ * <p>
+ * Each movement is a (part ID, delta, reason, timestamp) entry, stored column by column
+ * in primitive arrays so that an entry costs 17 bytes and no objects.
+ * <p>
+ * Alongside the log, each part keeps rolling aggregates in hourly and daily buckets:
+ * units received (RECEIPT), units consumed (PICK) and the closing stock of the bucket.
+ * Other movements, e.g. hand edits or write-offs, only move the closing stock, and
+ * a reversed movement, e.g. an undone pick, is recorded under its own reason with
+ * the opposite sign, so it cancels out of the received or consumed units.
+ * Consumption rate and "stock on date X" queries binary search these buckets
+ * instead of replaying the log. Hourly buckets are kept for the last 31 days,
+ * daily buckets for the life of the ledger. Buckets are in UTC.
+ *
+ * @author Justin Langley
+ * @version 1.0
+ */
+public class StockLedger
+{
+    // bucket sizes in milliseconds
+    public static final long HOUR = 60L * 60L * 1000L;
+    public static final long DAY  = 24L * HOUR;
+
+    // number of hourly buckets kept per part before older ones are dropped
+    private static final int HOURS_KEPT = 24 * 31;
+
+    // the log, one column per field
+    private int[]  partIds = new int[1024];
+    private int[]  deltas  = new int[1024];
+    private byte[] reasons = new byte[1024];
+    private long[] times   = new long[1024];
+    private int    size    = 0;
+
+    // rolling aggregates per part ID
+    private final Map<Integer, History> histories = new HashMap<>();
+
+    /**
+     * Appends a stock movement to the ledger and rolls it into the part's aggregates.
+     * The log is kept in time order: a movement stamped before the last entry,
+     * e.g. because the system clock was set back, is recorded at the time of the
+     * last entry instead, so appending never fails.
+     *
+     * @param partId the ID of the part whose stock moved
+     * @param delta the change in stock, negative for consumption
+     * @param reason why the stock moved
+     * @param timestamp when the stock moved, in epoch milliseconds
+     * @return the index of the new entry
+     */
+    public int append (int partId, int delta, StockReason reason, long timestamp)
+    {
+        if ((size > 0) && (timestamp < times[size - 1]))
+            {
+            timestamp = times[size - 1];
+            }
+
+        // double the log columns when full
+        if (size == partIds.length)
+            {
+            partIds = Arrays.copyOf(partIds, size * 2);
+            deltas  = Arrays.copyOf(deltas, size * 2);
+            reasons = Arrays.copyOf(reasons, size * 2);
+            times   = Arrays.copyOf(times, size * 2);
+            }
+        partIds[size] = partId;
+        deltas[size]  = delta;
+        reasons[size] = (byte) reason.ordinal();
+        times[size]   = timestamp;
+
+        // roll the movement into the part's hourly and daily buckets
+        History history = histories.get(partId);
+
+        if (history == null)
+            {
+            history = new History();
+            histories.put(partId, history);
+            }
+        history.balance += delta;
+        history.hours.add(Math.floorDiv(timestamp, HOUR), delta, reason, history.balance);
+        history.days.add(Math.floorDiv(timestamp, DAY), delta, reason, history.balance);
+
+        return size++;
+    }
+
+    /**
+     * Returns the units consumed (net units picked) by a part
+     * over the whole days from the day containing "from" up to and including
+     * the day containing "to". Stock written off, edited by hand or taken back
+     * by an undo is not consumption.
+     *
+     * @param partId the part ID
+     * @param from start of the range, in epoch milliseconds
+     * @param to end of the range, in epoch milliseconds
+     * @return the units consumed
+     */
+    public long consumed (int partId, long from, long to)
+    {
+        History history = histories.get(partId);
+
+        if (history == null)
+            {
+            return 0;
+            }
+
+        long picked = history.days.sumOut(Math.floorDiv(from, DAY), Math.floorDiv(to, DAY));
+
+        // a range holding the undo of a pick made before it would otherwise be negative
+        return Math.max(0, picked);
+    }
+
+    /**
+     * Returns the average units consumed per day by a part over a range of days.
+     * See consumed() for how the range is bounded.
+     *
+     * @param partId the part ID
+     * @param from start of the range, in epoch milliseconds
+     * @param to end of the range, in epoch milliseconds
+     * @return units consumed per day
+     */
+    public double consumptionRate (int partId, long from, long to)
+    {
+        long days = Math.floorDiv(to, DAY) - Math.floorDiv(from, DAY) + 1;
+
+        if (days < 1)
+            {
+            return 0;
+            }
+
+        return (double) consumed(partId, from, to) / days;
+    }
+
+    // accessors for reading the log entry at a given index
+    public int getDelta (int index)
+    {
+        checkIndex(index);
+
+        return deltas[index];
+    }
+
+    public int getPartId (int index)
+    {
+        checkIndex(index);
+
+        return partIds[index];
+    }
+
+    public StockReason getReason (int index)
+    {
+        checkIndex(index);
+
+        return StockReason.fromOrdinal(reasons[index]);
+    }
+
+    public long getTimestamp (int index)
+    {
+        checkIndex(index);
+
+        return times[index];
+    }
+
+    // the number of movements in the ledger
+    public int size ()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the stock of a part as it stood at a point in time.
+     * Within the last 31 days of a part's activity the result is the stock at the
+     * end of the hour containing the timestamp, before that it is the stock at
+     * the end of the day.
+     *
+     * @param partId the part ID
+     * @param timestamp the point in time, in epoch milliseconds
+     * @return the stock at that time, 0 if the part had no stock yet
+     */
+    public int stockOn (int partId, long timestamp)
+    {
+        History history = histories.get(partId);
+
+        if (history == null)
+            {
+            return 0;
+            }
+
+        // use the finer hourly buckets if the timestamp is still covered by them
+        long hour = Math.floorDiv(timestamp, HOUR);
+
+        if ((history.hours.size > 0) && (history.hours.keys[0] <= hour))
+            {
+            return history.hours.close[history.hours.floor(hour)];
+            }
+
+        // otherwise fall back to the daily buckets
+        int day = history.days.floor(Math.floorDiv(timestamp, DAY));
+
+        return (day < 0) ? 0 : history.days.close[day];
+    }
+
+    private void checkIndex (int index)
+    {
+        if ((index < 0) || (index >= size))
+            {
+            throw new IndexOutOfBoundsException("Ledger entry " + index + " of " + size);
+            }
+    }
+
+    /*
+     * Time buckets for one part, in ascending key order.
+     * A bucket only exists for a key (hour or day number) in which the part's stock moved.
+     */
+    private static final class Buckets
+    {
+        // maximum span of keys kept, 0 to keep all buckets
+        private final int keep;
+        long[]            keys  = new long[4];
+        int[]             in    = new int[4];
+        int[]             out   = new int[4];
+        int[]             close = new int[4];
+        int               size  = 0;
+
+        Buckets (int keep)
+        {
+            this.keep = keep;
+        }
+
+        // add a movement to the bucket for key, creating the bucket if needed
+        void add (long key, int delta, StockReason reason, int balance)
+        {
+            if ((size == 0) || (keys[size - 1] != key))
+                {
+                if (size == keys.length)
+                    {
+                    makeRoom(key);
+                    }
+                keys[size] = key;
+                in[size]   = 0;
+                out[size]  = 0;
+                size++;
+                }
+
+            int last = size - 1;
+
+            if (reason == StockReason.RECEIPT)
+                {
+                in[last] += delta;
+                }
+            else if (reason == StockReason.PICK)
+                {
+                out[last] -= delta;
+                }
+            close[last] = balance;
+        }
+
+        // index of the last bucket with a key at or before key, -1 if none
+        int floor (long key)
+        {
+            int L = 0;
+            int R = size - 1;
+
+            while (L <= R)
+                {
+                int M = L + (R - L) / 2;
+
+                if (keys[M] <= key)
+                    {
+                    L = M + 1;
+                    }
+                else
+                    {
+                    R = M - 1;
+                    }
+                }
+
+            return R;
+        }
+
+        // total consumed in buckets with keys from first to last, inclusive
+        long sumOut (long first, long last)
+        {
+            long sum = 0;
+
+            for (int i = floor(first - 1) + 1; (i < size) && (keys[i] <= last); i++)
+                {
+                sum += out[i];
+                }
+
+            return sum;
+        }
+
+        // called when full, drops buckets that fell out of the kept span, grows if still full
+        private void makeRoom (long newest)
+        {
+            int drop = (keep == 0) ? 0 : floor(newest - keep) + 1;
+
+            if (drop > 0)
+                {
+                size -= drop;
+                System.arraycopy(keys, drop, keys, 0, size);
+                System.arraycopy(in, drop, in, 0, size);
+                System.arraycopy(out, drop, out, 0, size);
+                System.arraycopy(close, drop, close, 0, size);
+                }
+            if (size == keys.length)
+                {
+                keys  = Arrays.copyOf(keys, size * 2);
+                in    = Arrays.copyOf(in, size * 2);
+                out   = Arrays.copyOf(out, size * 2);
+                close = Arrays.copyOf(close, size * 2);
+                }
+        }
+    }
+
+    // running balance and buckets for one part
+    private static final class History
+    {
+        int           balance = 0;
+        final Buckets hours   = new Buckets(HOURS_KEPT);
+        final Buckets days    = new Buckets(0);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ *  Package: Model
+ *  File:    StockReason.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+/**
+ * The reason recorded with each stock movement in the StockLedger.
+ * Stored in the ledger by ordinal, so new reasons must only be added at the end.
+ *
+ * @author Justin Langley
+ */
+public enum StockReason
+{
+    INITIAL,       // opening stock when a part is added to the inventory
+    RECEIPT,       // stock received from a supplier or machine
+    PICK,          // stock taken to build or ship a product
+    ADJUSTMENT,    // stock edited by hand, e.g. from the modify part window
+    REMOVED;       // remaining stock written off when a part is deleted
+
+    // cached for looking up a reason by its stored ordinal without copying values()
+    private static final StockReason[] VALUES = values();
+
+    // returns the reason stored with the given ordinal
+    static StockReason fromOrdinal (int ordinal)
+    {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Package: Model
+ *  File:    SupplierDictionary.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SupplierDictionary class gives each company name an int code, shared by
+ * every PartOutsourced in the program.
+ * <p>
+ * A catalog of hundreds of thousands of parts comes from a few hundred suppliers,
+ * so each part holds the code of its supplier instead of its own copy of the name,
+ * e.g. one read from an import. Parts of the same supplier then share one String,
+ * and comparing or filtering parts by supplier compares ints.
+ * <p>
+ * Codes are handed out in the order names are first seen, starting at 1, and are
+ * never reused: the table only grows, which is fine for the number of suppliers
+ * a business has. Names are matched exactly, so "Acme" and "ACME" are two suppliers.
+ * Looking up a name or a code never locks; adding a new name is synchronized.
+ *
+ * @author Justin Langley
+ */
+public final class SupplierDictionary
+{
+    // the code of "no company", i.e. a null company name
+    public static final int NONE = 0;
+
+    // name -> code, and code -> name, replaced by a larger copy as names are added
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private static volatile String[]          names = new String[16];
+    private static int                        size  = 1;
+
+    private SupplierDictionary ()
+    {
+    }
+
+    /**
+     * Returns the code of a company name, adding the name if it is new.
+     *
+     * @param name the company name, may be null
+     * @return its code, NONE for null
+     */
+    public static int code (String name)
+    {
+        if (name == null)
+            {
+            return NONE;
+            }
+
+        Integer code = codes.get(name);
+
+        return (code != null) ? code : add(name);
+    }
+
+    /**
+     * Returns the code of a company name, without adding it, e.g. to filter by a
+     * supplier typed into a search.
+     *
+     * @param name the company name, may be null
+     * @return its code, NONE for null, or -1 if no part has ever had the name
+     */
+    public static int lookup (String name)
+    {
+        if (name == null)
+            {
+            return NONE;
+            }
+
+        Integer code = codes.get(name);
+
+        return (code != null) ? code : -1;
+    }
+
+    /**
+     * Returns the company name of a code.
+     *
+     * @param code a code from code()
+     * @return the name, null for NONE
+     * @throws IllegalArgumentException if no name has the code
+     */
+    public static String name (int code)
+    {
+        String[] table = names;
+
+        if ((code < NONE) || (code >= table.length) || ((code != NONE) && (table[code] == null)))
+            {
+            throw new IllegalArgumentException("No supplier with code " + code);
+            }
+
+        return table[code];
+    }
+
+    // the number of codes handed out, including NONE
+    public static synchronized int size ()
+    {
+        return size;
+    }
+
+    private static synchronized int add (String name)
+    {
+        Integer code = codes.get(name);
+
+        if (code != null)
+            {
+            // added by another thread meanwhile
+            return code;
+            }
+        if (size == names.length)
+            {
+            names = Arrays.copyOf(names, size * 2);
+            }
+
+        // the name is stored before its code is published, so name(code) always finds it
+        names[size] = name;
+        codes.put(name, size);
+
+        return size++;
+    }
+}
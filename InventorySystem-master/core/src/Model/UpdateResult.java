@@ -0,0 +1,64 @@
+/*
+ *  Package: Model
+ *  File:    UpdateResult.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+/**
+ * The outcome of a versioned (compare-and-set) update of a part or product.
+ * <p>
+ * An update only succeeds if the entity still has the version the caller read.
+ * Otherwise nothing is changed and the caller gets back the entity as it is now,
+ * so it can show the other change to the user or merge and retry.
+ *
+ * @author Justin Langley
+ * @param <E> Part or Product
+ */
+public final class UpdateResult<E>
+{
+    public enum Status
+    {
+        UPDATED,      // the update was applied
+        CONFLICT,     // someone else changed the entity first, nothing was applied
+        NOT_FOUND     // there is no entity with the ID, e.g. it was deleted
+    }
+
+    private final Status status;
+    private final E      current;
+
+    UpdateResult (Status status, E current)
+    {
+        this.status  = status;
+        this.current = current;
+    }
+
+    /**
+     * Returns the entity now in the inventory: the replacement if the update was applied,
+     * the entity which caused the conflict otherwise, or null if it was not found.
+     *
+     * @return the current entity
+     */
+    public E getCurrent ()
+    {
+        return this.current;
+    }
+
+    public Status getStatus ()
+    {
+        return this.status;
+    }
+
+    public boolean isUpdated ()
+    {
+        return this.status == Status.UPDATED;
+    }
+
+    @Override
+    public String toString ()
+    {
+        return this.status.toString();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Package: Server
+ *  File:    EventsHandler.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import Model.Inventory;
+
+/**
+ * Pushes changes to clients as server-sent events, instead of them polling /parts:
+ * <pre>
+ * GET /events/stock     stock and price changes, see StockStream
+ * </pre>
+ * Each connected client holds a request thread for as long as it listens.
+ * With virtual threads that costs little; on older Java versions,
+ * raise inventory.threads above the number of clients expected.
+ *
+ * @author Justin Langley
+ */
+class EventsHandler extends JsonHandler
+{
+    private final StockStream stock;
+
+    EventsHandler (Inventory inventory, StockStream stock)
+    {
+        super(inventory);
+        this.stock = stock;
+    }
+
+    @Override
+    void respond (HttpExchange exchange, String[] route) throws IOException
+    {
+        if ((route.length == 1) && "stock".equals(route[0]))
+            {
+            requireMethod(exchange, "GET");
+            stock.serve(exchange);
+            }
+        else
+            {
+            throw new HttpError(404, "No such resource: " + exchange.getRequestURI().getPath());
+            }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Package: Server
+ *  File:    InventoryServer.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import java.net.InetSocketAddress;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpServer;
+
+import Model.Inventory;
+import Model.InventoryGenerator;
+
+/**
+ * An embedded HTTP server giving point of sale terminals, scanners and other
+ * local clients JSON access to an Inventory:
+ * <pre>
+ * GET  /parts, /parts/{id}           see PartsHandler
+ * POST /parts/{id}/stock             moves the stock of a part
+ * GET  /products, /products/{id}     see ProductsHandler
+ * GET  /search/parts?q=...           see SearchHandler
+ * GET  /search/products?q=...
+ * GET  /events/stock                 pushes stock and price changes, see StockStream
+ * </pre>
+ * Requests are served on virtual threads when running on Java 21 or later,
+ * so thousands of concurrent clients do not need thousands of platform threads.
+ * On older Java versions they are served by a fixed pool of platform threads.
+ * <p>
+ * Reads see the immutable snapshot current when they start and never lock.
+ * Stock moves are applied one at a time by Inventory.
+ *
+ * @author Justin Langley
+ */
+public class InventoryServer
+{
+    // system properties read by main()
+    public static final String HOST    = "inventory.host";
+    public static final String PORT    = "inventory.port";
+    public static final String THREADS = "inventory.threads";
+    public static final String WINDOW  = "inventory.window";
+
+    public static final int DEFAULT_PORT = 8080;
+
+    // connections waiting to be accepted, before more are refused
+    private static final int BACKLOG = 1024;
+
+    private final HttpServer      server;
+    private final ExecutorService executor;
+    private final StockStream     stock;
+    private final boolean         virtual;
+
+    /**
+     * Creates a server for an inventory, not yet started.
+     *
+     * @param inventory the inventory to serve
+     * @param address the address to listen on, port 0 picks a free port
+     * @param threads the number of platform threads, if virtual threads are not available
+     * @throws IOException if the address cannot be bound
+     */
+    public InventoryServer (Inventory inventory, InetSocketAddress address, int threads)
+        throws IOException
+    {
+        this(inventory, address, threads, StockStream.DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a server for an inventory, not yet started.
+     *
+     * @param inventory the inventory to serve
+     * @param address the address to listen on, port 0 picks a free port
+     * @param threads the number of platform threads, if virtual threads are not available
+     * @param window the milliseconds of stock changes collected into one pushed event
+     * @throws IOException if the address cannot be bound
+     */
+    public InventoryServer (Inventory inventory, InetSocketAddress address, int threads,
+                            long window)
+        throws IOException
+    {
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+
+        this.virtual  = virtualThreads != null;
+        this.executor = virtual ? virtualThreads : Executors.newFixedThreadPool(threads);
+        this.server   = HttpServer.create(address, BACKLOG);
+        this.stock    = new StockStream(inventory, window);
+        server.createContext("/parts", new PartsHandler(inventory));
+        server.createContext("/products", new ProductsHandler(inventory));
+        server.createContext("/search", new SearchHandler(inventory));
+        server.createContext("/events", new EventsHandler(inventory, stock));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Serves a generated inventory, sized by the InventoryGenerator system properties.
+     * Listens on localhost unless -Dinventory.host is given.
+     *
+     * @param args optionally, the port to listen on
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main (String[] args) throws IOException
+    {
+        Inventory inventory = new Inventory();
+        int       port      = (args.length > 0) ? Integer.parseInt(args[0])
+                                                : Integer.getInteger(PORT, DEFAULT_PORT);
+        int       threads   = Integer.getInteger(THREADS,
+                                                 Runtime.getRuntime().availableProcessors() * 8);
+        long      window    = Long.getLong(WINDOW, StockStream.DEFAULT_WINDOW);
+
+        InventoryGenerator.fromProperties(System.getProperties()).populate(inventory);
+        inventory.getHistory().clear();
+
+        InventoryServer server = new InventoryServer(inventory,
+                                                     new InetSocketAddress(
+                                                         System.getProperty(HOST, "127.0.0.1"),
+                                                         port),
+                                                     threads, window);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+        System.out.println("Serving " + inventory.getAllParts().size() + " parts and "
+                           + inventory.getAllProducts().size() + " products on http:/"
+                           + server.getAddress() + (server.isVirtual()
+                                                    ? " using virtual threads"
+                                                    : " using " + threads + " threads"));
+    }
+
+    public InetSocketAddress getAddress ()
+    {
+        return server.getAddress();
+    }
+
+    // whether requests are served on virtual threads
+    public boolean isVirtual ()
+    {
+        return this.virtual;
+    }
+
+    public void start ()
+    {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits for those being served, then stops.
+     *
+     * @param delay the most seconds to wait for requests being served
+     */
+    public void stop (int delay)
+    {
+        // event streams never end on their own, so they are ended first
+        stock.close();
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() was added in Java 21, while this
+     * project compiles for Java 8. It is looked up at run time instead, and on
+     * Java 19 and 20 it fails unless preview features are enabled.
+     */
+    private static ExecutorService newVirtualThreadExecutor ()
+    {
+        try
+            {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+            return (ExecutorService) factory.invoke(null);
+            }
+        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e)
+            {
+            return null;
+            }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Package: Server
+ *  File:    JsonHandler.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+
+import java.net.URLDecoder;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import Helpers.JsonWriter;
+import Model.Inventory;
+
+/**
+ * Base of the API handlers: routing by path, parameters, and JSON responses.
+ * <p>
+ * Subclasses answer a request in respond(), streaming their response with json().
+ * Problems with a request are reported by throwing an HttpError, which is sent
+ * to the client as {"error": "..."} with its status code.
+ *
+ * @author Justin Langley
+ */
+abstract class JsonHandler implements HttpHandler
+{
+    // largest request body read, requests only carry a few parameters
+    private static final int MAX_BODY = 64 * 1024;
+
+    protected final Inventory inventory;
+
+    JsonHandler (Inventory inventory)
+    {
+        this.inventory = inventory;
+    }
+
+    @Override
+    public final void handle (HttpExchange exchange) throws IOException
+    {
+        try
+            {
+            String context = exchange.getHttpContext().getPath();
+            String path    = exchange.getRequestURI()
+                                     .getPath()
+                                     .substring(context.length())
+                                     .replaceAll("^/+|/+$", "");
+
+            respond(exchange, path.isEmpty() ? new String[0] : path.split("/+"));
+            }
+        catch (HttpError e)
+            {
+            sendError(exchange, e.status, e.getMessage());
+            }
+        catch (RuntimeException e)
+            {
+            sendError(exchange, 500, e.toString());
+            }
+        finally
+            {
+            exchange.close();
+            }
+    }
+
+    /**
+     * Answers a request.
+     *
+     * @param exchange the request and its response
+     * @param route the path below the handler's context, split at "/", e.g. {"12", "stock"}
+     * @throws IOException if the response could not be written
+     */
+    abstract void respond (HttpExchange exchange, String[] route) throws IOException;
+
+    // parses a whole number parameter or path segment, a bad number is a bad request
+    static int intParam (String name, String value)
+    {
+        if (value == null)
+            {
+            throw new HttpError(400, "Missing parameter: " + name);
+            }
+        try
+            {
+            return Integer.parseInt(value.trim());
+            }
+        catch (NumberFormatException e)
+            {
+            throw new HttpError(400, "Not a whole number: " + name + "=" + value);
+            }
+    }
+
+    /**
+     * Sends the response headers, then returns a writer for the JSON body.
+     * The body is sent in chunks as it is written, so it is never held in memory whole.
+     *
+     * @param exchange the request and its response
+     * @param status the HTTP status code
+     * @return the writer of the response body, to be closed once the body is written
+     * @throws IOException if the headers could not be sent
+     */
+    static JsonWriter json (HttpExchange exchange, int status) throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+
+        return new JsonWriter(new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns the parameters of a request: those in the query string, and for a POST,
+     * those in a form encoded body, e.g. "delta=-2&amp;reason=PICK".
+     *
+     * @param exchange the request
+     * @return the parameters by name, a later value replacing an earlier one
+     * @throws IOException if the body could not be read
+     */
+    static Map<String, String> params (HttpExchange exchange) throws IOException
+    {
+        Map<String, String> params = new HashMap<>();
+
+        decode(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod()))
+            {
+            decode(readBody(exchange.getRequestBody()), params);
+            }
+
+        return params;
+    }
+
+    // rejects a request made with any other method
+    static void requireMethod (HttpExchange exchange, String method)
+    {
+        if (!method.equals(exchange.getRequestMethod()))
+            {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new HttpError(405, "Use " + method + " for "
+                                     + exchange.getRequestURI().getPath());
+            }
+    }
+
+    // splits a form encoded string into the parameter map
+    private static void decode (String form, Map<String, String> params)
+        throws UnsupportedEncodingException
+    {
+        if ((form == null) || form.isEmpty())
+            {
+            return;
+            }
+        for (String pair : form.split("&"))
+            {
+            int split = pair.indexOf('=');
+
+            if (split > 0)
+                {
+                params.put(unescape(pair.substring(0, split)),
+                           unescape(pair.substring(split + 1)));
+                }
+            }
+    }
+
+    // decodes one name or value, a bad escape such as %zz being the client's mistake
+    private static String unescape (String encoded) throws UnsupportedEncodingException
+    {
+        try
+            {
+            return URLDecoder.decode(encoded, "UTF-8");
+            }
+        catch (IllegalArgumentException e)
+            {
+            throw new HttpError(400, "Badly encoded parameter: " + encoded);
+            }
+    }
+
+    private static String readBody (InputStream in) throws IOException
+    {
+        ByteArrayOutputStream body   = new ByteArrayOutputStream();
+        byte[]                buffer = new byte[4096];
+        int                   read;
+
+        while ((read = in.read(buffer)) > 0)
+            {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_BODY)
+                {
+                throw new HttpError(413, "Request body over " + MAX_BODY + " bytes");
+                }
+            }
+
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void sendError (HttpExchange exchange, int status, String message)
+        throws IOException
+    {
+        if (exchange.getResponseCode() != -1)
+            {
+            // the response has started, all that can be done is to cut it short
+            return;
+            }
+
+        try (JsonWriter json = json(exchange, status))
+            {
+            json.beginObject().name("error").value(message).endObject();
+            }
+    }
+
+    // a request which cannot be answered, sent to the client with its status code
+    static final class HttpError extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError (int status, String message)
+        {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Package: Server
+ *  File:    Paging.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import Helpers.JsonWriter;
+import Model.Page;
+
+/**
+ * Keyset paging of the /parts and /products lists, with the parameters:
+ * <pre>
+ * limit=100          the most rows per page, at most 10000
+ * sort=id | name     the order, by ID (default) or by name, ignoring case
+ * after=CURSOR       the page after a row, e.g. the "last" of the previous response
+ * before=CURSOR      the page before a row, e.g. the "first" of the previous response
+ * </pre>
+ * A page is sent as {"items": [...], "more": true, "first": CURSOR, "last": CURSOR},
+ * "more" telling whether there are rows beyond the page in the direction read.
+ * <p>
+ * A cursor is a row's key: its ID in ID order, or "ID:name" in name order.
+ * Pages are read by key, so rows added or deleted between requests are never
+ * skipped or repeated, and deep pages cost no more than the first.
+ *
+ * @author Justin Langley
+ */
+final class Paging
+{
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT     = 10000;
+
+    private Paging ()
+    {
+    }
+
+    // reads a page of rows by ID
+    interface ByIdReader<E>
+    {
+        Page<E> read (int id, Page.Direction direction, int limit);
+    }
+
+    // reads a page of rows by name, then ID
+    interface ByNameReader<E>
+    {
+        Page<E> read (String name, int id, Page.Direction direction, int limit);
+    }
+
+    // writes one row as JSON
+    interface RowWriter<E>
+    {
+        void write (JsonWriter json, E row) throws IOException;
+    }
+
+    // whether a request asks for a page, rather than the whole list
+    static boolean requested (Map<String, String> params)
+    {
+        return params.containsKey("limit") || params.containsKey("sort")
+               || params.containsKey("after") || params.containsKey("before");
+    }
+
+    /**
+     * Reads the page a request asks for.
+     *
+     * @param params the request parameters
+     * @param byId reads a page in ID order, e.g. snapshot::pagePartsById
+     * @param byName reads a page in name order, e.g. snapshot::pagePartsByName
+     * @return the page
+     */
+    static <E> Page<E> read (Map<String, String> params, ByIdReader<E> byId,
+                             ByNameReader<E> byName)
+    {
+        String         after     = params.get("after");
+        String         before    = params.get("before");
+        String         cursor    = (before != null) ? before : after;
+        Page.Direction direction = (before != null) ? Page.Direction.BEFORE
+                                                    : Page.Direction.AFTER;
+        int            limit     = params.containsKey("limit")
+                                   ? JsonHandler.intParam("limit", params.get("limit"))
+                                   : DEFAULT_LIMIT;
+
+        if ((after != null) && (before != null))
+            {
+            throw new JsonHandler.HttpError(400, "Give either after or before, not both");
+            }
+        if ((limit < 1) || (limit > MAX_LIMIT))
+            {
+            throw new JsonHandler.HttpError(400, "Limit must be 1 to " + MAX_LIMIT + ": " + limit);
+            }
+        if (!byName(params))
+            {
+            if (cursor == null)
+                {
+                return byId.read((before != null) ? Integer.MAX_VALUE : Integer.MIN_VALUE,
+                                 direction, limit);
+                }
+
+            return byId.read(JsonHandler.intParam("cursor", cursor), direction, limit);
+            }
+        if (cursor == null)
+            {
+            return byName.read(null, 0, direction, limit);
+            }
+
+        int split = cursor.indexOf(':');
+
+        if (split < 0)
+            {
+            throw new JsonHandler.HttpError(400, "A name cursor is ID:name, not " + cursor);
+            }
+
+        return byName.read(cursor.substring(split + 1),
+                           JsonHandler.intParam("cursor", cursor.substring(0, split)),
+                           direction, limit);
+    }
+
+    /**
+     * Writes a page, with the cursors of its first and last rows.
+     *
+     * @param json the writer of the response
+     * @param params the request parameters, for the order of the cursors
+     * @param page the page
+     * @param id returns the ID of a row
+     * @param name returns the name of a row
+     * @param rows writes one row
+     * @throws IOException if the response could not be written
+     */
+    static <E> void write (JsonWriter json, Map<String, String> params, Page<E> page,
+                           ToIntFunction<E> id, Function<E, String> name, RowWriter<E> rows)
+        throws IOException
+    {
+        boolean byName = byName(params);
+
+        json.beginObject().name("items").beginArray();
+        for (E row : page.getItems())
+            {
+            rows.write(json, row);
+            }
+        json.endArray().name("more").value(page.hasMore());
+        if (page.isEmpty())
+            {
+            json.name("first").nullValue().name("last").nullValue();
+            }
+        else
+            {
+            E first = page.getItems().get(0);
+            E last  = page.getItems().get(page.getItems().size() - 1);
+
+            json.name("first").value(cursor(byName, id.applyAsInt(first), name.apply(first)))
+                .name("last").value(cursor(byName, id.applyAsInt(last), name.apply(last)));
+            }
+        json.endObject();
+    }
+
+    private static boolean byName (Map<String, String> params)
+    {
+        String sort = params.getOrDefault("sort", "id");
+
+        if (!"id".equals(sort) && !"name".equals(sort))
+            {
+            throw new JsonHandler.HttpError(400, "Sort by id or name, not " + sort);
+            }
+
+        return "name".equals(sort);
+    }
+
+    private static String cursor (boolean byName, int id, String name)
+    {
+        return byName ? (id + ":" + ((name == null) ? "" : name)) : Integer.toString(id);
+    }
+}
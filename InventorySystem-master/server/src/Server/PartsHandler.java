@@ -0,0 +1,198 @@
+/*
+ *  Package: Server
+ *  File:    PartsHandler.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import java.util.Locale;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import Helpers.InventoryJson;
+import Helpers.JsonWriter;
+import Model.Inventory;
+import Model.InventorySnapshot;
+import Model.Page;
+import Model.Part;
+import Model.PartFacets;
+import Model.PartFacets.Facet;
+import Model.StockReason;
+
+/**
+ * Serves the parts of the inventory:
+ * <pre>
+ * GET  /parts                all parts, in ID order
+ * GET  /parts?limit=         a page of parts, see Paging
+ * GET  /parts/facets        parts, stock and value per supplier and machine
+ * GET  /parts/{id}           one part
+ * POST /parts/{id}/stock     moves its stock, parameters delta and reason (default ADJUSTMENT)
+ * </pre>
+ * A stock move is refused with 409 if it would take the stock below zero, or above
+ * the part's max on the way up, and the part is left as it was.
+ *
+ * @author Justin Langley
+ */
+class PartsHandler extends JsonHandler
+{
+    PartsHandler (Inventory inventory)
+    {
+        super(inventory);
+    }
+
+    @Override
+    void respond (HttpExchange exchange, String[] route) throws IOException
+    {
+        if (route.length == 0)
+            {
+            requireMethod(exchange, "GET");
+            listParts(exchange);
+            }
+        else if ((route.length == 1) && "facets".equals(route[0]))
+            {
+            requireMethod(exchange, "GET");
+            sendFacets(exchange);
+            }
+        else if (route.length == 1)
+            {
+            requireMethod(exchange, "GET");
+            sendPart(exchange, find(intParam("id", route[0])));
+            }
+        else if ((route.length == 2) && "stock".equals(route[1]))
+            {
+            requireMethod(exchange, "POST");
+            adjustStock(exchange, intParam("id", route[0]));
+            }
+        else
+            {
+            throw new HttpError(404, "No such resource: " + exchange.getRequestURI().getPath());
+            }
+    }
+
+    private void adjustStock (HttpExchange exchange, int partId) throws IOException
+    {
+        Map<String, String> params = params(exchange);
+        int                 delta  = intParam("delta", params.get("delta"));
+        StockReason         reason;
+
+        try
+            {
+            reason = StockReason.valueOf(params.getOrDefault("reason", "ADJUSTMENT")
+                                               .trim()
+                                               .toUpperCase(Locale.US));
+            }
+        catch (IllegalArgumentException e)
+            {
+            throw new HttpError(400, "Unknown reason: " + params.get("reason"));
+            }
+
+        // looked up, checked and moved in one step, so a concurrent edit cannot be overwritten
+        Part moved;
+
+        try
+            {
+            moved = inventory.adjustStock(partId, delta, reason);
+            }
+        catch (IllegalArgumentException e)
+            {
+            throw new HttpError(409, e.getMessage());
+            }
+
+        if (moved == null)
+            {
+            throw new HttpError(404, "No part with ID " + partId);
+            }
+        sendPart(exchange, moved);
+    }
+
+    private Part find (int partId)
+    {
+        Part part = inventory.lookupPart(partId);
+
+        if (part == null)
+            {
+            throw new HttpError(404, "No part with ID " + partId);
+            }
+
+        return part;
+    }
+
+    // streams every part of one snapshot, edits made meanwhile are not seen
+    private void listParts (HttpExchange exchange) throws IOException
+    {
+        Map<String, String> params = params(exchange);
+
+        if (Paging.requested(params))
+            {
+            InventorySnapshot snapshot = inventory.snapshot();
+            Page<Part>        page     = Paging.read(params, snapshot::pagePartsById,
+                                                     snapshot::pagePartsByName);
+
+            try (JsonWriter json = json(exchange, 200))
+                {
+                Paging.write(json, params, page, Part::getId, Part::getName,
+                             InventoryJson::writePart);
+                }
+
+            return;
+            }
+        try (JsonWriter json = json(exchange, 200))
+            {
+            json.beginArray();
+            for (Part part : inventory.snapshot().getParts())
+                {
+                InventoryJson.writePart(json, part);
+                }
+            json.endArray();
+            }
+    }
+
+    /*
+     * sends the live counts kept by the inventory, without reading any part:
+     * {"suppliers":[{"companyName":"...","parts":2,"stock":40,"value":12.5},...],
+     *  "machines":[{"machineId":7,"parts":1,"stock":10,"value":3.0},...]}
+     */
+    private void sendFacets (HttpExchange exchange) throws IOException
+    {
+        PartFacets facets = inventory.getFacets();
+
+        try (JsonWriter json = json(exchange, 200))
+            {
+            json.beginObject().name("suppliers").beginArray();
+            for (Facet<String> supplier : facets.getSuppliers())
+                {
+                writeFacet(json.beginObject().name("companyName").value(supplier.getKey()),
+                           supplier);
+                }
+            json.endArray().name("machines").beginArray();
+            for (Facet<Integer> machine : facets.getMachines())
+                {
+                writeFacet(json.beginObject().name("machineId").value(machine.getKey()),
+                           machine);
+                }
+            json.endArray().endObject();
+            }
+    }
+
+    private void sendPart (HttpExchange exchange, Part part) throws IOException
+    {
+        try (JsonWriter json = json(exchange, 200))
+            {
+            InventoryJson.writePart(json, part);
+            }
+    }
+
+    // writes the counts of a facet and closes its object
+    private static void writeFacet (JsonWriter json, Facet<?> facet) throws IOException
+    {
+        json.name("parts").value(facet.getParts())
+            .name("stock").value(facet.getStock())
+            .name("value").value(facet.getValue())
+            .endObject();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Package: Server
+ *  File:    ProductsHandler.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import Helpers.InventoryJson;
+import Helpers.JsonWriter;
+import Model.Inventory;
+import Model.InventorySnapshot;
+import Model.Page;
+import Model.Product;
+
+/**
+ * Serves the products of the inventory:
+ * <pre>
+ * GET /products          all products, in ID order
+ * GET /products?limit=   a page of products, see Paging
+ * GET /products/{id}     one product
+ * </pre>
+ *
+ * @author Justin Langley
+ */
+class ProductsHandler extends JsonHandler
+{
+    ProductsHandler (Inventory inventory)
+    {
+        super(inventory);
+    }
+
+    @Override
+    void respond (HttpExchange exchange, String[] route) throws IOException
+    {
+        requireMethod(exchange, "GET");
+        if (route.length == 0)
+            {
+            Map<String, String> params = params(exchange);
+
+            if (Paging.requested(params))
+                {
+                InventorySnapshot snapshot = inventory.snapshot();
+                Page<Product>     page     = Paging.read(params, snapshot::pageProductsById,
+                                                         snapshot::pageProductsByName);
+
+                try (JsonWriter json = json(exchange, 200))
+                    {
+                    Paging.write(json, params, page, Product::getId, Product::getName,
+                                 InventoryJson::writeProduct);
+                    }
+
+                return;
+                }
+
+            // streams every product of one snapshot, edits made meanwhile are not seen
+            try (JsonWriter json = json(exchange, 200))
+                {
+                json.beginArray();
+                for (Product product : inventory.snapshot().getProducts())
+                    {
+                    InventoryJson.writeProduct(json, product);
+                    }
+                json.endArray();
+                }
+            }
+        else if (route.length == 1)
+            {
+            int     productId = intParam("id", route[0]);
+            Product product   = inventory.lookupProduct(productId);
+
+            if (product == null)
+                {
+                throw new HttpError(404, "No product with ID " + productId);
+                }
+            try (JsonWriter json = json(exchange, 200))
+                {
+                InventoryJson.writeProduct(json, product);
+                }
+            }
+        else
+            {
+            throw new HttpError(404, "No such resource: " + exchange.getRequestURI().getPath());
+            }
+    }
+}
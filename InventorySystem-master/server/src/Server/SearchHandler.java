@@ -0,0 +1,124 @@
+/*
+ *  Package: Server
+ *  File:    SearchHandler.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.IOException;
+
+import java.util.List;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import Helpers.InventoryJson;
+import Helpers.InventorySearch;
+import Helpers.JsonWriter;
+import Model.Inventory;
+import Model.Part;
+import Model.Product;
+
+/**
+ * Searches parts and products, taking the same queries as the search bars
+ * of the application, e.g. "id:12", "inv:40", "name:gear" or "price:1.98":
+ * <pre>
+ * GET /search/parts?q=...
+ * GET /search/products?q=...
+ * </pre>
+ * The result is an array holding the first match, or empty if nothing matched.
+ * A filter query on parts, e.g. "type:outsourced stock:low price&lt;5", returns
+ * every match instead, in ID order, at most limit of them (default 1000).
+ *
+ * @author Justin Langley
+ */
+class SearchHandler extends JsonHandler
+{
+    // the most parts a filter query returns, unless the request gives a limit
+    private static final int MAX_FILTERED = 1000;
+
+    private final InventorySearch search = new InventorySearch();
+
+    SearchHandler (Inventory inventory)
+    {
+        super(inventory);
+    }
+
+    @Override
+    void respond (HttpExchange exchange, String[] route) throws IOException
+    {
+        requireMethod(exchange, "GET");
+
+        String query = params(exchange).get("q");
+
+        if (query == null)
+            {
+            throw new HttpError(400, "Missing parameter: q");
+            }
+        if ((route.length == 1) && "parts".equals(route[0]) && InventorySearch.isFilter(query))
+            {
+            filterParts(exchange, query);
+            }
+        else if ((route.length == 1) && "parts".equals(route[0]))
+            {
+            // the snapshot is searched in place, nothing is copied per request
+            Part part = search.findPart(inventory.snapshot(), query);
+
+            try (JsonWriter json = json(exchange, 200))
+                {
+                json.beginArray();
+                if (part != null)
+                    {
+                    InventoryJson.writePart(json, part);
+                    }
+                json.endArray();
+                }
+            }
+        else if ((route.length == 1) && "products".equals(route[0]))
+            {
+            Product product = search.findProduct(inventory.snapshot(), query);
+
+            try (JsonWriter json = json(exchange, 200))
+                {
+                json.beginArray();
+                if (product != null)
+                    {
+                    InventoryJson.writeProduct(json, product);
+                    }
+                json.endArray();
+                }
+            }
+        else
+            {
+            throw new HttpError(404, "Search /search/parts or /search/products");
+            }
+    }
+
+    // sends every part matching a filter query, up to the limit
+    private void filterParts (HttpExchange exchange, String query) throws IOException
+    {
+        String     limit = params(exchange).get("limit");
+        List<Part> parts;
+
+        try
+            {
+            parts = search.filterParts(inventory, query,
+                                       (limit == null) ? MAX_FILTERED : intParam("limit", limit));
+            }
+        catch (IllegalArgumentException e)
+            {
+            throw new HttpError(400, e.getMessage());
+            }
+
+        try (JsonWriter json = json(exchange, 200))
+            {
+            json.beginArray();
+            for (Part part : parts)
+                {
+                InventoryJson.writePart(json, part);
+                }
+            json.endArray();
+            }
+    }
+}
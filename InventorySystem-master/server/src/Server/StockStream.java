@@ -0,0 +1,305 @@
+/*
+ *  Package: Server
+ *  File:    StockStream.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import Helpers.JsonWriter;
+import Model.EventFlow;
+import Model.Inventory;
+import Model.InventoryEvent;
+import Model.Part;
+
+/**
+ * Pushes the stock and price of changed parts to clients, as server-sent events.
+ * <p>
+ * Changes are collected over a short window, keeping only the latest version
+ * of each part, then sent to every client as one "stock" event:
+ * <pre>
+ * id: 1234
+ * event: stock
+ * data: [{"id":12,"stock":40,"price":1.98,"version":3},{"id":15,"removed":true}]
+ * </pre>
+ * The id is the sequence number of the last inventory event included.
+ * A "reset" event means the whole inventory changed, e.g. it was restored,
+ * and clients should reload it from /parts.
+ * <p>
+ * A slow client is never sent a queue of old windows. Windows it has not been
+ * sent yet are merged, latest version first, so its backlog can never grow
+ * beyond one entry per part, and it catches up in a single event.
+ *
+ * @author Justin Langley
+ */
+final class StockStream implements EventFlow.Subscriber<InventoryEvent>
+{
+    // milliseconds of changes collected into one event, by default
+    static final long DEFAULT_WINDOW = 250;
+
+    // inventory events buffered before the stream falls behind and resets its clients
+    private static final int BUFFER = 64 * 1024;
+
+    // milliseconds between comments sent to idle clients, so proxies keep the connection open
+    private static final long KEEP_ALIVE = 15000;
+
+    private final Inventory                inventory;
+    private final ScheduledExecutorService timer;
+    private final Set<Client>              clients = ConcurrentHashMap.newKeySet();
+
+    /*
+     * The changes of the current window, by part ID, null for a removed part.
+     * Only used on the timer thread, which receives the events and ends each window.
+     */
+    private Map<Integer, Part> window = new HashMap<>();
+    private boolean            reset;
+    private long               sequence;
+
+    private volatile EventFlow.Subscription subscription;
+    private volatile boolean                closed;
+
+    StockStream (Inventory inventory, long windowMillis)
+    {
+        this.inventory = inventory;
+        this.timer     = Executors.newSingleThreadScheduledExecutor((task) ->
+            {
+            Thread thread = new Thread(task, "stock-stream");
+
+            thread.setDaemon(true);
+
+            return thread;
+            });
+        inventory.getEvents().subscribe(this, timer, BUFFER);
+        timer.scheduleAtFixedRate(this::endWindow, windowMillis, windowMillis,
+                                  TimeUnit.MILLISECONDS);
+    }
+
+    // stops the stream and ends every client's response
+    void close ()
+    {
+        closed = true;
+        if (subscription != null)
+            {
+            subscription.cancel();
+            }
+        timer.shutdownNow();
+        for (Client client : clients)
+            {
+            synchronized (client)
+                {
+                client.notifyAll();
+                }
+            }
+    }
+
+    @Override
+    public void onComplete ()
+    {
+    }
+
+    // the stream fell too far behind the inventory, start again with a reset
+    @Override
+    public void onError (Throwable throwable)
+    {
+        window.clear();
+        reset = true;
+        if (!closed)
+            {
+            inventory.getEvents().subscribe(this, timer, BUFFER);
+            }
+    }
+
+    @Override
+    public void onNext (InventoryEvent event)
+    {
+        sequence = event.getSequence();
+        if (event instanceof InventoryEvent.StockChanged
+            || event instanceof InventoryEvent.PriceChanged)
+            {
+            Part part = ((InventoryEvent.PartChanged) event).getAfter();
+
+            window.put(part.getId(), part);
+            }
+        else if (event instanceof InventoryEvent.PartAdded)
+            {
+            Part part = ((InventoryEvent.PartAdded) event).getPart();
+
+            window.put(part.getId(), part);
+            }
+        else if (event instanceof InventoryEvent.PartRemoved)
+            {
+            window.put(((InventoryEvent.PartRemoved) event).getPart().getId(), null);
+            }
+        else if (event instanceof InventoryEvent.Restored)
+            {
+            window.clear();
+            reset = true;
+            }
+    }
+
+    @Override
+    public void onSubscribe (EventFlow.Subscription subscription)
+    {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    /**
+     * Streams events to one client, until it disconnects or the stream is closed.
+     *
+     * @param exchange the request of the client
+     * @throws IOException if the response headers could not be sent
+     */
+    void serve (HttpExchange exchange) throws IOException
+    {
+        Client client = new Client();
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        clients.add(client);
+
+        try (Writer out = new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)))
+            {
+            // clients reconnect after two seconds if the connection drops
+            out.write("retry: 2000\n\n");
+            out.flush();
+            while (!closed)
+                {
+                Map<Integer, Part> parts;
+                boolean            reload;
+                long               last;
+
+                // take everything the client has not been sent yet, in one go
+                synchronized (client)
+                    {
+                    if (client.parts.isEmpty() && !client.reset && !closed)
+                        {
+                        client.wait(KEEP_ALIVE);
+                        }
+                    parts        = client.parts;
+                    reload       = client.reset;
+                    last         = client.sequence;
+                    client.parts = new HashMap<>();
+                    client.reset = false;
+                    }
+                if (reload)
+                    {
+                    out.write("event: reset\ndata: {}\n\n");
+                    }
+                if (!parts.isEmpty())
+                    {
+                    writeStock(out, parts, last);
+                    }
+                if (!reload && parts.isEmpty())
+                    {
+                    out.write(": keep-alive\n\n");
+                    }
+                out.flush();
+                }
+            }
+        catch (IOException e)
+            {
+            // the client disconnected, nothing left to do
+            }
+        catch (InterruptedException e)
+            {
+            Thread.currentThread().interrupt();
+            }
+        finally
+            {
+            clients.remove(client);
+            }
+    }
+
+    // the number of clients connected, e.g. for monitoring
+    int size ()
+    {
+        return clients.size();
+    }
+
+    // hands the changes of the window that just ended to every client
+    private void endWindow ()
+    {
+        if (window.isEmpty() && !reset)
+            {
+            return;
+            }
+
+        Map<Integer, Part> changes = window;
+
+        window = new HashMap<>();
+        for (Client client : clients)
+            {
+            synchronized (client)
+                {
+                if (reset)
+                    {
+                    // the client reloads everything, older changes do not matter
+                    client.parts.clear();
+                    client.reset = true;
+                    }
+                client.parts.putAll(changes);
+                client.sequence = sequence;
+                client.notifyAll();
+                }
+            }
+        reset = false;
+    }
+
+    private static void writeStock (Writer out, Map<Integer, Part> parts, long last)
+        throws IOException
+    {
+        // the JSON has no line breaks, so it fits on one data line
+        JsonWriter json = new JsonWriter(out);
+
+        out.write("id: " + last + "\nevent: stock\ndata: ");
+        json.beginArray();
+        for (Map.Entry<Integer, Part> entry : parts.entrySet())
+            {
+            Part part = entry.getValue();
+
+            json.beginObject().name("id").value(entry.getKey());
+            if (part == null)
+                {
+                json.name("removed").value(true);
+                }
+            else
+                {
+                json.name("stock").value(part.getStock())
+                    .name("price").value(part.getPrice())
+                    .name("version").value(part.getVersion());
+                }
+            json.endObject();
+            }
+        json.endArray();
+        out.write("\n\n");
+    }
+
+    // the changes one client has not been sent yet, guarded by the client itself
+    private static final class Client
+    {
+        private Map<Integer, Part> parts = new HashMap<>();
+        private boolean            reset;
+        private long               sequence;
+    }
+}
@@ -8,6 +8,8 @@
  */
 package Application;
 
+import java.util.concurrent.ForkJoinPool;
+
 import javafx.application.Application;
 
 import javafx.fxml.FXMLLoader;
@@ -18,33 +20,34 @@ import javafx.scene.image.Image;
 
 import javafx.stage.Stage;
 
+import View_Controller.MainController;
+
 public class Main extends Application
 {
+    // the controller of the main window, once it is showing
+    private MainController controller;
+
     // Launch the program
     public static void main (String[] args)
     {
         launch(args);
     }
 
+    // returns the controller of the main window, null until start() has shown it
+    protected MainController getController ()
+    {
+        return this.controller;
+    }
+
     @Override
 
-    // Load MainController()
+    // Load MainController(), show it, then load the inventory in the background
     public void start (Stage stage) throws Exception
     {
-        /*
-         *  TODO:
-         * Known bug:
-         *   If the user has made part association changes in the modify product
-         *   window, then closes the window via the "X" in the upper right corner
-         *   of the window, changes will remain in effect.
-         *
-         *   This should be changed to behave the same as if the user selects
-         *   the "cancel" button and confirms the subsequent dialog box
-         */
-
         // Load resources
-        String resourcePath = "/View_Controller/FXMLMain.fxml";
-        Parent root         = FXMLLoader.load(getClass().getResource(resourcePath));
+        String     resourcePath = "/View_Controller/FXMLMain.fxml";
+        FXMLLoader loader       = new FXMLLoader(getClass().getResource(resourcePath));
+        Parent     root         = loader.load();
 
         // Create a new scene
         Scene scene = new Scene(root);
@@ -55,5 +58,9 @@ public class Main extends Application
         stage.setTitle("Inventory Management System");
         stage.setScene(scene);
         stage.show();
+
+        // the window stays locked, showing the progress, until the inventory is in
+        controller = loader.getController();
+        controller.startup(ForkJoinPool.commonPool());
     }
 }
@@ -0,0 +1,103 @@
+/*
+ *  Package: Helpers
+ *  File:    CellValues.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.util.function.Function;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+
+import javafx.scene.control.TableColumn.CellDataFeatures;
+
+import javafx.util.Callback;
+
+/**
+ * Cell value factories which call a getter directly, in place of PropertyValueFactory:
+ * <pre>
+ * partId.setCellValueFactory(CellValues.of(Part::getId));
+ * </pre>
+ * PropertyValueFactory finds the getter by reflection and checks for a JavaFX
+ * property first, for every cell it fills. A getter reference is resolved
+ * when the code is compiled, and a renamed getter is a compile error
+ * rather than an empty column.
+ * <p>
+ * Parts and products never change once they are in the inventory; an edit replaces
+ * the row, and the PagedList reports that one row as changed. So a cell's value
+ * never changes either, and is wrapped in a constant ObservableValue which keeps
+ * no listeners, instead of a property per cell.
+ *
+ * @author Justin Langley
+ */
+public final class CellValues
+{
+    private CellValues ()
+    {
+    }
+
+    /**
+     * Returns a cell value factory reading each row's value with a getter.
+     *
+     * @param getter the getter of the column's value, e.g. Part::getName
+     * @return the cell value factory
+     */
+    public static <S, T> Callback<CellDataFeatures<S, T>, ObservableValue<T>> of (
+        Function<? super S, ? extends T> getter)
+    {
+        return (cell) -> new Constant<>(getter.apply(cell.getValue()));
+    }
+
+    /**
+     * Returns a cell value factory whose value is the row itself, for cells
+     * which read what they show from the row, e.g. DisplayFormat.intColumn().
+     * Since an edit replaces the row, the cell sees the new row and updates.
+     *
+     * @return the cell value factory
+     */
+    public static <S> Callback<CellDataFeatures<S, S>, ObservableValue<S>> row ()
+    {
+        return (cell) -> new Constant<>(cell.getValue());
+    }
+
+    // a value which never changes, so listeners are never called and need not be kept
+    private static final class Constant<T> implements ObservableValue<T>
+    {
+        private final T value;
+
+        Constant (T value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public void addListener (ChangeListener<? super T> listener)
+        {
+        }
+
+        @Override
+        public void addListener (InvalidationListener listener)
+        {
+        }
+
+        @Override
+        public T getValue ()
+        {
+            return this.value;
+        }
+
+        @Override
+        public void removeListener (ChangeListener<? super T> listener)
+        {
+        }
+
+        @Override
+        public void removeListener (InvalidationListener listener)
+        {
+        }
+    }
+}
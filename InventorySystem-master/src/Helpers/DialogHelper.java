@@ -8,9 +8,7 @@
  */
 package Helpers;
 
-import java.text.NumberFormat;
-
-import java.util.Locale;
+import java.util.List;
 
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
@@ -19,6 +17,9 @@ import javafx.scene.image.Image;
 
 import javafx.stage.Stage;
 
+import Helpers.FormRules.Rule;
+
+import Model.LowStockMonitor;
 import Model.Part;
 import Model.Product;
 
@@ -34,6 +35,12 @@ import Model.Product;
  */
 public class DialogHelper
 {
+    // the most parts a filter result lists
+    public static final int FILTER_SHOWN = 20;
+
+    // the most parts the reorder list shows, the rest are counted
+    public static final int REORDER_SHOWN = 20;
+
     // location for program icon resource
     public final String icon = "/Images/icon.png";
 
@@ -250,6 +257,89 @@ public class DialogHelper
         alert.showAndWait();
     }
 
+    /**
+     * Displays a dialog informing the user that the part or product being edited
+     * was changed and saved elsewhere since the edit window was opened
+     *
+     * @param name the name of the part or product, as it is now
+     */
+    public void displayEditConflict (String name)
+    {
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.WARNING, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // set dialog information
+        alert.setTitle("");
+        alert.setHeaderText(null);
+        alert.setContentText("\"" + name + "\" was changed elsewhere since this window was opened.\n"
+                             + "Your edits were not saved. Save again to overwrite the other change,\n"
+                             + "or cancel to keep it.");
+        alert.showAndWait();
+    }
+
+    /**
+     * Displays a dialog informing the user that the part or product being edited
+     * was deleted elsewhere since the edit window was opened
+     *
+     * @param name the name of the part or product
+     */
+    public void displayEditTargetDeleted (String name)
+    {
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.WARNING, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // set dialog information
+        alert.setTitle("");
+        alert.setHeaderText(null);
+        alert.setContentText("\"" + name + "\" was deleted elsewhere since this window was opened.\n"
+                             + "Your edits were not saved.");
+        alert.showAndWait();
+    }
+
+    /**
+     * Displays a dialog informing the user that a filter query could not be read,
+     * e.g. "price<abc" or "type:plastic"
+     *
+     * @param message what was wrong with the query
+     */
+    public void displayFilterError (String message)
+    {
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.WARNING, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // set dialog information
+        alert.setTitle("Filter");
+        alert.setHeaderText(null);
+        alert.setContentText(message + "\n\n"
+                             + "Conditions are type:, stock:low, supplier:, machine:, "
+                             + "or price, inv, min or max compared with < <= = >= >");
+        alert.showAndWait();
+    }
+
     public void displayInvNotInRange ()
     {
         // create an alert dialog
@@ -292,6 +382,56 @@ public class DialogHelper
         alert.showAndWait();
     }
 
+    /**
+     * Displays the parts matching a filter query, e.g. "type:outsourced stock:low",
+     * the first of which has been selected in the view. At most FILTER_SHOWN parts
+     * are listed, a longer list only tells the user there are more
+     *
+     * @param parts the matching parts, in ID order, e.g. the first FILTER_SHOWN + 1
+     */
+    public void displayPartFilterResults (List<Part> parts)
+    {
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // build one line per part
+        StringBuilder text = new StringBuilder();
+
+        text.append((parts.size() > FILTER_SHOWN) ? "More than " + FILTER_SHOWN : parts.size())
+            .append((parts.size() == 1) ? " part matches" : " parts match")
+            .append(", the first has been selected in the view:\n\n")
+            .append("ID\tInv\tPrice\t\tName\n");
+        for (Part part : parts.subList(0, Math.min(FILTER_SHOWN, parts.size())))
+            {
+            text.append(part.getId())
+                .append("\t")
+                .append(part.getStock())
+                .append("\t")
+                .append(DisplayFormat.currency(part.getPrice()))
+                .append("\t\t")
+                .append(part.getName())
+                .append("\n");
+            }
+        if (parts.size() > FILTER_SHOWN)
+            {
+            text.append("... narrow the filter to see the rest\n");
+            }
+
+        // set dialog information
+        alert.setTitle("Filter");
+        alert.setHeaderText(null);
+        alert.setContentText(text.toString());
+        alert.showAndWait();
+    }
+
     /**
      * Displays a dialog informing the user that a part search failed
      * and did not return a part containing the term queried
@@ -340,8 +480,7 @@ public class DialogHelper
                              + "The following part has been selected in the view:\n\n" + "ID:\t\t"
                              + part.getId() + "\n" + "Name:\t" + part.getName() + "\n" + "Inv:\t\t"
                              + part.getStock() + "\n" + "Price:\t"
-                             + NumberFormat.getCurrencyInstance(
-                                 Locale.US).format(part.getPrice()));
+                             + DisplayFormat.currency(part.getPrice()));
         alert.showAndWait();
     }
 
@@ -435,8 +574,113 @@ public class DialogHelper
                              + "The following product has been selected in the view:\n\n"
                              + "ID:\t\t" + product.getId() + "\n" + "Name:\t" + product.getName()
                              + "\n" + "Inv:\t\t" + product.getStock() + "\n" + "Price:\t"
-                             + NumberFormat.getCurrencyInstance(
-                                 Locale.US).format(product.getPrice()));
+                             + DisplayFormat.currency(product.getPrice()));
+        alert.showAndWait();
+    }
+
+    /**
+     * Displays a dialog listing the parts at or below their minimum inventory,
+     * most urgent first, along with the quantity to reorder to bring each back to max.
+     * The first REORDER_SHOWN parts are listed, the rest are counted
+     *
+     * @param parts the parts needing reorder, as returned by LowStockMonitor
+     */
+    public void displayReorderParts (List<Part> parts)
+    {
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // build one line per part
+        StringBuilder text = new StringBuilder();
+
+        if (parts.isEmpty())
+            {
+            text.append("All parts are above their minimum inventory.");
+            }
+        else
+            {
+            text.append("The following parts are at or below their minimum inventory:\n\n");
+            text.append("ID\tInv / Min\tReorder\tName\n");
+            for (Part part : parts.subList(0, Math.min(REORDER_SHOWN, parts.size())))
+                {
+                text.append(part.getId())
+                    .append("\t")
+                    .append(part.getStock())
+                    .append(" / ")
+                    .append(part.getMin())
+                    .append("\t\t")
+                    .append(LowStockMonitor.suggestedReorderQty(part))
+                    .append("\t\t")
+                    .append(part.getName())
+                    .append("\n");
+                }
+            if (parts.size() > REORDER_SHOWN)
+                {
+                text.append("... and ").append(parts.size() - REORDER_SHOWN).append(" more\n");
+                }
+            }
+
+        // set dialog information
+        alert.setTitle("Reorder");
+        alert.setHeaderText(null);
+        alert.setContentText(text.toString());
+        alert.showAndWait();
+    }
+
+    /**
+     * Displays the dialog for a form rule broken when the user saved, the same dialogs
+     * as before the rules were shared, or the rule's own message for the others
+     *
+     * @param rule the first broken rule, from FormValidation.firstError()
+     */
+    public void displayRuleFailed (Rule rule)
+    {
+        switch (rule.getName())
+            {
+            case "hasParts":
+                displayProdHasNoParts();
+
+                return;
+            case "priceCoversParts":
+                displayProdPriceTooLow();
+
+                return;
+            case "minMax":
+                displayMaxInvTooLow();
+
+                return;
+            case "stockRange":
+                displayInvNotInRange();
+
+                return;
+            default:
+                break;
+            }
+
+        // create an alert dialog
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, "", ButtonType.OK);
+
+        // get the stage of the alert dialog
+        Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+
+        stage.centerOnScreen();
+
+        // set the dialog icon to match the rest of the application
+        stage.getIcons().add(new Image(this.getClass().getResource(icon).toString()));
+
+        // set dialog information
+        alert.setTitle("");
+        alert.setHeaderText(null);
+        alert.setContentText(rule.getTitle() + "\n" + rule.getDescription()
+                             + (rule.getExample().isEmpty() ? "" : "\n" + rule.getExample()));
         alert.showAndWait();
     }
 
@@ -0,0 +1,188 @@
+/*
+ *  Package: Helpers
+ *  File:    DisplayFormat.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+/**
+ * The one place prices and whole numbers are turned into display text,
+ * for the TableViews, the editors and the dialogs alike.
+ * <p>
+ * Prices are shown in US dollars, e.g. "$1,234.50", and keyed by their value in
+ * whole cents, so two prices showing the same text are the same key.
+ * Recently shown values are kept in small caches, so scrolling back and forth
+ * over a table, or many rows with the same price or stock, reuses the same
+ * String instead of formatting it again. A value not in the cache is written into
+ * one reused char buffer, so the new String is the only thing allocated.
+ * <p>
+ * The table columns for IDs, stock and prices should use intColumn() and
+ * currencyColumn(). Their cells read the number from the row with a primitive
+ * getter, so it is never boxed into an Integer or Double on the way.
+ *
+ * @author Justin Langley
+ */
+public final class DisplayFormat
+{
+    // entries in each cache, a power of two, a value's slot is its low bits
+    private static final int CACHE = 1 << 14;
+
+    private static final long[]   centsKeys = new long[CACHE];
+    private static final String[] centsText = new String[CACHE];
+    private static final int[]    intKeys   = new int[CACHE];
+    private static final String[] intText   = new String[CACHE];
+
+    // written from the end, the longest text is "-$92,233,720,368,547,758.08"
+    private static final char[] buffer = new char[32];
+
+    private DisplayFormat ()
+    {
+    }
+
+    /**
+     * Formats an amount of money as US dollars, e.g. "$1,234.50" or "-$0.25".
+     *
+     * @param amount the amount, rounded to the nearest cent
+     * @return the display text
+     */
+    public static String currency (double amount)
+    {
+        return currencyCents(toCents(amount));
+    }
+
+    // formats an amount of money given in whole cents, as currency()
+    public static synchronized String currencyCents (long cents)
+    {
+        int slot = (int) cents & (CACHE - 1);
+
+        if ((centsText[slot] == null) || (centsKeys[slot] != cents))
+            {
+            centsKeys[slot] = cents;
+            centsText[slot] = writeCents(cents);
+            }
+
+        return centsText[slot];
+    }
+
+    /**
+     * Shows a column of prices, read from each row as a double.
+     *
+     * @param column the column, whose cell value is the row itself
+     * @param getter the getter of the price, e.g. Part::getPrice
+     */
+    public static <S> void currencyColumn (TableColumn<S, S> column,
+                                           ToDoubleFunction<? super S> getter)
+    {
+        column.setCellValueFactory(CellValues.row());
+        column.setCellFactory((view) -> new TableCell<S, S>()
+            {
+            @Override
+            protected void updateItem (S row, boolean empty)
+            {
+                super.updateItem(row, empty);
+                setText((empty || (row == null)) ? null : currency(getter.applyAsDouble(row)));
+            }
+            });
+    }
+
+    // formats a whole number, e.g. an ID or stock level
+    public static synchronized String integer (int value)
+    {
+        int slot = value & (CACHE - 1);
+
+        if ((intText[slot] == null) || (intKeys[slot] != value))
+            {
+            intKeys[slot] = value;
+            intText[slot] = writeInteger(value);
+            }
+
+        return intText[slot];
+    }
+
+    /**
+     * Shows a column of whole numbers, read from each row as an int.
+     *
+     * @param column the column, whose cell value is the row itself
+     * @param getter the getter of the number, e.g. Part::getStock
+     */
+    public static <S> void intColumn (TableColumn<S, S> column, ToIntFunction<? super S> getter)
+    {
+        column.setCellValueFactory(CellValues.row());
+        column.setCellFactory((view) -> new TableCell<S, S>()
+            {
+            @Override
+            protected void updateItem (S row, boolean empty)
+            {
+                super.updateItem(row, empty);
+                setText((empty || (row == null)) ? null : integer(getter.applyAsInt(row)));
+            }
+            });
+    }
+
+    // converts an amount of money to whole cents, rounding to the nearest
+    public static long toCents (double amount)
+    {
+        return Math.round(amount * 100);
+    }
+
+    private static String writeCents (long cents)
+    {
+        int  end       = buffer.length;
+        int  start     = end;
+        long remaining = (cents == Long.MIN_VALUE) ? Long.MAX_VALUE : Math.abs(cents);
+        int  digits    = 0;
+
+        // the cents, then the dollars with a comma every three digits
+        buffer[--start] = (char) ('0' + (remaining % 10));
+        remaining       /= 10;
+        buffer[--start] = (char) ('0' + (remaining % 10));
+        remaining       /= 10;
+        buffer[--start] = '.';
+        do
+            {
+            if ((digits > 0) && ((digits % 3) == 0))
+                {
+                buffer[--start] = ',';
+                }
+            buffer[--start] = (char) ('0' + (remaining % 10));
+            remaining       /= 10;
+            digits++;
+            }
+        while (remaining > 0);
+        buffer[--start] = '$';
+        if (cents < 0)
+            {
+            buffer[--start] = '-';
+            }
+
+        return new String(buffer, start, end - start);
+    }
+
+    private static String writeInteger (int value)
+    {
+        int  end       = buffer.length;
+        int  start     = end;
+        long remaining = Math.abs((long) value);
+
+        do
+            {
+            buffer[--start] = (char) ('0' + (remaining % 10));
+            remaining       /= 10;
+            }
+        while (remaining > 0);
+        if (value < 0)
+            {
+            buffer[--start] = '-';
+            }
+
+        return new String(buffer, start, end - start);
+    }
+}
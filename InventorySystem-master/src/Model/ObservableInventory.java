@@ -0,0 +1,111 @@
+/*
+ *  Package: Model
+ *  File:    ObservableInventory.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Comparator;
+
+/**
+ * An Inventory for the JavaFX user interface.
+ * <p>
+ * The core Inventory holds its parts and products in persistent lists and has no
+ * JavaFX dependency. This subclass shows them to the TableViews through PagedLists,
+ * which read the rows a table displays straight from the current state, so
+ * nothing is copied however large the inventory grows.
+ * <p>
+ * Each list shows either the ID index or the name index of the state, in either
+ * direction, which is how the TableViews sort. The change hooks of Inventory
+ * move the lists to the new state, reporting only the row an edit changed.
+ *
+ * @author Justin Langley
+ */
+public class ObservableInventory extends Inventory
+{
+    // orders of the indexes, matching how InventorySnapshot keeps them
+    private static final Comparator<Part>    PART_ID_ORDER    =
+        Comparator.comparingInt(Part::getId);
+    private static final Comparator<Product> PRODUCT_ID_ORDER =
+        Comparator.comparingInt(Product::getId);
+
+    // the TableView lists of parts and products, in ID order until sorted
+    private final PagedList<Part>    allParts    = new PagedList<>(PersistentList.empty(),
+                                                                   PART_ID_ORDER);
+    private final PagedList<Product> allProducts = new PagedList<>(PersistentList.empty(),
+                                                                   PRODUCT_ID_ORDER);
+
+    // whether each list shows the name index rather than the ID index
+    private boolean partsByName;
+    private boolean productsByName;
+
+    // returns the TableView list of parts, in the order it was last sorted
+    @Override
+    public PagedList<Part> getAllParts ()
+    {
+        return this.allParts;
+    }
+
+    // returns the TableView list of products, in the order it was last sorted
+    @Override
+    public PagedList<Product> getAllProducts ()
+    {
+        return this.allProducts;
+    }
+
+    /**
+     * Sorts the TableView list of parts, by switching to the index in that order.
+     *
+     * @param byName true to sort by name, false by ID
+     * @param ascending the direction
+     */
+    public void sortParts (boolean byName, boolean ascending)
+    {
+        InventorySnapshot snapshot = snapshot();
+
+        this.partsByName = byName;
+        allParts.setSource(byName ? snapshot.getPartsByName() : snapshot.getParts(),
+                           byName ? InventorySnapshot.PART_NAME_ORDER : PART_ID_ORDER,
+                           !ascending);
+    }
+
+    // sorts the TableView list of products, as sortParts()
+    public void sortProducts (boolean byName, boolean ascending)
+    {
+        InventorySnapshot snapshot = snapshot();
+
+        this.productsByName = byName;
+        allProducts.setSource(byName ? snapshot.getProductsByName() : snapshot.getProducts(),
+                              byName ? InventorySnapshot.PRODUCT_NAME_ORDER : PRODUCT_ID_ORDER,
+                              !ascending);
+    }
+
+    @Override
+    protected void partChanged (Part old, Part replacement)
+    {
+        InventorySnapshot snapshot = snapshot();
+
+        allParts.replace(partsByName ? snapshot.getPartsByName() : snapshot.getParts(), old,
+                         replacement);
+    }
+
+    @Override
+    protected void productChanged (Product old, Product replacement)
+    {
+        InventorySnapshot snapshot = snapshot();
+
+        allProducts.replace(productsByName ? snapshot.getProductsByName()
+                                           : snapshot.getProducts(),
+                            old, replacement);
+    }
+
+    @Override
+    protected void stateChanged (InventorySnapshot snapshot)
+    {
+        // the whole state changed, show it in the order each list already has
+        sortParts(partsByName, !allParts.isDescending());
+        sortProducts(productsByName, !allProducts.isDescending());
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *  Package: Model
+ *  File:    PagedList.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * A read-only ObservableList over one index of the inventory, for a TableView.
+ * <p>
+ * Nothing is copied into the list. A TableView only asks for the rows it shows,
+ * and these are read from the index a page at a time: the row asked for plus
+ * a margin either side, so scrolling in either direction is served from the page.
+ * With a million parts, the table still only ever touches a few hundred.
+ * <p>
+ * Edits are reported as the smallest change, e.g. a replaced part is a single
+ * row update, so the TableView redraws that row and leaves the others alone.
+ * <p>
+ * indexOf() and contains() binary search the index, rather than scanning it,
+ * so selecting a row by its part stays fast however long the list is.
+ *
+ * @author Justin Langley
+ * @param <E> the type of rows
+ */
+public final class PagedList<E> extends ObservableListBase<E>
+{
+    // rows read into the page, around the row asked for
+    private static final int PAGE   = 256;
+    private static final int MARGIN = PAGE / 4;
+
+    private PersistentList<E>     source;
+    private Comparator<? super E> order;
+    private boolean               descending;
+
+    // the cached page of rows, in list order, and the list index of its first row
+    private final Object[] page = new Object[PAGE];
+    private int            pageStart;
+    private int            pageSize;
+
+    /**
+     * Creates a list over an index.
+     *
+     * @param source the index, sorted in the given order
+     * @param order the order of the index
+     */
+    public PagedList (PersistentList<E> source, Comparator<? super E> order)
+    {
+        this.source = source;
+        this.order  = order;
+    }
+
+    @Override
+    public boolean contains (Object o)
+    {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public E get (int index)
+    {
+        if ((index < pageStart) || (index >= pageStart + pageSize))
+            {
+            if ((index < 0) || (index >= size()))
+                {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                }
+            readPage(index);
+            }
+
+        @SuppressWarnings("unchecked")
+        E row = (E) page[index - pageStart];
+
+        return row;
+    }
+
+    // returns the index being shown
+    public PersistentList<E> getSource ()
+    {
+        return this.source;
+    }
+
+    @Override
+    public int indexOf (Object o)
+    {
+        int position = position(o, source);
+
+        return (position < 0) ? -1 : toIndex(position);
+    }
+
+    public boolean isDescending ()
+    {
+        return this.descending;
+    }
+
+    @Override
+    public int lastIndexOf (Object o)
+    {
+        return indexOf(o);
+    }
+
+    /**
+     * Moves to a new version of the index after one row was added, deleted or replaced,
+     * and tells listeners only about that row.
+     *
+     * @param next the new index
+     * @param old the row replaced or deleted, null if one was added
+     * @param replacement the new row, null if one was deleted
+     */
+    public void replace (PersistentList<E> next, E old, E replacement)
+    {
+        int oldPosition = (old == null) ? -1 : position(old, source);
+
+        if (replacement == null)
+            {
+            if (oldPosition >= 0)
+                {
+                removeAt(oldPosition, old);
+                }
+            this.source = next;
+
+            return;
+            }
+
+        int newPosition = position(replacement, next);
+
+        if ((oldPosition >= 0) && (oldPosition == newPosition) && (next.size() == source.size()))
+            {
+            // same place in the order, e.g. a stock change: one row update
+            this.source = next;
+            clearPage();
+            beginChange();
+            nextSet(toIndex(newPosition), old);
+            endChange();
+
+            return;
+            }
+        if (oldPosition >= 0)
+            {
+            removeAt(oldPosition, old);
+            }
+        this.source = next;
+        clearPage();
+        beginChange();
+        nextAdd(toIndex(newPosition), toIndex(newPosition) + 1);
+        endChange();
+    }
+
+    /**
+     * Shows a different index, or the same one in a different order, e.g. after
+     * the TableView was sorted by another column or the inventory was restored.
+     * Listeners are told every row changed.
+     *
+     * @param next the index
+     * @param nextOrder the order of the index
+     * @param nextDescending whether to show the index last row first
+     */
+    public void setSource (PersistentList<E> next, Comparator<? super E> nextOrder,
+                           boolean nextDescending)
+    {
+        PersistentList<E>     previous      = this.source;
+        Comparator<? super E> previousOrder = this.order;
+        boolean               wasDescending = this.descending;
+
+        this.source     = next;
+        this.order      = nextOrder;
+        this.descending = nextDescending;
+        clearPage();
+
+        beginChange();
+        if (!previous.isEmpty())
+            {
+            PagedList<E> removed = new PagedList<>(previous, previousOrder);
+
+            removed.descending = wasDescending;
+            nextRemove(0, removed);
+            }
+        if (!next.isEmpty())
+            {
+            nextAdd(0, next.size());
+            }
+        endChange();
+    }
+
+    @Override
+    public int size ()
+    {
+        return source.size();
+    }
+
+    private void clearPage ()
+    {
+        Arrays.fill(page, 0, pageSize, null);
+        pageSize = 0;
+    }
+
+    // the position of a row in an index, or -1 if it is not there
+    @SuppressWarnings("unchecked")
+    private int position (Object o, PersistentList<E> index)
+    {
+        if (o == null)
+            {
+            return -1;
+            }
+
+        E   row;
+        int position;
+
+        try
+            {
+            row      = (E) o;
+            position = index.search((other) -> order.compare(other, row));
+            }
+        catch (ClassCastException e)
+            {
+            return -1;
+            }
+
+        return ((position >= 0) && index.get(position).equals(row)) ? position : -1;
+    }
+
+    // reads the page holding a row, with a margin before it for scrolling back
+    private void readPage (int index)
+    {
+        int size = size();
+
+        pageStart = Math.max(0, Math.min(index - MARGIN, size - PAGE));
+        pageSize  = Math.min(PAGE, size - pageStart);
+
+        if (descending)
+            {
+            // list index i is index position size - 1 - i, so read the positions backwards
+            Iterator<E> rows = source.iterator(size - pageStart - pageSize);
+
+            for (int i = pageSize - 1; i >= 0; i--)
+                {
+                page[i] = rows.next();
+                }
+            }
+        else
+            {
+            Iterator<E> rows = source.iterator(pageStart);
+
+            for (int i = 0; i < pageSize; i++)
+                {
+                page[i] = rows.next();
+                }
+            }
+    }
+
+    // removes the row at a position of the current index, and tells listeners
+    private void removeAt (int position, E old)
+    {
+        int index = toIndex(position);
+
+        this.source = source.remove(position);
+        clearPage();
+        beginChange();
+        nextRemove(index, old);
+        endChange();
+    }
+
+    // the list index showing a position of the current index
+    private int toIndex (int position)
+    {
+        return descending ? (source.size() - 1 - position) : position;
+    }
+}
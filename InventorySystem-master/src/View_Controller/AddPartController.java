@@ -10,9 +10,9 @@ package View_Controller;
 
 import java.net.URL;
 
-import java.text.ParseException;
-
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import javafx.beans.binding.BooleanBinding;
@@ -30,6 +30,10 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import Helpers.DialogHelper;
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+import Helpers.FormValidation;
+import Helpers.InventoryRules.PartForm;
 import Helpers.ValidationHelper;
 
 import Model.Inventory;
@@ -70,6 +74,10 @@ public class AddPartController implements Initializable
     private final DialogHelper     dialog    = new DialogHelper();
     private final ValidationHelper validator = new ValidationHelper();
 
+    // the part rules, checked field by field as the user types
+    private final FormValidation        form   = PartForm.RULES.newValidation();
+    private final Map<Field, TextField> inputs = new LinkedHashMap<>();
+
     // disables the save button if specific fields are not filled
     @FXML
     private void bindSaveButton ()
@@ -135,6 +143,11 @@ public class AddPartController implements Initializable
     public void initialize (URL url, ResourceBundle rb)
     {
         bindSaveButton();
+        watch(partName, PartForm.NAME);
+        watch(inv, PartForm.STOCK);
+        watch(partPriceCost, PartForm.PRICE);
+        watch(minInput, PartForm.MIN);
+        watch(maxInput, PartForm.MAX);
     }
 
     // runs a numeric-only validator while the user types
@@ -145,7 +158,10 @@ public class AddPartController implements Initializable
         String key = ev.getCharacter();
 
         // filter that removes non-numeric entries
-        validator.validateNumeric(ev, key, inv, errorLabelList);
+        if (validator.validateNumeric(ev, key, inv, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // runs a cutomized validator for qty fields while the user types
@@ -158,11 +174,8 @@ public class AddPartController implements Initializable
         // first allow only numbers
         if (validator.validateNumeric(ev, key, maxInput, errorLabelList))
             {
-            // the key press was valid
-            int pos = maxInput.getCaretPosition();
-
-            // validate the quantities
-            validator.validateMaxQty(pos, key, minInput, maxInput, errorLabelList);
+            // the key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -176,11 +189,8 @@ public class AddPartController implements Initializable
         // first allow only numbers
         if (validator.validateNumeric(ev, key, minInput, errorLabelList))
             {
-            // the key press was valid
-            int pos = minInput.getCaretPosition();
-
-            // validate the quantities
-            validator.validateMinQty(pos, key, minInput, maxInput, errorLabelList);
+            // the key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -192,7 +202,10 @@ public class AddPartController implements Initializable
         String key = ev.getCharacter();
 
         // validates against allowed characters
-        validator.validatePartName(ev, key, partName, errorLabelList);
+        if (validator.validatePartName(ev, key, partName, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // runs a currency validator while the user types
@@ -201,14 +214,12 @@ public class AddPartController implements Initializable
     {
         // get the key press
         String key = ev.getCharacter();
-        int    pos = partPriceCost.getCaretPosition();
-
-        /*
-         *  validate what is currently in the field
-         *  checks against custom filter for allowed chars
-         *  additionally, uses regex to validate formatting
-         */
-        validator.validateCurrency(pos, ev, key, partPriceCost, errorLabelList);
+
+        // checks against custom filter for allowed chars, the form checks the amount
+        if (validator.validateCurrency(ev, key, partPriceCost, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // form control for user-selections of InHouse/Outsourced
@@ -231,36 +242,43 @@ public class AddPartController implements Initializable
             }
     }
 
+    // empties the form, as it is shown for a new part
+    void reset ()
+    {
+        partName.clear();
+        inv.clear();
+        partPriceCost.clear();
+        minInput.clear();
+        maxInput.clear();
+
+        // back to an InHouse part, which also empties the Machine ID
+        inHouse.setSelected(true);
+        partSourceSelection();
+        clearErrors();
+    }
+
     // gets user-input, performs checks, saves if the checks pass
     @FXML
-    private void save () throws ParseException
+    private void save ()
     {
-        // parse user inputs
-        String name  = this.partName.getText().trim();
-        int    stock = Integer.valueOf(this.inv.getText());
-        int    min   = Integer.valueOf(minInput.getText());
-        int    max   = Integer.valueOf(maxInput.getText());
-        Double price = validator.parseCurrency(partPriceCost.getText());
+        // the rules were checked as the user typed, report the first still broken
+        Rule failed = form.firstError();
 
-        // determine if the max inventory is too low
-        if (max < min)
+        if (failed != null)
             {
             // inform the user
-            dialog.displayMaxInvTooLow();
+            dialog.displayRuleFailed(failed);
 
             // exit this function
             return;
             }
 
-        // determine if inv is within the range of min, max
-        if ((stock < min) || (stock > max))
-            {
-            // not in range, inform the user
-            dialog.displayInvNotInRange();
-
-            // exit this function
-            return;
-            }
+        // the values the rules were checked against
+        String name  = this.partName.getText().trim();
+        int    stock = form.getInt(PartForm.STOCK);
+        int    min   = form.getInt(PartForm.MIN);
+        int    max   = form.getInt(PartForm.MAX);
+        double price = form.getCents(PartForm.PRICE) / 100.0;
 
         // if the previous checks passed, the part can be saved
         // first, check which type of part to generate
@@ -298,6 +316,21 @@ public class AddPartController implements Initializable
         stage.close();
     }
 
+    // keeps the form in step with a text field, as the user types or pastes
+    private void watch (TextField input, Field field)
+    {
+        inputs.put(field, input);
+        input.textProperty().addListener((property, was, text) ->
+            {
+            // only the rules reading this field are checked again
+            form.set(field, text);
+            if (input.isFocused())
+                {
+                validator.show(form, inputs, errorLabelList);
+                }
+            });
+    }
+
     // sets the injected inventory object
     public void setInventory (Inventory inventory)
     {
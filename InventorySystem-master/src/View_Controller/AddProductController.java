@@ -10,16 +10,14 @@ package View_Controller;
 
 import java.net.URL;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
-
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import javafx.beans.binding.BooleanBinding;
 
-import javafx.collections.ObservableList;
+import javafx.collections.FXCollections;
 
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -29,16 +27,22 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 
 import javafx.stage.Stage;
 
+import Helpers.CellValues;
 import Helpers.DialogHelper;
+import Helpers.DisplayFormat;
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+import Helpers.FormValidation;
+import Helpers.InventoryRules;
+import Helpers.InventoryRules.ProductForm;
 import Helpers.SearchHelper;
 import Helpers.ValidationHelper;
 
-import Model.Inventory;
+import Model.ObservableInventory;
 import Model.Part;
 import Model.Product;
 
@@ -54,25 +58,25 @@ public class AddProductController implements Initializable
     private Button                       save;
     @FXML
     private Button                       searchPart;
-    private Inventory                    inventory;
+    private ObservableInventory          inventory;
     @FXML
     private List<Label>                  errorLabelList;
     @FXML
-    private TableColumn<Part, String>    partId;
+    private TableColumn<Part, Part>      partId;
     @FXML
-    private TableColumn<Part, String>    partInv;
+    private TableColumn<Part, Part>      partInv;
     @FXML
     private TableColumn<Part, String>    partName;
     @FXML
-    private TableColumn<Part, String>    partPrice;
+    private TableColumn<Part, Part>      partPrice;
     @FXML
-    private TableColumn<Product, String> assocPartId;
+    private TableColumn<Part, Part>      assocPartId;
     @FXML
-    private TableColumn<Product, String> assocPartInv;
+    private TableColumn<Part, Part>      assocPartInv;
     @FXML
-    private TableColumn<Product, String> assocPartName;
+    private TableColumn<Part, String>    assocPartName;
     @FXML
-    private TableColumn<Product, String> assocPartPrice;
+    private TableColumn<Part, Part>      assocPartPrice;
     @FXML
     private TableView<Part>              assocPartView;
     @FXML
@@ -96,6 +100,10 @@ public class AddProductController implements Initializable
     private final DialogHelper           dialog    = new DialogHelper();
     private final ValidationHelper       validator = new ValidationHelper();
 
+    // the product rules, checked field by field as the user types
+    private final FormValidation        form   = ProductForm.RULES.newValidation();
+    private final Map<Field, TextField> inputs = new LinkedHashMap<>();
+
     // add a part to the product being created
     @FXML
     private void associatePart ()
@@ -186,6 +194,11 @@ public class AddProductController implements Initializable
     public void initialize (URL url, ResourceBundle rb)
     {
         bindSaveButton();
+        watch(productName, ProductForm.NAME);
+        watch(inv, ProductForm.STOCK);
+        watch(productPrice, ProductForm.PRICE);
+        watch(minInput, ProductForm.MIN);
+        watch(maxInput, ProductForm.MAX);
     }
 
     // validate inv input as the user types, keep numeric only
@@ -196,7 +209,10 @@ public class AddProductController implements Initializable
         String key = ev.getCharacter();
 
         // validate what is currently in the inv input field
-        validator.validateNumeric(ev, key, inv, errorLabelList);
+        if (validator.validateNumeric(ev, key, inv, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // validate max input field as the user types
@@ -209,11 +225,8 @@ public class AddProductController implements Initializable
         // validate what is currently in the max input field
         if (validator.validateNumeric(ev, key, maxInput, errorLabelList))
             {
-            // key press was valid, compare min,max values
-            int pos = maxInput.getCaretPosition();
-
-            // validate the quantities
-            validator.validateMaxQty(pos, key, minInput, maxInput, errorLabelList);
+            // key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -227,11 +240,8 @@ public class AddProductController implements Initializable
         // validate what is currently in the min input field
         if (validator.validateNumeric(ev, key, minInput, errorLabelList))
             {
-            // key press was valid, compare min,max values
-            int pos = minInput.getCaretPosition();
-
-            // validate the quantities
-            validator.validateMinQty(pos, key, minInput, maxInput, errorLabelList);
+            // key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -243,7 +253,10 @@ public class AddProductController implements Initializable
         String key = ev.getCharacter();
 
         // validate what is currently in the product name input field
-        validator.validateProductName(ev, key, productName, errorLabelList);
+        if (validator.validateProductName(ev, key, productName, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // validate the price input as the user types
@@ -252,82 +265,57 @@ public class AddProductController implements Initializable
     {
         // get the key pressed
         String key = ev.getCharacter();
-        int    pos = productPrice.getCaretPosition();
 
-        // validate as currency input
-        validator.validateCurrency(pos, ev, key, productPrice, errorLabelList);
+        // validate as currency input, the form checks the amount
+        if (validator.validateCurrency(ev, key, productPrice, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
+    }
+
+    // empties the form and the associated parts, as it is shown for a new product
+    void reset ()
+    {
+        temp = new Product(0, "", 0, 0, 0, 0);
+        productName.clear();
+        inv.clear();
+        productPrice.clear();
+        minInput.clear();
+        maxInput.clear();
+        searchBar.clear();
+        partView.getSelectionModel().clearSelection();
+        updateViews();
+        clearErrors();
     }
 
     // performs checks on input, saves the product if all checks pass
     @FXML
-    private void save () throws ParseException
+    private void save ()
     {
-        // parse user inputs
-        String name  = productName.getText().trim();
-        int    stock = Integer.valueOf(inv.getText());
-        int    min   = Integer.valueOf(minInput.getText());
-        int    max   = Integer.valueOf(maxInput.getText());
-        Double price = validator.parseCurrency(productPrice.getText());
-
-        // detect if product has no parts
-        if (temp.getAllAssociatedParts().size() < 1)
-            {
-            // product has no parts, inform the user
-            dialog.displayProdHasNoParts();
-
-            // exit this function
-            return;
-            }
-
-        // compute total cost of associated parts
-        double prodTotalCost = 0;
-
-        prodTotalCost = temp.getAllAssociatedParts()
-                            .stream()
-                            .map((part) -> part.getPrice())
-                            .reduce(prodTotalCost, (accum, _item) -> accum + _item);
-
-        // determine if the the entered price is less than cost of its parts
-        if (prodTotalCost > price)
-            {
-            // price is set too low, inform the user
-            dialog.displayProdPriceTooLow();
-
-            // exit this function
-            return;
-            }
+        // the rules were checked as the user typed, report the first still broken
+        Rule failed = form.firstError();
 
-        // determine if the max inventory is too low
-        if (max < min)
+        if (failed != null)
             {
             // inform the user
-            dialog.displayMaxInvTooLow();
+            dialog.displayRuleFailed(failed);
 
             // exit this function
             return;
             }
 
-        // determine if inv is within the range of min, max
-        if ((stock < min) || (stock > max))
-            {
-            // inform the user
-            dialog.displayInvNotInRange();
-
-            // exit this function
-            return;
-            }
+        // the values the rules were checked against
+        String name  = productName.getText().trim();
+        int    stock = form.getInt(ProductForm.STOCK);
+        int    min   = form.getInt(ProductForm.MIN);
+        int    max   = form.getInt(ProductForm.MAX);
+        double price = form.getCents(ProductForm.PRICE) / 100.0;
 
         // if previous checks pass, the product can be saved
         Product newProd = new Product(name, price, stock, min, max);
 
-        // copy all associated parts from the view
-        ObservableList<Part> assoc = temp.getAllAssociatedParts();
-
-        // add all associated parts
-        assoc.forEach(
-            (part) -> {
-                newProd.addAssociatedPart(part);
-            });
+        // give the new product all associated parts, shared rather than copied
+        newProd.setAssociatedParts(temp.getAssociatedPartsSnapshot());
 
         // add the new product to the inventory
         inventory.addProduct(newProd);
@@ -347,42 +335,57 @@ public class AddProductController implements Initializable
     }
 
     // set the injected inventory object
-    void setInventory (Inventory inventory)
+    void setInventory (ObservableInventory inventory)
     {
         this.inventory = inventory;
     }
 
-    // set the TableViews with injected inventory object
-    void setTableViews (Inventory inventory)
+    // set the TableViews with injected inventory object, once for the life of the window
+    void setTableViews (ObservableInventory inventory)
     {
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
-
         // associate part view cells with part data elements
-        partId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partName.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInv.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        DisplayFormat.intColumn(partId, Part::getId);
+        partName.setCellValueFactory(CellValues.of(Part::getName));
+        DisplayFormat.intColumn(partInv, Part::getStock);
+        DisplayFormat.currencyColumn(partPrice, Part::getPrice);
 
-        // format price column to currency format
-        partPrice.setCellFactory(new CurrencyCellFactory<>());
         partView.setItems(inventory.getAllParts());
+        MainController.sortByIndex(partView, partName, inventory::sortParts);
+        partInv.setSortable(false);
+        partPrice.setSortable(false);
 
         // associate product view cells with product data elements
-        assocPartId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        assocPartName.setCellValueFactory(new PropertyValueFactory<>("name"));
-        assocPartInv.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        assocPartPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        // format price column to currency format
-        assocPartPrice.setCellFactory(new CurrencyCellFactory<>());
-        assocPartView.setItems(temp.getAllAssociatedParts());
+        DisplayFormat.intColumn(assocPartId, Part::getId);
+        assocPartName.setCellValueFactory(CellValues.of(Part::getName));
+        DisplayFormat.intColumn(assocPartInv, Part::getStock);
+        DisplayFormat.currencyColumn(assocPartPrice, Part::getPrice);
+
+        assocPartView.setItems(FXCollections.observableArrayList(temp.getAllAssociatedParts()));
     }
 
     // refreshes TableViews
     private void updateViews ()
     {
-        // force refresh of the TableViews
-        partView.refresh();
-        assocPartView.refresh();
+        // show the current associated parts, the parts table is unchanged
+        assocPartView.getItems().setAll(temp.getAllAssociatedParts());
+
+        // the parts rules read the associated parts rather than a text field
+        form.setValue(ProductForm.PARTS_COST, InventoryRules.cents(temp.getAssociatedPartsCost()));
+        form.setValue(ProductForm.PART_COUNT, temp.getAllAssociatedParts().size());
+    }
+
+    // keeps the form in step with a text field, as the user types or pastes
+    private void watch (TextField input, Field field)
+    {
+        inputs.put(field, input);
+        input.textProperty().addListener((property, was, text) ->
+            {
+            // only the rules reading this field are checked again
+            form.set(field, text);
+            if (input.isFocused())
+                {
+                validator.show(form, inputs, errorLabelList);
+                }
+            });
     }
 }
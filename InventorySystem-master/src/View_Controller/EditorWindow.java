@@ -0,0 +1,199 @@
+/*
+ *  Package: View_Controller
+ *  File:    EditorWindow.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package View_Controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import javafx.fxml.FXMLLoader;
+
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+/**
+ * One of the editor windows, e.g. Add Part, loaded once and shown again on each use.
+ * <p>
+ * Parsing an editor's FXML takes far longer than showing it, so the FXML is parsed
+ * only the first time, or ahead of time in the background with preload(). The
+ * stage, scene and controller are then kept, and each later use only resets the
+ * controller's form before showing the same stage again.
+ * <p>
+ * Nodes may be built off the FX thread as long as they are not yet in a showing
+ * scene, so preload() only parses. The stage is made, and the setup given to the
+ * constructor is run, on the FX thread the first time controller() is called.
+ *
+ * @author Justin Langley
+ * @param <C> the type of the controller
+ */
+final class EditorWindow<C>
+{
+    // the window icon, shared by every editor
+    private static Image icon;
+
+    private final String              fxml;
+    private final String              title;
+    private final double              width;
+    private final double              height;
+    private final boolean             resizable;
+    private final Consumer<? super C> setup;
+
+    // the parsed FXML, until the stage is made from it
+    private CompletableFuture<FXMLLoader> loading;
+    private C                             controller;
+    private Stage                         stage;
+
+    /**
+     * Creates an editor window, nothing is loaded until it is used or preloaded.
+     *
+     * @param fxml the FXML file, relative to this package
+     * @param title the window title
+     * @param width the initial width
+     * @param height the initial height
+     * @param resizable whether the user may resize the window
+     * @param setup run once with the new controller, e.g. to inject the inventory
+     */
+    EditorWindow (String fxml, String title, double width, double height, boolean resizable,
+                  Consumer<? super C> setup)
+    {
+        this.fxml      = fxml;
+        this.title     = title;
+        this.width     = width;
+        this.height    = height;
+        this.resizable = resizable;
+        this.setup     = setup;
+    }
+
+    /**
+     * Returns the controller, making the window first if this is its first use.
+     * Call on the FX thread. If the FXML is still being preloaded, this waits for it.
+     *
+     * @return the controller
+     * @throws IOException if the FXML could not be loaded
+     */
+    C controller () throws IOException
+    {
+        if (stage == null)
+            {
+            create(parsed());
+            }
+
+        return this.controller;
+    }
+
+    /**
+     * Starts parsing the FXML in the background, so the first use need not wait.
+     * Does nothing if it was already started. Call on the FX thread.
+     *
+     * @param executor runs the parse
+     */
+    void preload (Executor executor)
+    {
+        if ((stage == null) && (loading == null))
+            {
+            loading = CompletableFuture.supplyAsync(() ->
+                {
+                try
+                    {
+                    return parse();
+                    }
+                catch (IOException e)
+                    {
+                    throw new UncheckedIOException(e);
+                    }
+                }, executor);
+            }
+    }
+
+    // shows the window, centred, and returns at once
+    void show () throws IOException
+    {
+        controller();
+        stage.centerOnScreen();
+        stage.show();
+    }
+
+    // shows the window, centred, and returns when it is closed
+    void showAndWait () throws IOException
+    {
+        controller();
+        stage.centerOnScreen();
+        stage.showAndWait();
+    }
+
+    // returns the stage, once the window has been made
+    Stage stage ()
+    {
+        return this.stage;
+    }
+
+    private void create (FXMLLoader loader)
+    {
+        if (icon == null)
+            {
+            icon = new Image("/Images/icon.png");
+            }
+
+        Stage created = new Stage();
+
+        created.initModality(Modality.APPLICATION_MODAL);
+        created.setHeight(height);
+        created.setWidth(width);
+        created.setResizable(resizable);
+        created.getIcons().add(icon);
+        created.setTitle(title);
+        created.setScene(new Scene(loader.getRoot()));
+
+        this.controller = loader.getController();
+        this.stage      = created;
+        this.loading    = null;
+        setup.accept(controller);
+    }
+
+    private FXMLLoader parse () throws IOException
+    {
+        FXMLLoader loader = new FXMLLoader(EditorWindow.class.getResource(fxml));
+
+        // a background thread may not have this class loader as its context loader
+        loader.setClassLoader(EditorWindow.class.getClassLoader());
+        loader.<Parent>load();
+
+        return loader;
+    }
+
+    // the preloaded FXML, or the FXML parsed now if it was not preloaded
+    private FXMLLoader parsed () throws IOException
+    {
+        if (loading == null)
+            {
+            return parse();
+            }
+        try
+            {
+            return loading.join();
+            }
+        catch (CompletionException e)
+            {
+            // let the next use try again
+            loading = null;
+            if (e.getCause() instanceof UncheckedIOException)
+                {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+            throw e;
+            }
+    }
+}
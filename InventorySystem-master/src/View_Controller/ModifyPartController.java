@@ -10,11 +10,9 @@ package View_Controller;
 
 import java.net.URL;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
-
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import javafx.beans.binding.BooleanBinding;
@@ -32,12 +30,18 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import Helpers.DialogHelper;
+import Helpers.DisplayFormat;
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+import Helpers.FormValidation;
+import Helpers.InventoryRules.PartForm;
 import Helpers.ValidationHelper;
 
 import Model.Inventory;
 import Model.Part;
 import Model.PartInHouse;
 import Model.PartOutsourced;
+import Model.UpdateResult;
 
 public class ModifyPartController implements Initializable
 {
@@ -73,9 +77,14 @@ public class ModifyPartController implements Initializable
     private boolean                isInHouse;
     private PartInHouse            partInHouse    = null;
     private PartOutsourced         partOutsourced = null;
+    private long                   version;
     private final ValidationHelper validator      = new ValidationHelper();
     private final DialogHelper     dialog         = new DialogHelper();
 
+    // the part rules, checked field by field as the user types
+    private final FormValidation        form   = PartForm.RULES.newValidation();
+    private final Map<Field, TextField> inputs = new LinkedHashMap<>();
+
     // disable the save button if appropriate fields are not filled
     @FXML
     private void bindSaveButton ()
@@ -141,6 +150,13 @@ public class ModifyPartController implements Initializable
     {
         // bind the save button
         bindSaveButton();
+
+        // check the rules reading each field as it changes
+        watch(partName, PartForm.NAME);
+        watch(inv, PartForm.STOCK);
+        watch(partPriceCost, PartForm.PRICE);
+        watch(minInput, PartForm.MIN);
+        watch(maxInput, PartForm.MAX);
     }
 
     // validates the inv field as the user types
@@ -151,7 +167,10 @@ public class ModifyPartController implements Initializable
         String key = ev.getCharacter();
 
         // run the validator to allow numeric inputs only
-        validator.validateNumeric(ev, key, inv, errorLabelList);
+        if (validator.validateNumeric(ev, key, inv, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // validates the max field as the user types
@@ -164,11 +183,8 @@ public class ModifyPartController implements Initializable
         // validate what is currently in the max input field
         if (validator.validateNumeric(ev, key, maxInput, errorLabelList))
             {
-            // value was numeric
-            int pos = maxInput.getCaretPosition();
-
-            // run the validator to check quantities
-            validator.validateMaxQty(pos, key, minInput, maxInput, errorLabelList);
+            // value was numeric, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -182,11 +198,8 @@ public class ModifyPartController implements Initializable
         // first, allow only numeric values
         if (validator.validateNumeric(ev, key, minInput, errorLabelList))
             {
-            // value was numeric
-            int pos = minInput.getCaretPosition();
-
-            // run validator to check quantites
-            validator.validateMinQty(pos, key, minInput, maxInput, errorLabelList);
+            // value was numeric, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -198,7 +211,10 @@ public class ModifyPartController implements Initializable
         String key = ev.getCharacter();
 
         // run the validator with the part name filter
-        validator.validatePartName(ev, key, partName, errorLabelList);
+        if (validator.validatePartName(ev, key, partName, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // runs as the user types to validate price input
@@ -207,10 +223,12 @@ public class ModifyPartController implements Initializable
     {
         // get the key pressed
         String key = ev.getCharacter();
-        int    pos = partPriceCost.getCaretPosition();
 
-        // validate what is currently in the price input field
-        validator.validateCurrency(pos, ev, key, partPriceCost, errorLabelList);
+        // filter the key, the form checks the amount
+        if (validator.validateCurrency(ev, key, partPriceCost, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // runs when the user changes the selection of the part source, updates form controls
@@ -239,120 +257,71 @@ public class ModifyPartController implements Initializable
 
     // performs various checks, and if they pass, saves the edited part
     @FXML
-    private void save () throws ParseException
+    private void save ()
     {
-        // parse user inputs
-        int    curr_id = Integer.valueOf(id.getText());
-        String name    = this.partName.getText().trim();
-        int    stock   = Integer.valueOf(this.inv.getText());
-        int    min     = Integer.valueOf(minInput.getText());
-        int    max     = Integer.valueOf(maxInput.getText());
-        Double price   = validator.parseCurrency(partPriceCost.getText());
+        // the rules were checked as the user typed, report the first still broken
+        Rule failed = form.firstError();
 
-        // determine if the max inventory is too low
-        if (max < min)
+        if (failed != null)
             {
             // inform the user
-            dialog.displayMaxInvTooLow();
+            dialog.displayRuleFailed(failed);
 
             // exit this function
             return;
             }
 
-        // determine if inv is within the range of min, max
-        if ((stock < min) || (stock > max))
-            {
-            // inform the user
-            dialog.displayInvNotInRange();
+        // the values the rules were checked against
+        int    curr_id = Integer.valueOf(id.getText());
+        String name    = this.partName.getText().trim();
+        int    stock   = form.getInt(PartForm.STOCK);
+        int    min     = form.getInt(PartForm.MIN);
+        int    max     = form.getInt(PartForm.MAX);
+        double price   = form.getCents(PartForm.PRICE) / 100.0;
 
-            // exit this function
-            return;
-            }
-        if (isInHouse)                   // part is currently of type PartInHouse
+        // create a temporary part of the selected type to update the current part with
+        Part temp;
+
+        if (inHouse.isSelected())        // user wishes to keep or change to inHouse
             {
-            if (inHouse.isSelected())    // user wishes to keep as inHouse
-                {
-                int machineId = 0;
-                int index     = inventory.getAllParts().indexOf(partInHouse);
-
-                // check if text is empty, if not update machine Id
-                if (!textCompanyOrMachine.getText().isEmpty())
-                    {
-                    // inHouse, get the machineId also
-                    machineId = Integer.valueOf(textCompanyOrMachine.getText());
-                    }
-
-                // create a temporary part to update the current part with
-                PartInHouse temp = new PartInHouse(curr_id,
-                                                   name,
-                                                   price,
-                                                   stock,
-                                                   min,
-                                                   max,
-                                                   machineId);
-
-                // update part
-                inventory.updatePart(index, temp);
-                }
-            else    // user wishes to change to outsourced
+            int machineId = 0;
+
+            // check if text is empty, if not update machine Id
+            if (!textCompanyOrMachine.getText().isEmpty())
                 {
-                int index = inventory.getAllParts().indexOf(partInHouse);
-
-                // create a temporary object to update the current part with
-                PartOutsourced temp = new PartOutsourced(curr_id,
-                                                         name,
-                                                         price,
-                                                         stock,
-                                                         min,
-                                                         max,
-                                                         textCompanyOrMachine.getText());
-
-                // update part
-                inventory.updatePart(index, temp);
+                // inHouse, get the machineId also
+                machineId = Integer.valueOf(textCompanyOrMachine.getText());
                 }
+            temp = new PartInHouse(curr_id, name, price, stock, min, max, machineId);
             }
-        else                             // part is currently of type PartOutsourced
+        else                             // user wishes to keep or change to outsourced
             {
-            if (inHouse.isSelected())    // user wishes to change to inHouse
-                {
-                int machineId = 0;
-                int index     = inventory.getAllParts().indexOf(partInHouse);
-
-                // check if text is empty, if not update machine Id
-                if (!textCompanyOrMachine.getText().isEmpty())
-                    {
-                    // inHouse, get the machineId also
-                    machineId = Integer.valueOf(textCompanyOrMachine.getText());
-                    }
-
-                // create a temporary object to update the current part with
-                PartInHouse temp = new PartInHouse(curr_id,
-                                                   name,
-                                                   price,
-                                                   stock,
-                                                   min,
-                                                   max,
-                                                   machineId);
-
-                // update part
-                inventory.updatePart(index, temp);
-                }
-            else    // user wishes to keep as outsourced
-                {
-                int index = inventory.getAllParts().indexOf(partOutsourced);
-
-                // create a temporary object to update the current part with
-                PartOutsourced temp = new PartOutsourced(curr_id,
-                                                         name,
-                                                         price,
-                                                         stock,
-                                                         min,
-                                                         max,
-                                                         textCompanyOrMachine.getText());
-
-                // update part
-                inventory.updatePart(index, temp);
-                }
+            temp = new PartOutsourced(curr_id,
+                                      name,
+                                      price,
+                                      stock,
+                                      min,
+                                      max,
+                                      textCompanyOrMachine.getText());
+            }
+
+        // update part, only if nobody else changed it since this window opened
+        UpdateResult<Part> result = inventory.updatePart(curr_id, version, temp);
+
+        if (result.getStatus() == UpdateResult.Status.CONFLICT)
+            {
+            // inform the user, and keep the window open so the edits are not lost
+            dialog.displayEditConflict(result.getCurrent().getName());
+
+            // the next save overwrites the newer version, now that the user has been told
+            version = result.getCurrent().getVersion();
+
+            return;
+            }
+        if (result.getStatus() == UpdateResult.Status.NOT_FOUND)
+            {
+            // the part was deleted while the window was open
+            dialog.displayEditTargetDeleted(name);
             }
 
         // close the current window
@@ -370,6 +339,12 @@ public class ModifyPartController implements Initializable
     // sets the injected part from the injected inventory
     void setPart (Part part)
     {
+        // remember the version being edited, to detect changes saved by someone else
+        version = part.getVersion();
+
+        // the window is reused, clear what was left from the last part
+        clearErrors();
+
         // check the type of the part
         isInHouse = part instanceof PartInHouse;
         if (isInHouse)
@@ -382,9 +357,8 @@ public class ModifyPartController implements Initializable
             partName.setText(part.getName());
             inv.setText(String.valueOf(part.getStock()));
 
-            // set price with a NumberFormat object
-            partPriceCost.setText(NumberFormat.getCurrencyInstance(Locale.US)
-                                              .format(part.getPrice()));
+            // set price as currency
+            partPriceCost.setText(DisplayFormat.currency(part.getPrice()));
 
             // update min/max fields
             minInput.setText(String.valueOf(part.getMin()));
@@ -392,6 +366,7 @@ public class ModifyPartController implements Initializable
 
             // update radio selections
             textCompanyOrMachine.setText(String.valueOf(partInHouse.getMachine()));
+            textCompanyOrMachine.setPromptText("e.g. (Numeric Value)");
             labelCompanyOrMachine.setText("Machine ID");
             inHouse.setSelected(true);
             outsourced.setSelected(false);
@@ -406,9 +381,8 @@ public class ModifyPartController implements Initializable
             partName.setText(part.getName());
             inv.setText(String.valueOf(part.getStock()));
 
-            // set price with a format object
-            partPriceCost.setText(NumberFormat.getCurrencyInstance(Locale.US)
-                                              .format(part.getPrice()));
+            // set price as currency
+            partPriceCost.setText(DisplayFormat.currency(part.getPrice()));
 
             // update min/max fields
             minInput.setText(String.valueOf(part.getMin()));
@@ -416,9 +390,25 @@ public class ModifyPartController implements Initializable
 
             // update radio selections
             textCompanyOrMachine.setText(partOutsourced.getCompanyName());
+            textCompanyOrMachine.setPromptText("e.g. Lumber Supply, Inc.");
             labelCompanyOrMachine.setText("Company Name");
             inHouse.setSelected(false);
             outsourced.setSelected(true);
             }
     }
+
+    // keeps the form in step with a text field, as the user types or pastes
+    private void watch (TextField input, Field field)
+    {
+        inputs.put(field, input);
+        input.textProperty().addListener((property, was, text) ->
+            {
+            // only the rules reading this field are checked again
+            form.set(field, text);
+            if (input.isFocused())
+                {
+                validator.show(form, inputs, errorLabelList);
+                }
+            });
+    }
 }
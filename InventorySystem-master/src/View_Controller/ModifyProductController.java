@@ -10,17 +10,14 @@ package View_Controller;
 
 import java.net.URL;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
-
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import javafx.beans.binding.BooleanBinding;
 
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -30,12 +27,18 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 
 import javafx.stage.Stage;
 
+import Helpers.CellValues;
 import Helpers.DialogHelper;
+import Helpers.DisplayFormat;
+import Helpers.FormRules.Field;
+import Helpers.FormRules.Rule;
+import Helpers.FormValidation;
+import Helpers.InventoryRules;
+import Helpers.InventoryRules.ProductForm;
 import Helpers.SearchHelper;
 import Helpers.ValidationHelper;
 
@@ -53,26 +56,26 @@ public class ModifyProductController implements Initializable
     private Button                       save;
     @FXML
     private Button                       searchPart;
-    private Inventory                    inventory;
+    private ObservableInventory          inventory;
     @FXML
     private List<Label>                  errorLabelList;
     private Product                      prod;
     @FXML
-    private TableColumn<Part, String>    partId;
+    private TableColumn<Part, Part>      partId;
     @FXML
-    private TableColumn<Part, String>    partInv;
+    private TableColumn<Part, Part>      partInv;
     @FXML
     private TableColumn<Part, String>    partName;
     @FXML
-    private TableColumn<Part, String>    partPrice;
+    private TableColumn<Part, Part>      partPrice;
     @FXML
-    private TableColumn<Product, String> assocPartId;
+    private TableColumn<Part, Part>      assocPartId;
     @FXML
-    private TableColumn<Product, String> assocPartInv;
+    private TableColumn<Part, Part>      assocPartInv;
     @FXML
-    private TableColumn<Product, String> assocPartName;
+    private TableColumn<Part, String>    assocPartName;
     @FXML
-    private TableColumn<Product, String> assocPartPrice;
+    private TableColumn<Part, Part>      assocPartPrice;
     @FXML
     private TableView<Part>              assocPartView;
     @FXML
@@ -91,10 +94,14 @@ public class ModifyProductController implements Initializable
     private TextField                    productPrice;
     @FXML
     private TextField                    searchBar;
-    private ObservableList<Part>         removedParts = FXCollections.observableArrayList();
-    private final DialogHelper           dialog       = new DialogHelper();
-    private final SearchHelper           search       = new SearchHelper();
-    private final ValidationHelper       validator    = new ValidationHelper();
+    private long                         version;
+    private final DialogHelper           dialog    = new DialogHelper();
+    private final SearchHelper           search    = new SearchHelper();
+    private final ValidationHelper       validator = new ValidationHelper();
+
+    // the product rules, checked field by field as the user types
+    private final FormValidation        form   = ProductForm.RULES.newValidation();
+    private final Map<Field, TextField> inputs = new LinkedHashMap<>();
 
     // adds a part to the current product
     @FXML
@@ -110,9 +117,11 @@ public class ModifyProductController implements Initializable
             }
         else
             {
-            // associate the part with the current product
+            // associate the part with the working copy of the product
             prod.addAssociatedPart(part);
             }
+
+        updateViews();
     }
 
     @FXML
@@ -136,18 +145,7 @@ public class ModifyProductController implements Initializable
         // display confirmation dialog
         if (dialog.confirmCancel())
             {
-            // user confirmed
-            // check if the user removed parts
-            if (removedParts.size() > 0)
-                {
-                removedParts.forEach(
-                    (removedPart) -> {
-                    // put all removed parts back before exiting
-                        prod.addAssociatedPart(removedPart);
-                    });
-                }
-
-            // close the window
+            // user confirmed, close the window, dropping the working copy and its edits
             Stage stage = (Stage) cancel.getScene().getWindow();
 
             stage.close();
@@ -178,14 +176,12 @@ public class ModifyProductController implements Initializable
             // display confirmation dialog
             if (dialog.confirmDisassociate(part.getName()))
                 {
-                // User confirmed
-                // add the part to a list of removed parts
-                removedParts.add(part);
-
-                // disassociate the part from the current product
+                // User confirmed, disassociate the part from the working copy
                 prod.deleteAssociatedPart(part);
                 }
             }
+
+        updateViews();
     }
 
     /**
@@ -197,6 +193,11 @@ public class ModifyProductController implements Initializable
     public void initialize (URL url, ResourceBundle rb)
     {
         bindSaveButton();
+        watch(productName, ProductForm.NAME);
+        watch(inv, ProductForm.STOCK);
+        watch(productPrice, ProductForm.PRICE);
+        watch(minInput, ProductForm.MIN);
+        watch(maxInput, ProductForm.MAX);
     }
 
     // validate inventory field input as the user types
@@ -207,7 +208,10 @@ public class ModifyProductController implements Initializable
         String key = ev.getCharacter();
 
         // validate what is currently in the inv input field
-        validator.validateNumeric(ev, key, inv, errorLabelList);
+        if (validator.validateNumeric(ev, key, inv, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // validate max input field as the user types
@@ -220,10 +224,8 @@ public class ModifyProductController implements Initializable
         // validate what is currently in the max input field
         if (validator.validateNumeric(ev, key, maxInput, errorLabelList))
             {
-            // key press was valid, compare min,max values
-            int pos = maxInput.getCaretPosition();
-
-            validator.validateMaxQty(pos, key, minInput, maxInput, errorLabelList);
+            // key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -237,11 +239,8 @@ public class ModifyProductController implements Initializable
         // validate what is currently in the min input field
         if (validator.validateNumeric(ev, key, minInput, errorLabelList))
             {
-            // key press was valid, compare min,max values
-            int pos = minInput.getCaretPosition();
-
-            // validate the quantity
-            validator.validateMinQty(pos, key, minInput, maxInput, errorLabelList);
+            // key press was valid, show the quantity rules
+            validator.show(form, inputs, errorLabelList);
             }
     }
 
@@ -253,7 +252,10 @@ public class ModifyProductController implements Initializable
         String key = ev.getCharacter();
 
         // validate what is currently in the product name input field
-        validator.validateProductName(ev, key, productName, errorLabelList);
+        if (validator.validateProductName(ev, key, productName, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // validate price input as the user types
@@ -263,90 +265,63 @@ public class ModifyProductController implements Initializable
         // get the key pressed
         String key = ev.getCharacter();
 
-        // validate as currency input
-        int pos = productPrice.getCaretPosition();
-
-        // validate the field against the currency filter
-        validator.validateCurrency(pos, ev, key, productPrice, errorLabelList);
+        // validate the field against the currency filter, the form checks the amount
+        if (validator.validateCurrency(ev, key, productPrice, errorLabelList))
+            {
+            validator.show(form, inputs, errorLabelList);
+            }
     }
 
     // performs checks on user inputs, saves if all checks pass
     @FXML
-    private void save () throws ParseException
+    private void save ()
     {
-        // parse user inputs
-        int    curr_id = Integer.valueOf(id.getText());
-        String name    = productName.getText().trim();
-        int    stock   = Integer.valueOf(inv.getText());
-        int    min     = Integer.valueOf(minInput.getText());
-        int    max     = Integer.valueOf(maxInput.getText());
-        Double price   = validator.parseCurrency(productPrice.getText());
-        int    index   = inventory.getAllProducts().indexOf(prod);
-
-        // detect if product has no parts
-        if (prod.getAllAssociatedParts().size() < 1)
+        // the rules were checked as the user typed, report the first still broken
+        Rule failed = form.firstError();
+
+        if (failed != null)
             {
-            // product has no parts, inform the user
-            dialog.displayProdHasNoParts();
+            // inform the user
+            dialog.displayRuleFailed(failed);
 
             // exit this function
             return;
             }
 
-        // compute total cost of associated parts
-        double prodTotalCost = 0;
+        // the values the rules were checked against
+        int    curr_id = Integer.valueOf(id.getText());
+        String name    = productName.getText().trim();
+        int    stock   = form.getInt(ProductForm.STOCK);
+        int    min     = form.getInt(ProductForm.MIN);
+        int    max     = form.getInt(ProductForm.MAX);
+        double price   = form.getCents(ProductForm.PRICE) / 100.0;
 
-        prodTotalCost = prod.getAllAssociatedParts()
-                            .stream()
-                            .map((part) -> part.getPrice())
-                            .reduce(prodTotalCost, (accum, _item) -> accum + _item);
+        // if previous checks pass, product  can be saved
+        // create a temporary product to replace the current product with
+        Product temp = new Product(curr_id, name, price, stock, min, max);
 
-        // determine if the the entered price is less than cost of its parts
-        if (prodTotalCost > price)
-            {
-            // price is set too low, inform the user
-            dialog.displayProdPriceTooLow();
+        // give temp the associated parts, shared rather than copied
+        temp.setAssociatedParts(prod.getAssociatedPartsSnapshot());
 
-            // exit this function
-            return;
-            }
+        // update current product, only if nobody else changed it since this window opened
+        UpdateResult<Product> result = inventory.updateProduct(curr_id, version, temp);
 
-        // determine if the max inventory is too low
-        if (max < min)
+        if (result.getStatus() == UpdateResult.Status.CONFLICT)
             {
-            // inform the user
-            dialog.displayMaxInvTooLow();
+            // inform the user, and keep the window open so the edits are not lost
+            dialog.displayEditConflict(result.getCurrent().getName());
+
+            // the next save overwrites the newer version, now that the user has been told
+            version = result.getCurrent().getVersion();
 
-            // exit this function
             return;
             }
-
-        // determine if inv is within the range of min, max
-        if ((stock < min) || (stock > max))
+        if (result.getStatus() == UpdateResult.Status.NOT_FOUND)
             {
-            // inform the user
-            dialog.displayInvNotInRange();
-
-            // exit this function
-            return;
+            // the product was deleted while the window was open
+            dialog.displayEditTargetDeleted(name);
             }
 
-        // if previous checks pass, product  can be saved
-        // create a temporary product to replace the current product with
-        Product temp = new Product(curr_id, name, price, stock, min, max);
-
-        // get associated parts
-        ObservableList<Part> assoc = prod.getAllAssociatedParts();
-
-        // add all associated parts to temp
-        assoc.forEach(
-            (part) -> {
-                temp.addAssociatedPart(part);
-            });
-
-        // update current product
-        inventory.updateProduct(index, temp);
-
         // close the current window
         Stage stage = (Stage) save.getScene().getWindow();
 
@@ -362,7 +337,7 @@ public class ModifyProductController implements Initializable
     }
 
     // set the injected inventory object
-    void setInventory (Inventory inventory)
+    void setInventory (ObservableInventory inventory)
     {
         this.inventory = inventory;
     }
@@ -373,35 +348,71 @@ public class ModifyProductController implements Initializable
         // set the form fields with data from the injected product
         this.id.setText(String.valueOf(prod.getId()));
         this.productName.setText(prod.getName());
-        this.productPrice.setText(NumberFormat.getCurrencyInstance(Locale.US)
-                                              .format(prod.getPrice()));
+        this.productPrice.setText(DisplayFormat.currency(prod.getPrice()));
         this.inv.setText(String.valueOf(prod.getStock()));
         this.minInput.setText(String.valueOf(prod.getMin()));
         this.maxInput.setText(String.valueOf(prod.getMax()));
-        this.prod = prod;
+
+        // associations are edited on a copy, the product in the inventory and in
+        // any snapshot holding it only changes when the user saves
+        this.prod = prod.copy();
+
+        // remember the version being edited, to detect changes saved by someone else
+        this.version = prod.getVersion();
+
+        // the window is reused, clear what was left from the last product
+        searchBar.clear();
+        partView.getSelectionModel().clearSelection();
+        updateViews();
+        clearErrors();
     }
 
-    // set the TableViews
-    void setTableViews (Inventory inventory, Product prod)
+    // set the TableViews, once for the life of the window
+    void setTableViews (ObservableInventory inventory)
     {
         // associate part view cells with part data elements
-        partId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partName.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInv.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        DisplayFormat.intColumn(partId, Part::getId);
+        partName.setCellValueFactory(CellValues.of(Part::getName));
+        DisplayFormat.intColumn(partInv, Part::getStock);
+        DisplayFormat.currencyColumn(partPrice, Part::getPrice);
 
-        // format price column to currency format
-        partPrice.setCellFactory(new CurrencyCellFactory<>());
         partView.setItems(inventory.getAllParts());
+        MainController.sortByIndex(partView, partName, inventory::sortParts);
+        partInv.setSortable(false);
+        partPrice.setSortable(false);
 
         // associate product view cells with product data elements
-        assocPartId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        assocPartName.setCellValueFactory(new PropertyValueFactory<>("name"));
-        assocPartInv.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        assocPartPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        // format price column to currency format
-        assocPartPrice.setCellFactory(new CurrencyCellFactory<>());
-        assocPartView.setItems(prod.getAllAssociatedParts());
+        DisplayFormat.intColumn(assocPartId, Part::getId);
+        assocPartName.setCellValueFactory(CellValues.of(Part::getName));
+        DisplayFormat.intColumn(assocPartInv, Part::getStock);
+        DisplayFormat.currencyColumn(assocPartPrice, Part::getPrice);
+
+        assocPartView.setItems(FXCollections.observableArrayList());
+    }
+
+    // refreshes TableViews
+    private void updateViews ()
+    {
+        // show the current associated parts, the parts table is unchanged
+        assocPartView.getItems().setAll(prod.getAllAssociatedParts());
+
+        // the parts rules read the associated parts rather than a text field
+        form.setValue(ProductForm.PARTS_COST, InventoryRules.cents(prod.getAssociatedPartsCost()));
+        form.setValue(ProductForm.PART_COUNT, prod.getAllAssociatedParts().size());
+    }
+
+    // keeps the form in step with a text field, as the user types or pastes
+    private void watch (TextField input, Field field)
+    {
+        inputs.put(field, input);
+        input.textProperty().addListener((property, was, text) ->
+            {
+            // only the rules reading this field are checked again
+            form.set(field, text);
+            if (input.isFocused())
+                {
+                validator.show(form, inputs, errorLabelList);
+                }
+            });
     }
 }
@@ -0,0 +1,228 @@
+/*
+ *  Package: Startup
+ *  File:    StartupProfile.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Startup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import java.lang.management.ManagementFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+
+import javafx.stage.Stage;
+
+import Application.Main;
+
+/**
+ * A scripted startup of the Inventory System, for training and measuring a
+ * class data sharing (AppCDS) archive.
+ * <p>
+ * Run on its own, it starts the application exactly as Main does, prints
+ * how long after the JVM started the first frame was drawn and the inventory
+ * was loaded, then exits:
+ * <pre>
+ * first-frame-ms=640
+ * loaded-ms=1210
+ * </pre>
+ * Run with -XX:ArchiveClassesAtExit, the classes loaded on the way are dumped
+ * into an archive, which later runs map in with -XX:SharedArchiveFile instead
+ * of loading, verifying and linking each class again.
+ * <p>
+ * Run with --compare archive runs, it starts itself that many times without
+ * the archive and that many with it, and reports the median of each:
+ * <pre>
+ *                   first frame      loaded
+ * without archive        640 ms     1210 ms
+ * with archive           380 ms      930 ms
+ * </pre>
+ * The times are taken from the JVM's own start time, so they include the JVM
+ * booting, which is where most of the class loading happens.
+ * <p>
+ * Run with --run, it just starts the application, e.g. with the archive.
+ *
+ * @author Justin Langley
+ */
+public final class StartupProfile
+{
+    private static final String FIRST_FRAME = "first-frame-ms=";
+    private static final String LOADED      = "loaded-ms=";
+
+    private StartupProfile ()
+    {
+    }
+
+    /**
+     * Runs a profiled startup, or compares startups with and without an archive.
+     *
+     * @param args nothing, --run to just run the application,
+     *             or --compare, the archive and the number of runs of each
+     * @throws Exception if a compared run could not be started or failed
+     */
+    public static void main (String[] args) throws Exception
+    {
+        if ((args.length == 3) && "--compare".equals(args[0]))
+            {
+            compare(args[1], Integer.parseInt(args[2]));
+            }
+        else if ((args.length == 1) && "--run".equals(args[0]))
+            {
+            // launched from here, so JavaFX on the class path is not refused as it
+            // would be for a main class extending Application
+            Application.launch(Main.class);
+            }
+        else if (args.length == 0)
+            {
+            Application.launch(Profiled.class);
+            }
+        else
+            {
+            System.err.println("usage: StartupProfile [--run | --compare <archive> <runs>]");
+            System.exit(2);
+            }
+    }
+
+    // the milliseconds since the JVM started
+    private static long sinceStart ()
+    {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    // starts this class in runs new JVMs with the options, returns the median times
+    private static long[] measure (List<String> options, int runs)
+        throws IOException, InterruptedException
+    {
+        long[] firstFrames = new long[runs];
+        long[] loads       = new long[runs];
+
+        for (int run = 0; run < runs; run++)
+            {
+            List<String> command = new ArrayList<>();
+
+            command.add(System.getProperty("java.home") + File.separator + "bin"
+                        + File.separator + "java");
+            command.addAll(options);
+
+            // pass the inventory settings on, e.g. -Dinventory.parts
+            for (String name : System.getProperties().stringPropertyNames())
+                {
+                if (name.startsWith("inventory."))
+                    {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                    }
+                }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(StartupProfile.class.getName());
+
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+            try (BufferedReader out = new BufferedReader(
+                     new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)))
+                {
+                String line;
+
+                while ((line = out.readLine()) != null)
+                    {
+                    if (line.startsWith(FIRST_FRAME))
+                        {
+                        firstFrames[run] = Long.parseLong(line.substring(FIRST_FRAME.length()));
+                        }
+                    else if (line.startsWith(LOADED))
+                        {
+                        loads[run] = Long.parseLong(line.substring(LOADED.length()));
+                        }
+                    }
+                }
+            if (process.waitFor() != 0)
+                {
+                throw new IOException("Startup run failed with exit code " + process.exitValue()
+                                      + ": " + command);
+                }
+            }
+
+        return new long[] {median(firstFrames), median(loads)};
+    }
+
+    // runs startups without and with the archive, and prints the medians of both
+    private static void compare (String archive, int runs) throws Exception
+    {
+        if (!new File(archive).isFile())
+            {
+            throw new IOException("No archive at " + archive + ", train one first");
+            }
+
+        // one unmeasured run of each, so both find the files in the OS cache
+        measure(Arrays.asList("-Xshare:auto"), 1);
+        measure(Arrays.asList("-XX:SharedArchiveFile=" + archive), 1);
+
+        long[] before = measure(Arrays.asList("-Xshare:auto"), runs);
+        long[] after  = measure(Arrays.asList("-XX:SharedArchiveFile=" + archive), runs);
+
+        System.out.printf("median of %d runs each%n", runs);
+        System.out.printf("%-18s %11s %11s%n", "", "first frame", "loaded");
+        System.out.printf("%-18s %8d ms %8d ms%n", "without archive", before[0], before[1]);
+        System.out.printf("%-18s %8d ms %8d ms%n", "with archive", after[0], after[1]);
+        System.out.printf("%-18s %9.0f %% %9.0f %%%n", "saved",
+                          100.0 * (before[0] - after[0]) / Math.max(1, before[0]),
+                          100.0 * (before[1] - after[1]) / Math.max(1, before[1]));
+    }
+
+    private static long median (long[] values)
+    {
+        long[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * The application, started as Main starts it, reporting its first frame and
+     * its load, then exiting. Public, so Application.launch() can create it.
+     */
+    public static final class Profiled extends Main
+    {
+        @Override
+        public void start (Stage stage) throws Exception
+        {
+            super.start(stage);
+
+            // the first pulse after the window is shown is the one which draws it
+            new AnimationTimer()
+                {
+                @Override
+                public void handle (long now)
+                {
+                    stop();
+                    System.out.println(FIRST_FRAME + sinceStart());
+                }
+                }.start();
+
+            // the load is done once the window unlocks, then exit so an archive is dumped
+            getController().loadedProperty().addListener((property, was, loaded) ->
+                {
+                if (loaded)
+                    {
+                    System.out.println(LOADED + sinceStart());
+                    Platform.exit();
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Package: Helpers
+ *  File:    CurrencyParserTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests CurrencyParser: strict comma grouping, rounding past the cents,
+ * and the MAX_CENTS limit.
+ *
+ * @author Justin Langley
+ */
+public class CurrencyParserTest
+{
+    private static final long INVALID = CurrencyParser.INVALID;
+
+    @Test
+    public void bothModesReadPlainAmounts ()
+    {
+        assertEquals(0, CurrencyParser.parseStrict("0"));
+        assertEquals(1200, CurrencyParser.parseStrict("12"));
+        assertEquals(1230, CurrencyParser.parseStrict("12.3"));
+        assertEquals(1234, CurrencyParser.parseStrict("$12.34"));
+        assertEquals(1234, CurrencyParser.parseLenient("  12.34 "));
+        assertEquals(INVALID, CurrencyParser.parseStrict(""));
+        assertEquals(INVALID, CurrencyParser.parseLenient("$"));
+        assertEquals(INVALID, CurrencyParser.parseLenient("1.2.3"));
+        assertEquals(INVALID, CurrencyParser.parseLenient("12a"));
+    }
+
+    @Test
+    public void strictGroupsThousandsByThree ()
+    {
+        assertEquals(123456, CurrencyParser.parseStrict("1,234.56"));
+        assertEquals(123456789, CurrencyParser.parseStrict("$1,234,567.89"));
+        assertEquals(12345600, CurrencyParser.parseStrict("123,456"));
+
+        // the first group has 1 to 3 digits, every later one exactly 3
+        assertEquals(INVALID, CurrencyParser.parseStrict("1234,567"));
+        assertEquals(INVALID, CurrencyParser.parseStrict("12,34"));
+        assertEquals(INVALID, CurrencyParser.parseStrict("1,2345"));
+        assertEquals(INVALID, CurrencyParser.parseStrict("1,234,56.00"));
+        assertEquals(INVALID, CurrencyParser.parseStrict(",123"));
+        assertEquals(INVALID, CurrencyParser.parseStrict("1,234."));
+        assertEquals(INVALID, CurrencyParser.parseStrict("1.23,4"));
+    }
+
+    @Test
+    public void lenientSkipsCommasAndDollarSigns ()
+    {
+        assertEquals(123400, CurrencyParser.parseLenient("12,34"));
+        assertEquals(123400, CurrencyParser.parseLenient("1,2,3,4"));
+        assertEquals(1200, CurrencyParser.parseLenient("12$"));
+        assertEquals(123400, CurrencyParser.parseLenient("$1234."));
+        assertEquals(50, CurrencyParser.parseLenient(".5"));
+
+        // strict only takes a $ first, and at least one digit before the point
+        assertEquals(INVALID, CurrencyParser.parseStrict("12$"));
+        assertEquals(INVALID, CurrencyParser.parseStrict(".5"));
+    }
+
+    @Test
+    public void lenientRoundsAtTheThirdDecimal ()
+    {
+        assertEquals(1234, CurrencyParser.parseLenient("12.344"));
+        assertEquals(1235, CurrencyParser.parseLenient("12.345"));
+        assertEquals(1234, CurrencyParser.parseLenient("12.3449999"));
+        assertEquals(1235, CurrencyParser.parseLenient("12.3490"));
+        assertEquals(100, CurrencyParser.parseLenient("0.995"));
+        assertEquals(0, CurrencyParser.parseLenient("0.004"));
+
+        // strict takes at most 2 decimals
+        assertEquals(INVALID, CurrencyParser.parseStrict("12.345"));
+    }
+
+    @Test
+    public void amountsAboveMaxCentsAreInvalid ()
+    {
+        long max = CurrencyParser.MAX_CENTS;
+
+        assertEquals(max, CurrencyParser.parseStrict("9,999,999,999,999.99"));
+        assertEquals(max, CurrencyParser.parseLenient("9999999999999.99"));
+        assertEquals(max - 99, CurrencyParser.parseStrict("9999999999999"));
+        assertEquals(INVALID, CurrencyParser.parseLenient("10000000000000"));
+        assertEquals(INVALID, CurrencyParser.parseStrict("10,000,000,000,000.00"));
+
+        // rounding up the largest amount takes it over the limit
+        assertEquals(INVALID, CurrencyParser.parseLenient("9999999999999.995"));
+
+        // digits which would overflow a long are caught before they do
+        assertEquals(INVALID, CurrencyParser.parseLenient("99999999999999999999999"));
+    }
+
+    @Test
+    public void toPriceConvertsCents ()
+    {
+        assertEquals(1234.56, CurrencyParser.toPrice(123456), 0);
+        assertEquals(0.01, CurrencyParser.toPrice(1), 0);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Package: Model
+ *  File:    InventoryTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests Inventory edits: versions across undo, redo and restore, stock moves
+ * out of range, loads prepared ahead, and lookups made while another thread edits.
+ *
+ * @author Justin Langley
+ */
+public class InventoryTest
+{
+    @Test
+    public void undoneVersionsAreNeverGivenOutAgain ()
+    {
+        Inventory inventory = new Inventory();
+
+        inventory.addPart(part(1, "A0"));
+
+        Part v0 = inventory.lookupPart(1);
+
+        inventory.updatePart(1, v0.getVersion(), part(1, "A"));
+
+        // a client reads "A", then the edit is undone and a different one made
+        long stale = inventory.lookupPart(1).getVersion();
+
+        assertTrue(inventory.undo());
+        assertTrue(inventory.lookupPart(1).getVersion() > stale);
+        inventory.updatePart(1, inventory.lookupPart(1).getVersion(), part(1, "B"));
+
+        UpdateResult<Part> result = inventory.updatePart(1, stale, part(1, "C"));
+
+        assertEquals(UpdateResult.Status.CONFLICT, result.getStatus());
+        assertEquals("B", inventory.lookupPart(1).getName());
+    }
+
+    @Test
+    public void versionsOnlyGoUp ()
+    {
+        Inventory inventory = new Inventory();
+
+        inventory.addPart(part(1, "A"));
+        inventory.addProduct(new Product(1, "Kit", 5, 1, 0, 10));
+
+        InventorySnapshot start   = inventory.snapshot();
+        long              added   = inventory.lookupPart(1).getVersion();
+        long              part    = added;
+        long              product = inventory.lookupProduct(1).getVersion();
+
+        inventory.adjustStock(1, 3, StockReason.RECEIPT);
+        inventory.setAssociatedParts(inventory.lookupProduct(1),
+                                     PersistentList.of(Collections.singletonList(part(1, "A"))));
+        for (Runnable step : Arrays.<Runnable>asList(inventory::undo, inventory::undo,
+                                                     inventory::redo, inventory::redo,
+                                                     () -> inventory.restore(start),
+                                                     inventory::undo))
+            {
+            step.run();
+
+            // each step replaces the part, the product or both, never with a lower version
+            assertTrue(inventory.lookupPart(1).getVersion() >= part);
+            assertTrue(inventory.lookupProduct(1).getVersion() >= product);
+            assertTrue(inventory.lookupPart(1).getVersion() + inventory.lookupProduct(1).getVersion()
+                       > part + product);
+            part    = inventory.lookupPart(1).getVersion();
+            product = inventory.lookupProduct(1).getVersion();
+            }
+
+        // the snapshot keeps the versions it was taken with
+        assertEquals(added, start.getParts().get(0).getVersion());
+        assertEquals(inventory.lookupPart(1), inventory.snapshot().getPartsByName().get(0));
+    }
+
+    @Test
+    public void stockMovesOutOfRangeAreRefused ()
+    {
+        Inventory inventory = new Inventory();
+
+        inventory.addPart(part(1, "A"));
+
+        // the part holds 5, with a max of 10
+        assertRefused(inventory, () -> inventory.adjustStock(1, -6, StockReason.PICK));
+        assertRefused(inventory, () -> inventory.adjustStock(1, 6, StockReason.RECEIPT));
+        assertRefused(inventory, () -> inventory.adjustStock(1, Integer.MAX_VALUE,
+                                                             StockReason.RECEIPT));
+        assertEquals(0, inventory.adjustStock(1, -5, StockReason.PICK).getStock());
+        assertEquals(10, inventory.adjustStock(1, 10, StockReason.RECEIPT).getStock());
+
+        // a part given, rather than an ID, may go above max, but not overflow
+        Part over = inventory.adjustStock(inventory.lookupPart(1), Integer.MAX_VALUE - 10,
+                                          StockReason.RECEIPT);
+
+        assertEquals(Integer.MAX_VALUE, over.getStock());
+        assertRefused(inventory, () -> inventory.adjustStock(over, 1, StockReason.RECEIPT));
+        assertEquals(Integer.MAX_VALUE, inventory.getFacets().getMachines().get(0).getStock());
+    }
+
+    @Test
+    public void preparedLoadsSwapInWhatWasBuilt ()
+    {
+        Inventory inventory = new Inventory();
+        int[]     changes   = new int[1];
+
+        inventory.getLowStock().setOnChange(() -> changes[0]++);
+        inventory.addPart(part(1, "A"));
+
+        // part 1 drops from 5 to 2, below its new min of 3, and part 2 is new
+        InventorySnapshot snapshot = InventorySnapshot.of(
+            Arrays.asList(new PartInHouse(1, "A", 1.0, 2, 3, 10, 1),
+                          new PartOutsourced(2, "B", 1.0, 7, 0, 10, "Acme")),
+            Collections.<Product>emptyList());
+
+        inventory.load(inventory.prepareLoad(snapshot));
+
+        long now = System.currentTimeMillis();
+
+        assertSame(snapshot, inventory.snapshot());
+        assertEquals(2, inventory.getLedger().stockOn(1, now));
+        assertEquals(7, inventory.getLedger().stockOn(2, now));
+        assertEquals(1, inventory.getLowStock().size());
+        assertEquals(1, changes[0]);
+        assertArrayEquals(new int[] {1},
+                          inventory.getIndex().select(PartIndex.Filter.lowStock()).toArray());
+        assertEquals(2, inventory.getFacets().getMachines().get(0).getStock());
+        assertTrue(inventory.lookupPart(2).getVersion() < inventory.adjustStock(2, -1,
+                   StockReason.PICK).getVersion());
+
+        // prepared, then overtaken by an edit: the load is redone against the edit
+        Inventory.PreparedLoad stale = inventory.prepareLoad(InventorySnapshot.of(
+            Collections.singletonList(part(3, "C")), Collections.<Product>emptyList()));
+
+        // which takes part 2 down to its min
+        inventory.adjustStock(2, -6, StockReason.PICK);
+        assertEquals(2, changes[0]);
+        inventory.load(stale);
+        now = System.currentTimeMillis();
+        assertEquals(0, inventory.getLedger().stockOn(1, now));
+        assertEquals(0, inventory.getLedger().stockOn(2, now));
+        assertEquals(5, inventory.getLedger().stockOn(3, now));
+        assertEquals(0, inventory.getLowStock().size());
+        assertEquals(3, changes[0]);
+        assertFalse(inventory.getHistory().canUndo());
+    }
+
+    @Test
+    public void lookupsDuringEditsFindTheirOwnPart () throws InterruptedException
+    {
+        Inventory inventory = new Inventory();
+
+        for (int id = 1; id <= 200; id += 2)
+            {
+            inventory.addPart(part(id, "P" + id));
+            }
+
+        // deleting and re-adding the lowest part shifts the index of every other one
+        Thread writer = new Thread(() ->
+        {
+            for (int round = 0; round < 20000; round++)
+                {
+                inventory.deletePart(part(1, "P1"));
+                inventory.addPart(part(1, "P1"));
+                }
+        });
+
+        writer.start();
+        while (writer.isAlive())
+            {
+            for (int id = 3; id <= 200; id += 2)
+                {
+                assertEquals(id, inventory.lookupPart(id).getId());
+                assertNull(inventory.lookupPart(id + 1));
+                }
+            }
+        writer.join();
+    }
+
+    // checks that a move throws, and leaves the part and the ledger as they were
+    private static void assertRefused (Inventory inventory, Runnable move)
+    {
+        Part before  = inventory.lookupPart(1);
+        int  entries = inventory.getLedger().size();
+
+        try
+            {
+            move.run();
+            fail("The move was not refused");
+            }
+        catch (IllegalArgumentException e)
+            {
+            assertSame(before, inventory.lookupPart(1));
+            assertEquals(entries, inventory.getLedger().size());
+            }
+    }
+
+    private static Part part (int id, String name)
+    {
+        return new PartInHouse(id, name, 1.0, 5, 0, 10, 1);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *  Package: Model
+ *  File:    LowStockMonitorTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests LowStockMonitor ordering, and reads made while another thread edits.
+ *
+ * @author Justin Langley
+ */
+public class LowStockMonitorTest
+{
+    @Test
+    public void mostUrgentFirst ()
+    {
+        LowStockMonitor monitor = new LowStockMonitor();
+
+        monitor.update(part(1, 4));
+        monitor.update(part(2, 1));
+        monitor.update(part(3, 9));
+        monitor.update(part(4, 1));
+
+        // part 3 is above its min of 5, parts 2 and 4 tie and go by ID
+        assertEquals(3, monitor.size());
+        assertEquals(2, monitor.peek().getId());
+        assertEquals(4, monitor.getReorderParts().get(1).getId());
+        monitor.update(part(2, 8));
+        monitor.remove(part(4, 1));
+        assertEquals(1, monitor.peek().getId());
+        monitor.remove(part(1, 4));
+        assertNull(monitor.peek());
+    }
+
+    @Test
+    public void readsDuringEditsSeeAWholeHeap () throws InterruptedException
+    {
+        LowStockMonitor monitor = new LowStockMonitor();
+        int[]           calls   = new int[1];
+
+        monitor.setOnChange(() -> calls[0]++);
+
+        // parts go low and are restocked over and over, growing and shrinking the heap
+        Thread writer = new Thread(() ->
+        {
+            for (int round = 0; round < 2000; round++)
+                {
+                for (int id = 1; id <= 50; id++)
+                    {
+                    monitor.update(part(id, id % 5));
+                    }
+                for (int id = 1; id <= 50; id++)
+                    {
+                    monitor.update(part(id, 10));
+                    }
+                }
+        });
+
+        writer.start();
+        while (writer.isAlive())
+            {
+            List<Part> parts = monitor.getReorderParts();
+
+            for (Part part : parts)
+                {
+                assertNotNull(part);
+                }
+            synchronized (monitor)
+                {
+                assertTrue((monitor.size() == 0) == (monitor.peek() == null));
+                }
+            }
+        writer.join();
+        assertEquals(0, monitor.size());
+        assertEquals(2000 * 100, calls[0]);
+    }
+
+    // a part with a min of 5 and the given stock
+    private static Part part (int id, int stock)
+    {
+        return new PartInHouse(id, "P" + id, 1.0, stock, 5, 20, 1);
+    }
+}
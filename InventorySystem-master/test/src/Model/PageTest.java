@@ -0,0 +1,104 @@
+/*
+ *  Package: Model
+ *  File:    PageTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests Page reads either side of a key, with and without the key's own row,
+ * at both ends of the index.
+ *
+ * @author Justin Langley
+ */
+public class PageTest
+{
+    // the keys 10, 20, ... 1000
+    private static final PersistentList<Integer> TENS = tens();
+
+    @Test
+    public void afterReadsPastTheKey ()
+    {
+        Page<Integer> first = Page.read(TENS, null, Page.Direction.AFTER, 3);
+
+        assertEquals(Arrays.asList(10, 20, 30), first.getItems());
+        assertTrue(first.hasMore());
+
+        // a key in the index, and one between two rows, give the same page
+        assertEquals(Arrays.asList(40, 50), read(30, Page.Direction.AFTER, 2).getItems());
+        assertEquals(Arrays.asList(40, 50), read(35, Page.Direction.AFTER, 2).getItems());
+
+        Page<Integer> last = read(970, Page.Direction.AFTER, 5);
+
+        assertEquals(Arrays.asList(980, 990, 1000), last.getItems());
+        assertFalse(last.hasMore());
+        assertTrue(read(1000, Page.Direction.AFTER, 5).isEmpty());
+    }
+
+    @Test
+    public void beforeReadsUpToTheKey ()
+    {
+        Page<Integer> last = Page.read(TENS, null, Page.Direction.BEFORE, 3);
+
+        assertEquals(Arrays.asList(980, 990, 1000), last.getItems());
+        assertTrue(last.hasMore());
+        assertEquals(Arrays.asList(510, 520), read(530, Page.Direction.BEFORE, 2).getItems());
+        assertEquals(Arrays.asList(510, 520), read(525, Page.Direction.BEFORE, 2).getItems());
+
+        Page<Integer> first = read(40, Page.Direction.BEFORE, 5);
+
+        assertEquals(Arrays.asList(10, 20, 30), first.getItems());
+        assertFalse(first.hasMore());
+        assertTrue(read(10, Page.Direction.BEFORE, 5).isEmpty());
+    }
+
+    @Test
+    public void pagesWalkTheWholeIndex ()
+    {
+        List<Integer> seen = new ArrayList<>();
+        Page<Integer> page = Page.read(TENS, null, Page.Direction.AFTER, 7);
+
+        seen.addAll(page.getItems());
+        while (page.hasMore())
+            {
+            page = read(seen.get(seen.size() - 1), Page.Direction.AFTER, 7);
+            seen.addAll(page.getItems());
+            }
+        assertEquals(TENS.asList(), seen);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limitMustBePositive ()
+    {
+        Page.read(TENS, null, Page.Direction.AFTER, 0);
+    }
+
+    private static Page<Integer> read (int key, Page.Direction direction, int limit)
+    {
+        return Page.read(TENS, row -> Integer.compare(row, key), direction, limit);
+    }
+
+    private static PersistentList<Integer> tens ()
+    {
+        List<Integer> keys = new ArrayList<>();
+
+        for (int k = 1; k <= 100; k++)
+            {
+            keys.add(k * 10);
+            }
+
+        return PersistentList.of(keys);
+    }
+}
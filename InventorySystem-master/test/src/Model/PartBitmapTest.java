@@ -0,0 +1,266 @@
+/*
+ *  Package: Model
+ *  File:    PartBitmapTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests PartBitmap against a TreeSet of the same IDs, around the sizes where a
+ * chunk switches form: dense above 4,096 IDs, sparse again at 2,048.
+ *
+ * @author Justin Langley
+ */
+public class PartBitmapTest
+{
+    // the IDs of one chunk, and the start of the next
+    private static final int CHUNK = 65536;
+
+    @Test
+    public void addAndRemoveAcrossTheSwitch ()
+    {
+        PartBitmap       bitmap   = new PartBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // up to the sparse limit, one past it, then back down to sparse
+        for (int id = 0; id < 4096; id++)
+            {
+            assertTrue(bitmap.add(id * 3));
+            expected.add(id * 3);
+            }
+        check(expected, bitmap);
+        assertFalse(bitmap.add(0));
+        assertTrue(bitmap.add(1));
+        expected.add(1);
+        check(expected, bitmap);
+
+        for (int id = 0; id < 2100; id++)
+            {
+            assertTrue(bitmap.remove(id * 3));
+            expected.remove(id * 3);
+            }
+        check(expected, bitmap);
+        assertFalse(bitmap.remove(0));
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(1));
+
+        // and dense once more from the sparse form
+        for (int id = 0; id < 4000; id++)
+            {
+            bitmap.add(id * 5);
+            expected.add(id * 5);
+            }
+        check(expected, bitmap);
+    }
+
+    @Test
+    public void emptyChunksAreDropped ()
+    {
+        PartBitmap bitmap = new PartBitmap();
+
+        bitmap.add(5);
+        bitmap.add(CHUNK + 5);
+        assertTrue(bitmap.remove(5));
+        assertTrue(bitmap.remove(CHUNK + 5));
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.iterator().hasNext());
+    }
+
+    @Test
+    public void orOfTwoSparseChunksBecomesDense ()
+    {
+        TreeSet<Integer> even = new TreeSet<>();
+        TreeSet<Integer> odd  = new TreeSet<>();
+
+        for (int id = 0; id < 3000; id++)
+            {
+            even.add(id * 2);
+            odd.add(id * 2 + 1);
+            }
+
+        TreeSet<Integer> either = new TreeSet<>(even);
+
+        either.addAll(odd);
+        check(either, PartBitmap.or(bitmap(even), bitmap(odd)));
+        check(even, PartBitmap.or(bitmap(even), bitmap(even)));
+    }
+
+    @Test
+    public void andOfTwoDenseChunksBecomesSparse ()
+    {
+        TreeSet<Integer> low  = range(0, 6000);
+        TreeSet<Integer> high = range(3000, 9000);
+
+        // 3,000 in common, below the sparse limit
+        check(intersect(low, high), PartBitmap.and(bitmap(low), bitmap(high)));
+
+        // 5,000 in common, still dense
+        check(intersect(low, range(1000, 20000)),
+              PartBitmap.and(bitmap(low), bitmap(range(1000, 20000))));
+    }
+
+    @Test
+    public void sparseAgainstDense ()
+    {
+        TreeSet<Integer> dense  = range(0, 10000);
+        TreeSet<Integer> sparse = new TreeSet<>();
+
+        for (int id = 0; id < 2000; id++)
+            {
+            sparse.add(id * 7);
+            }
+
+        TreeSet<Integer> either = new TreeSet<>(dense);
+
+        either.addAll(sparse);
+        check(intersect(sparse, dense), PartBitmap.and(bitmap(sparse), bitmap(dense)));
+        check(intersect(sparse, dense), PartBitmap.and(bitmap(dense), bitmap(sparse)));
+        check(either, PartBitmap.or(bitmap(sparse), bitmap(dense)));
+        check(either, PartBitmap.or(bitmap(dense), bitmap(sparse)));
+    }
+
+    @Test
+    public void chunksOnlyOneSideHas ()
+    {
+        TreeSet<Integer> a = range(0, 100);
+        TreeSet<Integer> b = range(CHUNK, CHUNK + 5000);
+
+        a.addAll(range(3 * CHUNK, 3 * CHUNK + 10));
+        b.addAll(range(3 * CHUNK + 5, 3 * CHUNK + 20));
+
+        TreeSet<Integer> either = new TreeSet<>(a);
+
+        either.addAll(b);
+        check(intersect(a, b), PartBitmap.and(bitmap(a), bitmap(b)));
+        check(either, PartBitmap.or(bitmap(a), bitmap(b)));
+        check(a, PartBitmap.or(bitmap(a), new PartBitmap()));
+        check(new TreeSet<>(), PartBitmap.and(bitmap(a), new PartBitmap()));
+    }
+
+    @Test
+    public void randomSetsMatchTreeSets ()
+    {
+        Random random = new Random(2019);
+
+        for (int round = 0; round < 50; round++)
+            {
+            TreeSet<Integer> a = random(random);
+            TreeSet<Integer> b = random(random);
+
+            TreeSet<Integer> either = new TreeSet<>(a);
+
+            either.addAll(b);
+            check(intersect(a, b), PartBitmap.and(bitmap(a), bitmap(b)));
+            check(either, PartBitmap.or(bitmap(a), bitmap(b)));
+            }
+    }
+
+    @Test
+    public void copiesAreIndependent ()
+    {
+        PartBitmap original = bitmap(range(0, 5000));
+        PartBitmap copy     = original.copy();
+
+        copy.remove(10);
+        copy.add(CHUNK);
+        assertTrue(original.contains(10));
+        assertFalse(original.contains(CHUNK));
+        check(range(0, 5000), original);
+    }
+
+    // compares every view of the bitmap with the expected IDs
+    private static void check (TreeSet<Integer> expected, PartBitmap actual)
+    {
+        int[] ids = new int[expected.size()];
+        int   i   = 0;
+
+        for (int id : expected)
+            {
+            ids[i++] = id;
+            }
+        assertEquals(expected.size(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertArrayEquals(ids, actual.toArray());
+
+        PrimitiveIterator.OfInt iterator = actual.iterator();
+
+        for (int id : ids)
+            {
+            assertTrue(iterator.hasNext());
+            assertEquals(id, iterator.nextInt());
+            }
+        assertFalse(iterator.hasNext());
+
+        for (int id : ids)
+            {
+            assertTrue(actual.contains(id));
+            }
+        if (!expected.isEmpty())
+            {
+            assertFalse(actual.contains(expected.last() + 1));
+            }
+    }
+
+    private static PartBitmap bitmap (TreeSet<Integer> ids)
+    {
+        PartBitmap bitmap = new PartBitmap();
+
+        for (int id : ids)
+            {
+            bitmap.add(id);
+            }
+
+        return bitmap;
+    }
+
+    private static TreeSet<Integer> intersect (TreeSet<Integer> a, TreeSet<Integer> b)
+    {
+        TreeSet<Integer> both = new TreeSet<>(a);
+
+        both.retainAll(b);
+
+        return both;
+    }
+
+    // the IDs from start up to but not including end
+    private static TreeSet<Integer> range (int start, int end)
+    {
+        TreeSet<Integer> ids = new TreeSet<>();
+
+        for (int id = start; id < end; id++)
+            {
+            ids.add(id);
+            }
+
+        return ids;
+    }
+
+    // up to 10,000 IDs over 3 chunks, dense enough that some chunks switch form
+    private static TreeSet<Integer> random (Random random)
+    {
+        TreeSet<Integer> ids   = new TreeSet<>();
+        int              count = random.nextInt(10000);
+        int              span  = 1 + random.nextInt(3 * CHUNK);
+
+        for (int i = 0; i < count; i++)
+            {
+            ids.add(random.nextInt(span));
+            }
+
+        return ids;
+    }
+}
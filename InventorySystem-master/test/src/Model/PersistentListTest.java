@@ -0,0 +1,189 @@
+/*
+ *  Package: Model
+ *  File:    PersistentListTest.java
+ *
+ *  Created by: Justin A Langley
+ *  Date: 2019AUG08
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests PersistentList against an ArrayList given the same edits, and checks
+ * that every edit leaves the list it was made on as it was.
+ *
+ * @author Justin Langley
+ */
+public class PersistentListTest
+{
+    @Test
+    public void addAppendsAndInserts ()
+    {
+        PersistentList<String> list = PersistentList.<String>empty().add("b").add("d");
+
+        list = list.add(0, "a").add(2, "c").add(4, "e");
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), list.asList());
+        assertEquals(5, list.size());
+        assertEquals("c", list.get(2));
+        assertTrue(PersistentList.empty().isEmpty());
+    }
+
+    @Test
+    public void editsLeaveTheOriginalUnchanged ()
+    {
+        PersistentList<Integer> original = PersistentList.of(Arrays.asList(1, 2, 3, 4, 5));
+        PersistentList<Integer> added    = original.add(2, 9);
+        PersistentList<Integer> removed  = original.remove(0);
+        PersistentList<Integer> set      = original.set(4, 0);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), original.asList());
+        assertEquals(Arrays.asList(1, 2, 9, 3, 4, 5), added.asList());
+        assertEquals(Arrays.asList(2, 3, 4, 5), removed.asList());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 0), set.asList());
+    }
+
+    @Test
+    public void removeKeepsTheRestInOrder ()
+    {
+        PersistentList<Integer> list = PersistentList.of(range(100));
+
+        list = list.remove(0).remove(98).remove(50);
+        assertEquals(97, list.size());
+        assertEquals(1, (int) list.get(0));
+        assertEquals(50, (int) list.get(49));
+        assertEquals(52, (int) list.get(50));
+        assertEquals(98, (int) list.get(96));
+        assertEquals(95, list.remove(0).remove(0).size());
+        assertTrue(PersistentList.of(Arrays.asList(7)).remove(0).isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removePastTheEndThrows ()
+    {
+        PersistentList.of(range(3)).remove(3);
+    }
+
+    @Test
+    public void indexOfKeyFindsKeysAndInsertionPoints ()
+    {
+        // the keys 10, 20, ... 1000
+        List<Integer>           keys = new ArrayList<>();
+        PersistentList<Integer> list;
+
+        for (int k = 1; k <= 100; k++)
+            {
+            keys.add(k * 10);
+            }
+        list = PersistentList.of(keys);
+
+        for (int i = 0; i < keys.size(); i++)
+            {
+            assertEquals(i, list.indexOfKey(Integer::intValue, keys.get(i)));
+            }
+
+        // missing keys give -(insertion point) - 1, as Collections.binarySearch does
+        assertEquals(-1, list.indexOfKey(Integer::intValue, 5));
+        assertEquals(-2, list.indexOfKey(Integer::intValue, 15));
+        assertEquals(-51, list.indexOfKey(Integer::intValue, 505));
+        assertEquals(-101, list.indexOfKey(Integer::intValue, 1005));
+        assertEquals(-1, PersistentList.<Integer>empty().indexOfKey(Integer::intValue, 1));
+
+        for (int k = 0; k <= 1010; k++)
+            {
+            assertEquals(Collections.binarySearch(keys, k), list.indexOfKey(Integer::intValue, k));
+            }
+    }
+
+    @Test
+    public void searchTakesAnyOrder ()
+    {
+        PersistentList<String> names = PersistentList.of(Arrays.asList("bolt", "gear", "nut", "screw"));
+
+        assertEquals(2, names.search(name -> name.compareTo("nut")));
+        assertEquals(-3, names.search(name -> name.compareTo("hinge")));
+        assertEquals(-5, names.search(name -> name.compareTo("washer")));
+    }
+
+    @Test
+    public void iteratorStartsAtAnyIndex ()
+    {
+        PersistentList<Integer> list = PersistentList.of(range(50));
+
+        for (int from = 0; from <= 50; from++)
+            {
+            Iterator<Integer> iterator = list.iterator(from);
+
+            for (int i = from; i < 50; i++)
+                {
+                assertEquals(i, (int) iterator.next());
+                }
+            assertFalse(iterator.hasNext());
+            }
+    }
+
+    @Test
+    public void randomEditsMatchAnArrayList ()
+    {
+        Random                  random   = new Random(2019);
+        List<Integer>           expected = new ArrayList<>();
+        PersistentList<Integer> list     = PersistentList.empty();
+
+        for (int step = 0; step < 5000; step++)
+            {
+            int choice = random.nextInt(4);
+
+            if ((choice == 0) && !expected.isEmpty())
+                {
+                int index = random.nextInt(expected.size());
+
+                expected.remove(index);
+                list = list.remove(index);
+                }
+            else if ((choice == 1) && !expected.isEmpty())
+                {
+                int index = random.nextInt(expected.size());
+
+                expected.set(index, step);
+                list = list.set(index, step);
+                }
+            else
+                {
+                int index = random.nextInt(expected.size() + 1);
+
+                expected.add(index, step);
+                list = list.add(index, step);
+                }
+            }
+        assertEquals(expected, list.asList());
+        for (int i = 0; i < expected.size(); i++)
+            {
+            assertEquals(expected.get(i), list.get(i));
+            }
+        assertEquals(expected.indexOf(4999), list.indexOf(4999));
+    }
+
+    // the integers from 0 up to but not including end
+    private static List<Integer> range (int end)
+    {
+        List<Integer> values = new ArrayList<>();
+
+        for (int i = 0; i < end; i++)
+            {
+            values.add(i);
+            }
+
+        return values;
+    }
+}